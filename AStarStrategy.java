@@ -0,0 +1,123 @@
+/*
+In this program, we will solve a maze with A*: cells are expanded in order of (distance from the start + Manhattan
+distance to the goal), which heads straight for the goal until a wall gets in the way.  The Manhattan distance never
+overestimates in a maze, so the path found is a shortest one.
+*/
+
+import java.util.*;
+
+public class AStarStrategy implements SolverStrategy
+{
+	//Methods
+	//getName - returns "astar"
+	public String getName()
+	{
+		return "astar";
+	}
+
+	//solve - expands the cell with the lowest (distance so far + estimate to the goal) until the goal is reached
+	public SolveResult solve(MazeGrid grid, int startRow, int startCol, int goalRow, int goalCol)
+	{
+		long startTime = System.nanoTime();
+		int numCols = grid.getNumCols();
+		int numCells = grid.getNumRows() * numCols;
+		int startIndex = startRow*numCols + startCol;
+		int goalIndex = goalRow*numCols + goalCol;
+
+		//distance holds the best known distance from the start (-1 if unknown), closed marks the expanded cells
+		int[] distance = new int[numCells];
+		Arrays.fill(distance, -1);
+		boolean[] closed = new boolean[numCells];
+		byte[] cameFrom = new byte[numCells];
+
+		//the open set is a binary min-heap of (priority << 32 | cell index), so no objects are needed for it
+		long[] heap = new long[1024];
+		int heapSize = 0;
+
+		distance[startIndex] = 0;
+		cameFrom[startIndex] = SolverStrategies.START_MARK;
+		heap[heapSize++] = ((long)estimate(startRow, startCol, goalRow, goalCol) << 32) | startIndex;
+		long cellsExpanded = 0;
+		long peakHeapSize = 1;
+
+		while (heapSize > 0)
+		{
+			//take the cell with the lowest priority off the heap
+			int index = (int)heap[0];
+			heap[0] = heap[--heapSize];
+			siftDown(heap, heapSize, 0);
+
+			//a cell can be on the heap more than once; only the first (best) copy is expanded
+			if (closed[index])
+				continue;
+			closed[index] = true;
+			cellsExpanded++;
+			if (index == goalIndex)
+				break;
+
+			int row = index / numCols;
+			int col = index % numCols;
+			for (Direction direction : SolverStrategies.DIRECTIONS)
+			{
+				if (grid.hasWall(row, col, direction))
+					continue;
+				int neighborRow = row + MazeGrid.rowChange(direction);
+				int neighborCol = col + MazeGrid.colChange(direction);
+				int neighbor = neighborRow*numCols + neighborCol;
+				int newDistance = distance[index] + 1;
+				if (!closed[neighbor] && (distance[neighbor] < 0 || newDistance < distance[neighbor]))
+				{
+					distance[neighbor] = newDistance;
+					cameFrom[neighbor] = (byte)(direction.ordinal() + 1);
+
+					if (heapSize == heap.length)
+						heap = Arrays.copyOf(heap, 2*heap.length);
+					heap[heapSize] = ((long)(newDistance + estimate(neighborRow, neighborCol, goalRow, goalCol)) << 32) | neighbor;
+					siftUp(heap, heapSize++);
+				}
+			}
+			peakHeapSize = Math.max(peakHeapSize, heapSize);
+		}
+
+		if (!closed[goalIndex])
+			throw new IllegalStateException("the goal cannot be reached from <" + startRow + ", " + startCol + ">");
+
+		ArrayList<Direction> path = SolverStrategies.tracePath(cameFrom, numCols, startIndex, goalIndex);
+		return new SolveResult(path, path.size(), System.nanoTime() - startTime, cellsExpanded, peakHeapSize);
+	}
+
+	//estimate - returns the Manhattan distance from [row][col] to the goal
+	private static int estimate(int row, int col, int goalRow, int goalCol)
+	{
+		return Math.abs(goalRow - row) + Math.abs(goalCol - col);
+	}
+
+	//siftUp - moves heap[position] up until its parent is not larger
+	private static void siftUp(long[] heap, int position)
+	{
+		long entry = heap[position];
+		while (position > 0 && heap[(position-1)/2] > entry)
+		{
+			heap[position] = heap[(position-1)/2];
+			position = (position-1)/2;
+		}
+		heap[position] = entry;
+	}
+
+	//siftDown - moves heap[position] down until neither of its children is smaller
+	private static void siftDown(long[] heap, int heapSize, int position)
+	{
+		long entry = heap[position];
+		while (2*position+1 < heapSize)
+		{
+			int child = 2*position+1;
+			if (child+1 < heapSize && heap[child+1] < heap[child])
+				child++;
+			if (heap[child] >= entry)
+				break;
+			heap[position] = heap[child];
+			position = child;
+		}
+		heap[position] = entry;
+	}
+}//end of class
@@ -0,0 +1,368 @@
+/* This program reads and writes mazes drawn as ASCII art, the way most maze programs print them:
+        +--+--+--+
+        |S    |  |
+        +--+  +  +
+        |     | G|
+        +--+--+--+
+    Every row of cells is a line of cells (a '|' or a ' ' after each cell, for the wall to its
+    right) and a line of walls (a '+' at every corner and "--" or "  " under each cell, for the
+    wall below it), after a first line that is the top border.
+        - the cells can be any width (the distance between the first two '+' of the first line),
+          and the lines can end in "\n" or "\r\n", but every line has to be the same length
+        - the start is the upper left cell and the goal is the lower right cell, as in every Maze;
+          they can be marked with an 'S' and a 'G', and the border can have a gap next to them
+          (an entrance and an exit), but anywhere else a mark or a gap is an error
+    Like RawMazeFormat, a maze is written a row at a time (newWriter is a MazeRowSink) and read
+    a row at a time (readRows maps the file a segment at a time), so neither side ever holds
+    the whole maze and a file can be many GB.
+ */
+
+public class AsciiMazeFormat
+{
+	//-------constants
+	public static final int CELL_WIDTH = 2;   //how wide the cells are written
+
+	private static final int BUFFER_BYTES = 1 << 16;
+	private static final long SEGMENT_BYTES = 1L << 30;   //a single mapping cannot reach past 2 GB
+
+	//what detectLayout returns
+	private static final int ROWS = 0;
+	private static final int COLS = 1;
+	private static final int WIDTH = 2;
+	private static final int LINE_CHARS = 3;   //without the line ending
+	private static final int LINE_BYTES = 4;   //with it
+
+	// **************** methods *******************************************
+
+	//-------- newWriter - writes the top border to the channel and returns a sink that writes each row it receives
+	public static RowWriter newWriter(java.nio.channels.WritableByteChannel channel, int numRows, int numCols)
+			throws java.io.IOException
+	{
+		return new RowWriter(channel, numRows, numCols);
+	}
+
+	//-------- write - draws the walls of a whole Maze to the channel
+	public static void write(Maze aMaze, java.nio.channels.WritableByteChannel channel) throws java.io.IOException
+	{
+		MazeGrid grid = aMaze.getGrid();
+		RowWriter writer = newWriter(channel, grid.getNumRows(), grid.getNumCols());
+		byte[] rowCells = new byte[grid.getNumCols()];
+		for (int row=0; row<grid.getNumRows(); row++)
+		{
+			grid.getRowWalls(row, rowCells);
+			writer.acceptRow(row, rowCells);
+		}
+		writer.flush();
+	}
+
+	//-------- readSize - works out the layout of an ASCII maze file from its first line and its length, and returns
+	//                    { number of rows, number of columns }
+	public static int[ ] readSize(java.nio.channels.FileChannel channel) throws java.io.IOException
+	{
+		int[ ] layout = detectLayout(channel);
+		return new int[ ] { layout[ROWS], layout[COLS] };
+	}
+
+	//-------- readRows - maps the file a segment of whole rows at a time, turns the two lines of every row into the
+	//                    walls of its cells, and hands the rows to the sink in order
+	public static void readRows(java.nio.channels.FileChannel channel, MazeRowSink sink) throws java.io.IOException
+	{
+		int[ ] layout = detectLayout(channel);
+		int numRows = layout[ROWS];
+		int numCols = layout[COLS];
+		int lineChars = layout[LINE_CHARS];
+		long lineBytes = layout[LINE_BYTES];
+		long fileBytes = channel.size();
+
+		byte[] line = new byte[lineChars];
+		byte[] rowCells = new byte[numCols];
+		java.nio.MappedByteBuffer top = channel.map(java.nio.channels.FileChannel.MapMode.READ_ONLY, 0,
+				Math.min(lineBytes, fileBytes));
+		top.get(0, line);
+		checkEnding(top, lineChars, layout, 0);
+		parseBorder(line, layout, 0);
+
+		int rowsPerSegment = (int)Math.max(1, Math.min(numRows, SEGMENT_BYTES / (2*lineBytes)));
+		for (int firstRow=0; firstRow<numRows; firstRow+=rowsPerSegment)
+		{
+			int segmentRows = Math.min(rowsPerSegment, numRows - firstRow);
+			long start = lineBytes + 2*lineBytes*firstRow;
+			java.nio.MappedByteBuffer segment = channel.map(java.nio.channels.FileChannel.MapMode.READ_ONLY, start,
+					Math.min(2*lineBytes*segmentRows, fileBytes - start));
+			for (int i=0; i<segmentRows; i++)
+			{
+				int row = firstRow + i;
+				int offset = (int)(2*lineBytes*i);
+				segment.get(offset, line);
+				checkEnding(segment, offset + lineChars, layout, 1 + 2*(long)row);
+				parseCells(line, layout, row, rowCells);
+
+				offset += (int)lineBytes;
+				segment.get(offset, line);
+				if (row < numRows-1)
+					checkEnding(segment, offset + lineChars, layout, 2 + 2*(long)row);
+				parseWalls(line, layout, row, rowCells);
+
+				sink.acceptRow(row, rowCells);
+			}
+		}
+	}
+
+	//-------- detectLayout - reads the first line to find the width of the cells and of the lines, and how the lines
+	//                        end, then works out the number of rows from the length of the file
+	private static int[ ] detectLayout(java.nio.channels.FileChannel channel) throws java.io.IOException
+	{
+		long fileBytes = channel.size();
+		if (fileBytes == 0)
+			throw new java.io.IOException("ASCII maze file is empty");
+		java.nio.MappedByteBuffer first = channel.map(java.nio.channels.FileChannel.MapMode.READ_ONLY, 0,
+				Math.min(fileBytes, Integer.MAX_VALUE));
+
+		int lineChars = 0;
+		while (lineChars < first.limit() && first.get(lineChars) != '\n')
+			lineChars++;
+		if (lineChars == first.limit())
+			throw new java.io.IOException("ASCII maze file has only one line");
+		int endingBytes = 1;
+		if (lineChars > 0 && first.get(lineChars-1) == '\r')
+		{
+			lineChars--;
+			endingBytes = 2;
+		}
+
+		int width = 1;
+		while (width < lineChars && first.get(width) != '+')
+			width++;
+		if (lineChars < 3 || first.get(0) != '+' || width == lineChars || width == 1)
+			throw new java.io.IOException("the first line of an ASCII maze has to be the top border (\"+--+--+\")");
+		width--;
+		if ((lineChars - 1) % (width + 1) != 0)
+			throw new java.io.IOException("the top border is " + lineChars + " characters long, which is not a whole " +
+					"number of cells " + width + " characters wide");
+
+		//every line is the same length, and the last one can leave out its line ending
+		long lineBytes = lineChars + endingBytes;
+		long numLines = (fileBytes + endingBytes) / lineBytes;
+		if (numLines * lineBytes != fileBytes && numLines * lineBytes != fileBytes + endingBytes)
+			throw new java.io.IOException("ASCII maze file is " + fileBytes + " bytes long, which is not a whole number of " +
+					lineBytes + " byte lines");
+		if (numLines < 3 || numLines % 2 == 0)
+			throw new java.io.IOException("ASCII maze file has " + numLines + " lines; a maze has a top border and two " +
+					"lines for each row");
+		if ((numLines - 1) / 2 > Integer.MAX_VALUE || 2 * lineBytes > Integer.MAX_VALUE)
+			throw new java.io.IOException("ASCII maze file is too big");
+
+		return new int[ ] { (int)((numLines - 1) / 2), (lineChars - 1) / (width + 1), width, lineChars, (int)lineBytes };
+	}
+
+	//-------- checkEnding - makes sure the line ends where the first line did
+	private static void checkEnding(java.nio.ByteBuffer buffer, int index, int[ ] layout, long lineNumber)
+			throws java.io.IOException
+	{
+		boolean crlf = layout[LINE_BYTES] - layout[LINE_CHARS] == 2;
+		if (crlf ? (buffer.get(index) != '\r' || buffer.get(index+1) != '\n') : buffer.get(index) != '\n')
+			throw new java.io.IOException("line " + (lineNumber+1) + " is not as long as the first line");
+	}
+
+	//-------- parseBorder - checks the top border (which can only have a gap above the start)
+	private static void parseBorder(byte[] line, int[ ] layout, long lineNumber) throws java.io.IOException
+	{
+		int width = layout[WIDTH];
+		for (int col=0; col<layout[COLS]; col++)
+		{
+			int corner = col * (width + 1);
+			checkCorner(line, corner, lineNumber);
+			if (!isSegment(line, corner + 1, width, (byte)'-') && !(col == 0 && isSegment(line, 1, width, (byte)' ')))
+				throw new java.io.IOException("line 1, column " + (corner+2) + ": the top border can only have a gap " +
+						"above the start");
+		}
+		checkCorner(line, layout[LINE_CHARS]-1, lineNumber);
+	}
+
+	//-------- parseCells - reads the walls to the right of the cells in the row from its line of cells
+	private static void parseCells(byte[] line, int[ ] layout, int row, byte[] rowCells) throws java.io.IOException
+	{
+		int numRows = layout[ROWS];
+		int numCols = layout[COLS];
+		int width = layout[WIDTH];
+		long lineNumber = 1 + 2*(long)row;
+
+		if (line[0] != '|' && !(row == 0 && line[0] == ' '))
+			throw new java.io.IOException("line " + (lineNumber+1) + " has to start with '|' (the left border can " +
+					"only have a gap beside the start)");
+
+		int index = 1;
+		for (int col=0; col<numCols; col++)
+		{
+			//the inside of the cell is blank, apart from the marks on the start and the goal
+			for (int end=index+width; index<end; index++)
+			{
+				byte c = line[index];
+				if (c == ' ')
+					continue;
+				if (c == 'S' && row == 0 && col == 0)
+					continue;
+				if (c == 'G' && row == numRows-1 && col == numCols-1)
+					continue;
+				throw new java.io.IOException("line " + (lineNumber+1) + ", column " + (index+1) + ": unexpected '" +
+						(char)(c & 0xFF) + "' inside a cell");
+			}
+
+			byte wall = line[index++];
+			if (wall == '|')
+				rowCells[col] = MazeGrid.RIGHT_WALL;
+			else if (wall == ' ' && col < numCols-1)
+				rowCells[col] = 0;
+			else if (wall == ' ' && row == numRows-1)
+				rowCells[col] = MazeGrid.RIGHT_WALL;   //the exit beside the goal; a Maze's border is always closed
+			else
+				throw new java.io.IOException("line " + (lineNumber+1) + ", column " + index + ": expected '|'" +
+						(col < numCols-1 ? " or ' '" : " (the right border can only have a gap beside the goal)"));
+		}
+	}
+
+	//-------- parseWalls - adds the walls below the cells in the row from its line of walls
+	private static void parseWalls(byte[] line, int[ ] layout, int row, byte[] rowCells) throws java.io.IOException
+	{
+		int numRows = layout[ROWS];
+		int numCols = layout[COLS];
+		int width = layout[WIDTH];
+		long lineNumber = 2 + 2*(long)row;
+
+		for (int col=0; col<numCols; col++)
+		{
+			int corner = col * (width + 1);
+			checkCorner(line, corner, lineNumber);
+			if (isSegment(line, corner + 1, width, (byte)'-'))
+				rowCells[col] |= MazeGrid.DOWN_WALL;
+			else if (!isSegment(line, corner + 1, width, (byte)' '))
+				throw new java.io.IOException("line " + (lineNumber+1) + ", column " + (corner+2) + ": a wall has to be " +
+						"all '-' or all ' '");
+			else if (row == numRows-1 && col == numCols-1)
+				rowCells[col] |= MazeGrid.DOWN_WALL;   //the exit below the goal
+			else if (row == numRows-1)
+				throw new java.io.IOException("line " + (lineNumber+1) + ", column " + (corner+2) + ": the bottom border " +
+						"can only have a gap below the goal");
+		}
+		checkCorner(line, layout[LINE_CHARS]-1, lineNumber);
+	}
+
+	//-------- checkCorner - makes sure there is a '+' where the walls meet
+	private static void checkCorner(byte[] line, int index, long lineNumber) throws java.io.IOException
+	{
+		if (line[index] != '+')
+			throw new java.io.IOException("line " + (lineNumber+1) + ", column " + (index+1) + ": expected '+'");
+	}
+
+	//-------- isSegment - returns true if the width characters of the line from index on are all c
+	private static boolean isSegment(byte[] line, int index, int width, byte c)
+	{
+		for (int i=index; i<index+width; i++)
+			if (line[i] != c)
+				return false;
+		return true;
+	}
+
+	//***********************************************************************
+
+	//RowWriter is a MazeRowSink that draws the rows it receives to a channel, through a buffer
+	public static class RowWriter implements MazeRowSink
+	{
+		private java.nio.channels.WritableByteChannel channel;
+		private java.nio.ByteBuffer buffer;
+		private int numRows;
+		private int numCols;
+		private int nextRow;
+		private byte[] cellLine;
+		private byte[] wallLine;
+
+		//constructor - writes the top border right away
+		private RowWriter(java.nio.channels.WritableByteChannel channel, int numRows, int numCols) throws java.io.IOException
+		{
+			if (numRows < 1 || numCols < 1)
+				throw new IllegalArgumentException("number of rows and columns must be > 0");
+			if ((long)numCols * (CELL_WIDTH + 1) + 2 > Integer.MAX_VALUE / 2)
+				throw new IllegalArgumentException("too many columns for an ASCII maze: " + numCols);
+
+			this.channel = channel;
+			this.numRows = numRows;
+			this.numCols = numCols;
+			buffer = java.nio.ByteBuffer.allocate(BUFFER_BYTES);
+			int lineBytes = numCols * (CELL_WIDTH + 1) + 2;
+			cellLine = new byte[lineBytes];
+			wallLine = new byte[lineBytes];
+			java.util.Arrays.fill(cellLine, (byte)' ');
+			cellLine[0] = '|';
+			cellLine[lineBytes-1] = '\n';
+			wallLine[lineBytes-1] = '\n';
+
+			byte[] rowCells = new byte[numCols];
+			java.util.Arrays.fill(rowCells, (byte)MazeGrid.DOWN_WALL);
+			drawWalls(rowCells);
+			put(wallLine);
+		}
+
+		//acceptRow - draws the row's line of cells and line of walls into the buffer
+		public void acceptRow(int row, byte[] rowCells) throws java.io.IOException
+		{
+			//the lines have no row numbers, so the rows must arrive in order
+			if (row != nextRow)
+				throw new IllegalStateException("expected row " + nextRow + " but received row " + row);
+			nextRow++;
+
+			for (int col=0; col<numCols; col++)
+			{
+				int index = col * (CELL_WIDTH + 1);
+				cellLine[index + 1 + CELL_WIDTH/2] = (byte)((row == 0 && col == 0) ? 'S' :
+						(row == numRows-1 && col == numCols-1) ? 'G' : ' ');
+				cellLine[index + CELL_WIDTH + 1] = (byte)(((rowCells[col] & MazeGrid.RIGHT_WALL) != 0) ? '|' : ' ');
+			}
+			put(cellLine);
+
+			drawWalls(rowCells);
+			put(wallLine);
+		}
+
+		//flush - writes out whatever is still in the buffer
+		public void flush() throws java.io.IOException
+		{
+			drain();
+		}
+
+		//drawWalls - fills wallLine with the corners and the walls below the cells
+		private void drawWalls(byte[] rowCells)
+		{
+			for (int col=0; col<numCols; col++)
+			{
+				int index = col * (CELL_WIDTH + 1);
+				wallLine[index] = '+';
+				byte c = (byte)(((rowCells[col] & MazeGrid.DOWN_WALL) != 0) ? '-' : ' ');
+				for (int i=1; i<=CELL_WIDTH; i++)
+					wallLine[index + i] = c;
+			}
+			wallLine[numCols * (CELL_WIDTH + 1)] = '+';
+		}
+
+		//put - adds a line to the buffer, writing the buffer out whenever it fills up
+		private void put(byte[] line) throws java.io.IOException
+		{
+			for (int i=0; i<line.length; )
+			{
+				if (!buffer.hasRemaining())
+					drain();
+				int count = Math.min(buffer.remaining(), line.length - i);
+				buffer.put(line, i, count);
+				i += count;
+			}
+		}
+
+		//drain - writes the buffer to the channel and empties it
+		private void drain() throws java.io.IOException
+		{
+			buffer.flip();
+			while (buffer.hasRemaining())
+				channel.write(buffer);
+			buffer.clear();
+		}
+	}
+}
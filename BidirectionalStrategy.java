@@ -0,0 +1,108 @@
+/*
+In this program, we will solve a maze with two breadth first searches at once, one from the start and one from the
+goal.  Each round, the side with the smaller frontier expands one whole level, and we stop as soon as the two
+searches touch.
+*/
+
+import java.util.*;
+
+public class BidirectionalStrategy implements SolverStrategy
+{
+	//Data
+	private static final byte FROM_START = 1;
+	private static final byte FROM_GOAL = 2;
+
+	//Methods
+	//getName - returns "bidi"
+	public String getName()
+	{
+		return "bidi";
+	}
+
+	//solve - searches from both ends until they meet, then joins the two halves of the path
+	public SolveResult solve(MazeGrid grid, int startRow, int startCol, int goalRow, int goalCol)
+	{
+		long startTime = System.nanoTime();
+		int numCols = grid.getNumCols();
+		int numCells = grid.getNumRows() * numCols;
+		int startIndex = startRow*numCols + startCol;
+		int goalIndex = goalRow*numCols + goalCol;
+
+		//side says which search reached a cell first, cameFrom the Direction (ordinal + 1) that search entered it by
+		byte[] side = new byte[numCells];
+		byte[] cameFrom = new byte[numCells];
+		int[][] queue = { new int[numCells], new int[numCells] };
+		int[] head = { 0, 0 };
+		int[] tail = { 0, 0 };
+
+		queue[0][tail[0]++] = startIndex;
+		side[startIndex] = FROM_START;
+		cameFrom[startIndex] = SolverStrategies.START_MARK;
+		queue[1][tail[1]++] = goalIndex;
+		side[goalIndex] = FROM_GOAL;
+		cameFrom[goalIndex] = SolverStrategies.START_MARK;
+
+		long cellsExpanded = 0;
+		long peakFrontierSize = 2;
+		int meetFromStart = (startIndex == goalIndex) ? startIndex : -1;   //the last cell of the start's half
+		int meetFromGoal = meetFromStart;                                  //the first cell of the goal's half
+		Direction meetDirection = null;                                    //the move between the two halves
+
+		while (meetFromStart < 0 && head[0] < tail[0] && head[1] < tail[1])
+		{
+			//expand one whole level of whichever side has the smaller frontier
+			int s = (tail[0] - head[0] <= tail[1] - head[1]) ? 0 : 1;
+			byte mySide = (s == 0) ? FROM_START : FROM_GOAL;
+			int levelEnd = tail[s];
+
+			while (head[s] < levelEnd && meetFromStart < 0)
+			{
+				int index = queue[s][head[s]++];
+				int row = index / numCols;
+				int col = index % numCols;
+				cellsExpanded++;
+
+				for (Direction direction : SolverStrategies.DIRECTIONS)
+				{
+					if (grid.hasWall(row, col, direction))
+						continue;
+					int neighbor = index + MazeGrid.rowChange(direction)*numCols + MazeGrid.colChange(direction);
+					if (side[neighbor] == 0)
+					{
+						side[neighbor] = mySide;
+						cameFrom[neighbor] = (byte)(direction.ordinal() + 1);
+						queue[s][tail[s]++] = neighbor;
+					}
+					else if (side[neighbor] != mySide)
+					{
+						//the two searches just touched
+						meetFromStart = (s == 0) ? index : neighbor;
+						meetFromGoal = (s == 0) ? neighbor : index;
+						meetDirection = (s == 0) ? direction : SolverStrategies.opposite(direction);
+						break;
+					}
+				}
+			}
+			peakFrontierSize = Math.max(peakFrontierSize, (tail[0] - head[0]) + (tail[1] - head[1]));
+		}
+
+		if (meetFromStart < 0)
+			throw new IllegalStateException("the goal cannot be reached from <" + startRow + ", " + startCol + ">");
+
+		//the start's half is traced back like any breadth first search...
+		ArrayList<Direction> path = SolverStrategies.tracePath(cameFrom, numCols, startIndex, meetFromStart);
+		if (meetDirection != null)
+			path.add(meetDirection);
+
+		//...and the goal's half is followed forward, undoing each of the moves that search made
+		int index = meetFromGoal;
+		while (index != goalIndex)
+		{
+			Direction direction = SolverStrategies.DIRECTIONS[cameFrom[index] - 1];
+			path.add(SolverStrategies.opposite(direction));
+			index -= MazeGrid.rowChange(direction)*numCols + MazeGrid.colChange(direction);
+		}
+
+		return new SolveResult(path, path.size(), System.nanoTime() - startTime, cellsExpanded, peakFrontierSize);
+	}
+}//end of class
@@ -0,0 +1,63 @@
+/*
+In this program, we will solve a maze breadth first: cells are expanded in order of their distance from the start,
+so the first time the goal is reached we have a shortest path to it.
+*/
+
+import java.util.*;
+
+public class BreadthFirstStrategy implements SolverStrategy
+{
+	//Methods
+	//getName - returns "bfs"
+	public String getName()
+	{
+		return "bfs";
+	}
+
+	//solve - expands cells in order of their distance from the start until the goal is reached
+	public SolveResult solve(MazeGrid grid, int startRow, int startCol, int goalRow, int goalCol)
+	{
+		long startTime = System.nanoTime();
+		int numCols = grid.getNumCols();
+		int startIndex = startRow*numCols + startCol;
+		int goalIndex = goalRow*numCols + goalCol;
+
+		//cameFrom holds the Direction (ordinal + 1) each cell was first entered by, or 0 if it has not been reached
+		byte[] cameFrom = new byte[grid.getNumRows() * numCols];
+		int[] queue = new int[cameFrom.length];
+		int head = 0;
+		int tail = 0;
+
+		queue[tail++] = startIndex;
+		cameFrom[startIndex] = SolverStrategies.START_MARK;
+		long cellsExpanded = 0;
+		long peakQueueSize = 1;
+
+		while (head < tail && cameFrom[goalIndex] == 0)
+		{
+			int index = queue[head++];
+			int row = index / numCols;
+			int col = index % numCols;
+			cellsExpanded++;
+
+			for (Direction direction : SolverStrategies.DIRECTIONS)
+			{
+				if (grid.hasWall(row, col, direction))
+					continue;
+				int neighbor = index + MazeGrid.rowChange(direction)*numCols + MazeGrid.colChange(direction);
+				if (cameFrom[neighbor] == 0)
+				{
+					cameFrom[neighbor] = (byte)(direction.ordinal() + 1);
+					queue[tail++] = neighbor;
+				}
+			}
+			peakQueueSize = Math.max(peakQueueSize, tail - head);
+		}
+
+		if (cameFrom[goalIndex] == 0)
+			throw new IllegalStateException("the goal cannot be reached from <" + startRow + ", " + startCol + ">");
+
+		ArrayList<Direction> path = SolverStrategies.tracePath(cameFrom, numCols, startIndex, goalIndex);
+		return new SolveResult(path, path.size(), System.nanoTime() - startTime, cellsExpanded, peakQueueSize);
+	}
+}//end of class
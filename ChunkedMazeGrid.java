@@ -0,0 +1,513 @@
+/* This program implements a MazeGrid that is never stored whole: it is a procedural maze of
+    about two billion rows and columns, made of chunkSize x chunkSize chunks that are generated
+    the first time they are looked at, and thrown away again when too many are in memory.
+        - a chunk is carved with the recursive backtracker, using a Random seeded from the maze's
+          seed and the chunk's row and column, so it comes out exactly the same every time it is
+          generated - nothing is lost when a chunk is evicted
+        - every chunk but the first (the upper left one) has one door to a parent chunk, above it
+          or to its left (which one, and where along the edge, also comes from the seed).  Every
+          chain of parents ends at the first chunk, so every cell can reach every other cell, and
+          since each chunk is a perfect maze joined to the others by a tree of doors, the whole
+          maze is perfect too.  A door's wall belongs to the parent's cells, so a chunk is
+          generated from its own seed and the seeds of its two possible children.
+        - the state of a cell (the path) is kept apart from the chunks, only for the cells that
+          are not EMPTY, so a path survives its chunks being evicted
+    Memory stays the same however far the maze is explored: at most maxChunks chunks, plus the
+    cells on the path.  solve finds the path between any two cells the same way - chunk by
+    chunk, along the tree of doors - and the Maze, its display (zoomed in) and the solver can all
+    walk it.  Anything that looks at every cell of the grid (getFingerprint, toMazeArray, a
+    MazeCursor's path marks) is not meant for a grid this big.  The grid cannot be serialized
+    either (nor can a Maze or a MazeSolver on it): its chunks are only a cache, so make a new
+    grid from the same seed instead.
+    Run it as "ChunkedMazeGrid seed goalRow goalCol [chunkSize [maxChunks]]" to solve a path
+    from the upper left corner, or add "--display" to watch the Maze walk it.
+ */
+
+public class ChunkedMazeGrid extends MazeGrid
+{
+	//-------constants
+	public static final int DEFAULT_CHUNK_SIZE = 64;
+	public static final int DEFAULT_MAX_CHUNKS = 1024;
+
+	private static final int WALLS = RIGHT_WALL | DOWN_WALL;
+	private static final int STATE_BITS = 0x0C;
+	private static final int WATCH_DELAY = 2;
+
+	//the grid is Serializable because every MazeGrid is, but it refuses to be serialized (see writeObject)
+	private static final long serialVersionUID = -7400224466654596288L;
+
+	//-------data
+	private final long seed;
+	private final int chunkSize;
+	private final int numChunkRows;
+	private final int numChunkCols;
+	private final int maxChunks;
+
+	//the chunks in memory, least recently used first (only touched while holding the lock on the map) - and the one
+	//that was used last, which is nearly always the one that is wanted next
+	private final java.util.LinkedHashMap<Long, Chunk> chunks;
+	private volatile Chunk lastChunk;
+	private long numGenerated;
+	private long numEvicted;
+
+	//the cells (row << 32 | col) that are not EMPTY, and their state bits
+	private final java.util.HashMap<Long, Byte> states = new java.util.HashMap<Long, Byte>();
+
+	//-------constructors
+	public ChunkedMazeGrid(long seed)
+	{
+		this(seed, DEFAULT_CHUNK_SIZE, DEFAULT_MAX_CHUNKS);
+	}
+
+	public ChunkedMazeGrid(long seed, int chunkSize, int maxChunks)
+	{
+		super(rowsFor(chunkSize), rowsFor(chunkSize), null);
+		if (maxChunks < 1)
+			throw new IllegalArgumentException("at least one chunk must fit in memory");
+
+		this.seed = seed;
+		this.chunkSize = chunkSize;
+		this.maxChunks = maxChunks;
+		numChunkRows = getNumRows() / chunkSize;
+		numChunkCols = getNumCols() / chunkSize;
+		chunks = new java.util.LinkedHashMap<Long, Chunk>(16, 0.75f, true);
+
+		//the walls are all there (they are only ever generated), so the maze is built already
+		super.freeze();
+	}
+
+	// **************** methods *******************************************
+
+	//-------- main - solves the path from the upper left corner to [goalRow][goalCol] and reports what it cost, or
+	//                (with --display) walks a Maze along it in a MazeDisplay
+	public static void main(String[] args)
+	{
+		boolean display = args.length > 0 && args[args.length-1].equals("--display");
+		int numArgs = display ? args.length - 1 : args.length;
+		if (numArgs < 3)
+			throw new IllegalArgumentException("usage: ChunkedMazeGrid seed goalRow goalCol [chunkSize [maxChunks]] [--display]");
+
+		long seed = Long.parseLong(args[0]);
+		int goalRow = Integer.parseInt(args[1]);
+		int goalCol = Integer.parseInt(args[2]);
+		int chunkSize = (numArgs > 3) ? Integer.parseInt(args[3]) : DEFAULT_CHUNK_SIZE;
+		int maxChunks = (numArgs > 4) ? Integer.parseInt(args[4]) : DEFAULT_MAX_CHUNKS;
+
+		ChunkedMazeGrid grid = new ChunkedMazeGrid(seed, chunkSize, maxChunks);
+		SolveResult result = grid.solve(0, 0, goalRow, goalCol);
+		System.out.println("solved <0, 0> to <" + goalRow + ", " + goalCol + ">: " + result);
+		System.out.println(grid.getNumGenerated() + " chunks generated, " + grid.getNumEvicted() + " evicted, " +
+				grid.getNumChunksInMemory() + " in memory");
+
+		if (display)
+		{
+			Maze myMaze = new Maze(grid);
+			new MazeDisplay(myMaze);
+			myMaze.setSolveAnimationDelay(WATCH_DELAY);
+			for (Direction direction : result.getPath())
+				myMaze.move(direction);
+		}
+	}
+
+	//-------- getSeed - returns the seed every chunk is generated from
+	public long getSeed()
+	{
+		return seed;
+	}
+
+	//-------- getChunkSize - returns how many cells wide (and high) a chunk is
+	public int getChunkSize()
+	{
+		return chunkSize;
+	}
+
+	//-------- getNumGenerated - returns how many times a chunk has been generated (including again, after eviction)
+	public long getNumGenerated()
+	{
+		synchronized (chunks)
+		{
+			return numGenerated;
+		}
+	}
+
+	//-------- getNumEvicted - returns how many chunks have been thrown away to make room for others
+	public long getNumEvicted()
+	{
+		synchronized (chunks)
+		{
+			return numEvicted;
+		}
+	}
+
+	//-------- getNumChunksInMemory - returns how many chunks are in memory now
+	public int getNumChunksInMemory()
+	{
+		synchronized (chunks)
+		{
+			return chunks.size();
+		}
+	}
+
+	//-------- solve - returns the path from [startRow][startCol] to [goalRow][goalCol].  The chunks the path goes
+	//                 through are found by climbing the tree of doors from both ends until the climbs meet; then
+	//                 the path through each of them, from the door it comes in by to the door it leaves by, is
+	//                 found by a breadth first search that never leaves the chunk.  So however far apart the two
+	//                 cells are, it only ever needs one chunk's worth of working memory (plus the path).
+	public SolveResult solve(int startRow, int startCol, int goalRow, int goalCol)
+	{
+		if (!inMaze(startRow, startCol))
+			throw new IllegalArgumentException("start <" + startRow + ", " + startCol + "> is outside the maze");
+		if (!inMaze(goalRow, goalCol))
+			throw new IllegalArgumentException("goal <" + goalRow + ", " + goalCol + "> is outside the maze");
+
+		long startTime = System.nanoTime();
+
+		//climb from both ends to the chunk where the climbs meet (the deeper end climbs first, since the depth of a
+		//chunk - how many doors it is from the first chunk - is its row plus its column)
+		java.util.ArrayList<Long> up = new java.util.ArrayList<Long>();     //start's chunk and the ones above it
+		java.util.ArrayList<Long> down = new java.util.ArrayList<Long>();   //goal's chunk and the ones above it
+		long from = chunkKey(startRow / chunkSize, startCol / chunkSize);
+		long to = chunkKey(goalRow / chunkSize, goalCol / chunkSize);
+		while (from != to)
+		{
+			if (depthOf(from) >= depthOf(to))
+			{
+				up.add(from);
+				from = parentOf(from);
+			}
+			else
+			{
+				down.add(to);
+				to = parentOf(to);
+			}
+		}
+
+		//the chunks in the order the path goes through them
+		java.util.ArrayList<Long> route = new java.util.ArrayList<Long>(up);
+		route.add(from);
+		for (int i=down.size()-1; i>=0; i--)
+			route.add(down.get(i));
+
+		//then walk from the start to the goal, door by door
+		java.util.ArrayList<Direction> path = new java.util.ArrayList<Direction>();
+		ChunkSearch search = new ChunkSearch();
+		int row = startRow;
+		int col = startCol;
+		for (int i=0; i<route.size(); i++)
+		{
+			if (i == route.size() - 1)
+			{
+				search.findPath(row, col, goalRow, goalCol, path);
+				break;
+			}
+
+			//the door between this chunk and the next one: the cell on this side, and the way through it
+			long chunk = route.get(i);
+			long next = route.get(i+1);
+			int[ ] door = (parentOf(chunk) == next) ? doorUp(chunk) : doorDown(next);
+			search.findPath(row, col, door[0], door[1], path);
+
+			Direction through = Direction.values()[door[2]];
+			path.add(through);
+			row = door[0] + rowChange(through);
+			col = door[1] + colChange(through);
+		}
+
+		return new SolveResult(path, path.size(), System.nanoTime() - startTime, search.numExpanded, search.peakFrontier);
+	}
+
+	//-------- getCell - returns the walls of the cell at [aRow][aCol] from its chunk (generating it if it has to), and
+	//                   its state
+	protected int getCell(int aRow, int aCol)
+	{
+		int chunkRow = aRow / chunkSize;
+		int chunkCol = aCol / chunkSize;
+		Chunk chunk = lastChunk;
+		if (chunk == null || chunk.chunkRow != chunkRow || chunk.chunkCol != chunkCol)
+			chunk = chunkAt(chunkRow, chunkCol);
+
+		int cell = chunk.walls[(aRow - chunkRow*chunkSize) * chunkSize + (aCol - chunkCol*chunkSize)];
+		synchronized (states)
+		{
+			Byte state = states.get((long)aRow << 32 | aCol);
+			return (state == null) ? cell : cell | state;
+		}
+	}
+
+	//-------- setCell - stores the state of the cell at [aRow][aCol] (its walls only ever come from its chunk)
+	protected void setCell(int aRow, int aCol, int cell)
+	{
+		synchronized (states)
+		{
+			if ((cell & STATE_BITS) == 0)
+				states.remove((long)aRow << 32 | aCol);
+			else
+				states.put((long)aRow << 32 | aCol, (byte)(cell & STATE_BITS));
+		}
+	}
+
+	//-------- clearCellStates - forgets the states (only the cells that are not EMPTY have one)
+	protected void clearCellStates()
+	{
+		synchronized (states)
+		{
+			states.clear();
+		}
+	}
+
+	//-------- chunkAt - returns the chunk at [chunkRow][chunkCol], generating it if it is not in memory and evicting
+	//                   the least recently used chunk if too many are
+	private Chunk chunkAt(int chunkRow, int chunkCol)
+	{
+		Long key = chunkKey(chunkRow, chunkCol);
+		Chunk chunk;
+		synchronized (chunks)
+		{
+			chunk = chunks.get(key);
+			if (chunk == null)
+			{
+				chunk = generate(chunkRow, chunkCol);
+				numGenerated++;
+				chunks.put(key, chunk);
+				if (chunks.size() > maxChunks)
+				{
+					java.util.Iterator<Chunk> eldest = chunks.values().iterator();
+					eldest.next();
+					eldest.remove();
+					numEvicted++;
+				}
+			}
+		}
+
+		lastChunk = chunk;
+		return chunk;
+	}
+
+	//-------- generate - carves the chunk at [chunkRow][chunkCol] with the recursive backtracker, then opens the doors
+	//                    of the chunks below and to the right of it, if it is their parent
+	private Chunk generate(int chunkRow, int chunkCol)
+	{
+		byte[ ] walls = new byte[chunkSize * chunkSize];
+		java.util.Arrays.fill(walls, (byte)WALLS);
+		java.util.Random gen = new java.util.Random(chunkSeed(chunkRow, chunkCol));
+
+		boolean[ ] carved = new boolean[walls.length];
+		int[ ] stack = new int[walls.length];
+		int stackSize = 0;
+		int[ ] neighbors = new int[4];
+
+		int cell = gen.nextInt(walls.length);
+		carved[cell] = true;
+		stack[stackSize++] = cell;
+		while (stackSize > 0)
+		{
+			cell = stack[stackSize-1];
+			int row = cell / chunkSize;
+			int col = cell % chunkSize;
+
+			//the neighbors in the chunk that have not been carved yet
+			int numNeighbors = 0;
+			if (row > 0 && !carved[cell - chunkSize])
+				neighbors[numNeighbors++] = cell - chunkSize;
+			if (row < chunkSize-1 && !carved[cell + chunkSize])
+				neighbors[numNeighbors++] = cell + chunkSize;
+			if (col > 0 && !carved[cell - 1])
+				neighbors[numNeighbors++] = cell - 1;
+			if (col < chunkSize-1 && !carved[cell + 1])
+				neighbors[numNeighbors++] = cell + 1;
+
+			if (numNeighbors == 0)
+			{
+				stackSize--;
+				continue;
+			}
+
+			//knock down the wall to a random one (it belongs to whichever of the two cells is above or to the left)
+			int neighbor = neighbors[gen.nextInt(numNeighbors)];
+			if (neighbor == cell + chunkSize)
+				walls[cell] &= ~DOWN_WALL;
+			else if (neighbor == cell - chunkSize)
+				walls[neighbor] &= ~DOWN_WALL;
+			else if (neighbor == cell + 1)
+				walls[cell] &= ~RIGHT_WALL;
+			else
+				walls[neighbor] &= ~RIGHT_WALL;
+
+			carved[neighbor] = true;
+			stack[stackSize++] = neighbor;
+		}
+
+		//the doors of the children, whose walls are on this chunk's bottom row and right column
+		if (chunkRow + 1 < numChunkRows && parentOf(chunkKey(chunkRow + 1, chunkCol)) == chunkKey(chunkRow, chunkCol))
+			walls[(chunkSize-1) * chunkSize + doorOffset(chunkRow + 1, chunkCol)] &= ~DOWN_WALL;
+		if (chunkCol + 1 < numChunkCols && parentOf(chunkKey(chunkRow, chunkCol + 1)) == chunkKey(chunkRow, chunkCol))
+			walls[doorOffset(chunkRow, chunkCol + 1) * chunkSize + chunkSize-1] &= ~RIGHT_WALL;
+
+		return new Chunk(chunkRow, chunkCol, walls);
+	}
+
+	//-------- parentOf - returns the key of the chunk's parent: the first row of chunks hangs off the chunk to its
+	//                    left, the first column off the chunk above it, and every other chunk picks one of the two
+	//                    from its seed (the first chunk has no parent, and is returned itself)
+	private long parentOf(long key)
+	{
+		int chunkRow = (int)(key >>> 32);
+		int chunkCol = (int)key;
+		if (chunkRow == 0 && chunkCol == 0)
+			return key;
+		if (chunkRow == 0 || (chunkCol > 0 && (chunkSeed(chunkRow, chunkCol) & 1) == 0))
+			return chunkKey(chunkRow, chunkCol - 1);
+		return chunkKey(chunkRow - 1, chunkCol);
+	}
+
+	//-------- doorOffset - returns how far along the edge it shares with its parent the chunk's door is
+	private int doorOffset(int chunkRow, int chunkCol)
+	{
+		return (int)((chunkSeed(chunkRow, chunkCol) >>> 1) % chunkSize);
+	}
+
+	//-------- doorUp - returns the chunk's door to its parent: {row, col, direction} of the cell on the chunk's side
+	private int[ ] doorUp(long key)
+	{
+		int chunkRow = (int)(key >>> 32);
+		int chunkCol = (int)key;
+		int offset = doorOffset(chunkRow, chunkCol);
+		if (parentOf(key) == chunkKey(chunkRow - 1, chunkCol))
+			return new int[ ] {chunkRow*chunkSize, chunkCol*chunkSize + offset, Direction.UP.ordinal()};
+		return new int[ ] {chunkRow*chunkSize + offset, chunkCol*chunkSize, Direction.LEFT.ordinal()};
+	}
+
+	//-------- doorDown - returns the child's door, from its parent's side: {row, col, direction} of the parent's cell
+	private int[ ] doorDown(long childKey)
+	{
+		int[ ] door = doorUp(childKey);
+		if (door[2] == Direction.UP.ordinal())
+			return new int[ ] {door[0] - 1, door[1], Direction.DOWN.ordinal()};
+		return new int[ ] {door[0], door[1] - 1, Direction.RIGHT.ordinal()};
+	}
+
+	//-------- depthOf - returns how many doors the chunk is from the first chunk
+	private static long depthOf(long key)
+	{
+		return (key >>> 32) + (int)key;
+	}
+
+	//-------- chunkKey - returns the key of the chunk at [chunkRow][chunkCol]
+	private static long chunkKey(int chunkRow, int chunkCol)
+	{
+		return (long)chunkRow << 32 | chunkCol;
+	}
+
+	//-------- chunkSeed - mixes the maze's seed with the chunk's place (the SplitMix64 finalizer), so neighboring
+	//                     chunks get seeds that have nothing in common
+	private long chunkSeed(int chunkRow, int chunkCol)
+	{
+		long z = seed + 0x9E3779B97F4A7C15L * (chunkKey(chunkRow, chunkCol) + 1);
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	//-------- rowsFor - returns how many rows (and columns) the grid has: as many whole chunks as fit in an int
+	private static int rowsFor(int chunkSize)
+	{
+		if (chunkSize < 2)
+			throw new IllegalArgumentException("chunk size must be > 1");
+		return (Integer.MAX_VALUE / chunkSize) * chunkSize;
+	}
+
+	//-------- writeObject - refuses to serialize the grid: the chunk cache and the states were not made to be saved,
+	//                       and the same maze comes back from a new grid with the same seed
+	private void writeObject(java.io.ObjectOutputStream out) throws java.io.IOException
+	{
+		throw new java.io.NotSerializableException("ChunkedMazeGrid (make a new one from seed " + seed + " instead)");
+	}
+
+	//-------- readObject - refuses to read a grid back (none is ever written, but a stream could be made by hand)
+	private void readObject(java.io.ObjectInputStream in) throws java.io.IOException, ClassNotFoundException
+	{
+		throw new java.io.InvalidObjectException("a ChunkedMazeGrid cannot be deserialized");
+	}
+
+	//***********************************************************************
+
+	//a chunk that has been generated: its place, and the walls of its cells (never changed once it is generated)
+	private static class Chunk
+	{
+		private final int chunkRow;
+		private final int chunkCol;
+		private final byte[ ] walls;
+
+		private Chunk(int chunkRow, int chunkCol, byte[ ] walls)
+		{
+			this.chunkRow = chunkRow;
+			this.chunkCol = chunkCol;
+			this.walls = walls;
+		}
+	}
+
+	//***********************************************************************
+
+	//the working memory of solve: a breadth first search inside one chunk at a time, reused for every chunk
+	private class ChunkSearch
+	{
+		private final int[ ] cameFrom = new int[chunkSize * chunkSize];   //-1 until the cell is reached
+		private final int[ ] queue = new int[chunkSize * chunkSize];
+		private long numExpanded;
+		private long peakFrontier;
+
+		//findPath - adds the directions from [fromRow][fromCol] to [toRow][toCol] (in the same chunk) to the path
+		private void findPath(int fromRow, int fromCol, int toRow, int toCol, java.util.ArrayList<Direction> path)
+		{
+			int top = (fromRow / chunkSize) * chunkSize;
+			int left = (fromCol / chunkSize) * chunkSize;
+			int from = (fromRow - top) * chunkSize + (fromCol - left);
+			int to = (toRow - top) * chunkSize + (toCol - left);
+
+			java.util.Arrays.fill(cameFrom, -1);
+			cameFrom[from] = from;
+			int head = 0;
+			int tail = 0;
+			queue[tail++] = from;
+			while (head < tail && cameFrom[to] < 0)
+			{
+				int cell = queue[head++];
+				numExpanded++;
+				int row = cell / chunkSize;
+				int col = cell % chunkSize;
+				for (Direction direction : Direction.values())
+				{
+					int newRow = row + rowChange(direction);
+					int newCol = col + colChange(direction);
+					if (newRow < 0 || newRow >= chunkSize || newCol < 0 || newCol >= chunkSize)
+						continue;
+					int newCell = newRow * chunkSize + newCol;
+					if (cameFrom[newCell] < 0 && !hasWall(top + row, left + col, direction))
+					{
+						cameFrom[newCell] = cell;
+						queue[tail++] = newCell;
+					}
+				}
+				peakFrontier = Math.max(peakFrontier, tail - head);
+			}
+			if (cameFrom[to] < 0)
+				throw new IllegalStateException("chunk <" + top / chunkSize + ", " + left / chunkSize + "> is not connected");
+
+			//follow cameFrom back from the goal, then add the steps in the right order
+			int start = path.size();
+			for (int cell = to; cell != from; cell = cameFrom[cell])
+			{
+				int previous = cameFrom[cell];
+				if (previous == cell - chunkSize)
+					path.add(Direction.DOWN);
+				else if (previous == cell + chunkSize)
+					path.add(Direction.UP);
+				else if (previous == cell - 1)
+					path.add(Direction.RIGHT);
+				else
+					path.add(Direction.LEFT);
+			}
+			java.util.Collections.reverse(path.subList(start, path.size()));
+		}
+	}
+}
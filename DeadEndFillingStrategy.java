@@ -0,0 +1,306 @@
+/*
+In this program, we will solve a maze by dead-end filling: every dead end (a cell with only one opening) that is not
+the start or the goal cannot be on the path, so it is filled in, which may turn the cell it opens into into a new dead
+end, and so on down the corridor.  When nothing is left to fill, the cells that are still open are the path (in a
+perfect maze, exactly the path; with loops, the path is the shortest way through what is left).
+Unlike a search, the filling does not start from one cell: every dead end can be filled at the same time.  The maze is
+cut into stripes of whole rows, and each stripe fills its own dead ends on a pool thread.  A stripe only ever changes
+its own cells - when a corridor it is filling crosses into the next stripe, the opening it closed there is written
+down instead, and once every stripe has finished, those openings are closed and the cells they turned into dead ends
+start the next round.  The rounds go on until a round closes nothing across a border.
+*/
+
+import java.util.*;
+import java.util.concurrent.*;
+
+public class DeadEndFillingStrategy implements SolverStrategy
+{
+	//Data
+	private static final int MIN_STRIPE_ROWS = 16;
+	private static final int STRIPES_PER_THREAD = 4;   //so a stripe with more dead ends than the others does not hold up the round
+
+	//what is stored for each cell once the filling is done: FILLED, or (while tracing the path) how it was entered
+	private static final byte FILLED = 6;
+
+	private ExecutorService pool;
+	private int stripeRows;   //0 to pick it from the size of the maze and the pool
+
+	//Constructor
+	//which fills the stripes on the common pool
+	public DeadEndFillingStrategy()
+	{
+		this(ForkJoinPool.commonPool(), 0);
+	}
+
+	//Constructor
+	//which will receive the pool to fill the stripes on, and how many rows go in a stripe (0 to choose it from the size
+	//of the maze and the pool's parallelism)
+	public DeadEndFillingStrategy(ExecutorService pool, int stripeRows)
+	{
+		if (pool == null)
+			throw new IllegalArgumentException("trying to create a DeadEndFillingStrategy with a null pool");
+		if (stripeRows < 0)
+			throw new IllegalArgumentException("stripe rows must be >= 0");
+
+		this.pool = pool;
+		this.stripeRows = stripeRows;
+	}
+
+	//Methods
+	//getName - returns "fill"
+	public String getName()
+	{
+		return "fill";
+	}
+
+	//solve - fills every dead end in parallel, then follows the cells that are left from the start to the goal
+	public SolveResult solve(MazeGrid grid, int startRow, int startCol, int goalRow, int goalCol)
+	{
+		long startTime = System.nanoTime();
+		int numRows = grid.getNumRows();
+		int numCols = grid.getNumCols();
+		int startIndex = startRow*numCols + startCol;
+		int goalIndex = goalRow*numCols + goalCol;
+
+		int rowsPerStripe = stripeRows;
+		if (rowsPerStripe == 0)
+		{
+			int parallelism = (pool instanceof ForkJoinPool) ? ((ForkJoinPool)pool).getParallelism() :
+					Runtime.getRuntime().availableProcessors();
+			rowsPerStripe = Math.max(MIN_STRIPE_ROWS, numRows / (parallelism * STRIPES_PER_THREAD));
+		}
+		int numStripes = (numRows + rowsPerStripe - 1) / rowsPerStripe;
+
+		byte[] openings = new byte[numRows * numCols];   //how many open, unfilled neighbors each cell has
+		byte[] cells = new byte[openings.length];        //FILLED, or 0
+		Stripe[] stripes = new Stripe[numStripes];
+		for (int i=0; i<numStripes; i++)
+			stripes[i] = new Stripe(grid, openings, cells, i * rowsPerStripe, Math.min(numRows, (i+1) * rowsPerStripe),
+					startIndex, goalIndex);
+
+		//the first round counts the openings of every cell and fills every dead end; the later ones start from the
+		//cells that the openings closed across the borders turned into dead ends
+		for (Stripe stripe : stripes)
+			stripe.firstRound = true;
+		long cellsFilled = 0;
+		long peakSeeds = 0;
+		boolean more = true;
+		while (more)
+		{
+			runRound(stripes);
+
+			//close the openings that were closed across the borders (no stripe is running, so any cell can be changed)
+			for (Stripe stripe : stripes)
+			{
+				stripe.firstRound = false;
+				cellsFilled += stripe.numFilled;
+				stripe.numFilled = 0;
+			}
+			more = false;
+			long numSeeds = 0;
+			for (Stripe stripe : stripes)
+			{
+				for (int i=0; i<stripe.numClosed; i++)
+				{
+					int index = stripe.closed[i];
+					openings[index]--;
+					if (openings[index] == 1 && cells[index] != FILLED && index != startIndex && index != goalIndex)
+					{
+						stripes[index / numCols / rowsPerStripe].addSeed(index);
+						numSeeds++;
+						more = true;
+					}
+				}
+				stripe.numClosed = 0;
+			}
+			peakSeeds = Math.max(peakSeeds, numSeeds);
+		}
+
+		//the cells that are left lead from the start to the goal; a breadth first search through them finds the way
+		//(in a perfect maze, they are the path, so nothing else is looked at)
+		int[] queue = new int[1024];
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = startIndex;
+		cells[startIndex] = SolverStrategies.START_MARK;
+		long cellsTraced = 0;
+		while (head < tail && cells[goalIndex] == 0)
+		{
+			int index = queue[head++];
+			int row = index / numCols;
+			int col = index % numCols;
+			cellsTraced++;
+
+			for (Direction direction : SolverStrategies.DIRECTIONS)
+			{
+				if (grid.hasWall(row, col, direction))
+					continue;
+				int neighbor = index + MazeGrid.rowChange(direction)*numCols + MazeGrid.colChange(direction);
+				if (cells[neighbor] == 0)
+				{
+					cells[neighbor] = (byte)(direction.ordinal() + 1);
+					if (tail == queue.length)
+					{
+						System.arraycopy(queue, head, queue, 0, tail - head);
+						tail -= head;
+						head = 0;
+						if (tail == queue.length)
+							queue = Arrays.copyOf(queue, 2*queue.length);
+					}
+					queue[tail++] = neighbor;
+				}
+			}
+		}
+
+		if (cells[goalIndex] == 0)
+			throw new IllegalStateException("the goal cannot be reached from <" + startRow + ", " + startCol + ">");
+
+		ArrayList<Direction> path = SolverStrategies.tracePath(cells, numCols, startIndex, goalIndex);
+		return new SolveResult(path, path.size(), System.nanoTime() - startTime, cellsFilled + cellsTraced, peakSeeds);
+	}
+
+	//runRound - fills the dead ends of every stripe that has any, in the pool, and waits for all of them to finish
+	private void runRound(Stripe[] stripes)
+	{
+		ArrayList<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		for (Stripe stripe : stripes)
+			if (stripe.firstRound || stripe.numSeeds > 0)
+				tasks.add(stripe);
+
+		try
+		{
+			for (Future<Void> task : pool.invokeAll(tasks))
+				task.get();
+		}
+		catch (InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted while filling the dead ends", ex);
+		}
+		catch (ExecutionException ex)
+		{
+			throw new IllegalStateException("could not fill the dead ends", ex.getCause());
+		}
+	}
+
+	//***********************************************************************
+
+	//Stripe is the rows [firstRow, lastRow) of the maze, and the dead ends in them that are waiting to be filled
+	private static class Stripe implements Callable<Void>
+	{
+		private final MazeGrid grid;
+		private final byte[] openings;
+		private final byte[] cells;
+		private final int numCols;
+		private final int firstIndex;   //the first cell of the stripe, and one past its last
+		private final int endIndex;
+		private final int startIndex;
+		private final int goalIndex;
+
+		private boolean firstRound;
+		private int[] seeds = new int[16];
+		private int numSeeds;
+		private int[] closed = new int[16];   //the cells in other stripes that lost an opening to a filled cell
+		private int numClosed;
+		private long numFilled;
+
+		//constructor - receives the maze, the arrays the stripes share, and which rows are the stripe's
+		private Stripe(MazeGrid grid, byte[] openings, byte[] cells, int firstRow, int lastRow, int startIndex, int goalIndex)
+		{
+			this.grid = grid;
+			this.openings = openings;
+			this.cells = cells;
+			this.numCols = grid.getNumCols();
+			this.firstIndex = firstRow * numCols;
+			this.endIndex = lastRow * numCols;
+			this.startIndex = startIndex;
+			this.goalIndex = goalIndex;
+		}
+
+		//call - in the first round, counts the openings of the stripe's cells and fills every dead end; after that,
+		//       fills the dead ends that the last round's border closings made
+		public Void call()
+		{
+			if (firstRound)
+			{
+				for (int index=firstIndex; index<endIndex; index++)
+				{
+					int row = index / numCols;
+					int col = index % numCols;
+					int count = 0;
+					for (Direction direction : SolverStrategies.DIRECTIONS)
+						if (!grid.hasWall(row, col, direction))
+							count++;
+					openings[index] = (byte)count;
+				}
+
+				//(a neighbor's count is only needed once it has been filled, and by then it has been counted)
+				for (int index=firstIndex; index<endIndex; index++)
+					if (openings[index] == 1 && index != startIndex && index != goalIndex && cells[index] != FILLED)
+						fillFrom(index);
+			}
+			else
+			{
+				for (int i=0; i<numSeeds; i++)
+					if (cells[seeds[i]] != FILLED)
+						fillFrom(seeds[i]);
+			}
+			numSeeds = 0;
+			return null;
+		}
+
+		//addSeed - adds a dead end for the next round to fill
+		private void addSeed(int index)
+		{
+			if (numSeeds == seeds.length)
+				seeds = Arrays.copyOf(seeds, 2*seeds.length);
+			seeds[numSeeds++] = index;
+		}
+
+		//fillFrom - fills the dead end, then the cell it opened into if that has become a dead end, and so on, until
+		//           the corridor reaches a junction, the start or the goal, or another stripe.  A dead end's one
+		//           unfilled neighbor is never being filled by another stripe at the same time (the two would be a
+		//           piece of the maze with nothing else joined to it), so it is safe to look at.
+		private void fillFrom(int index)
+		{
+			while (true)
+			{
+				cells[index] = FILLED;
+				openings[index] = 0;
+				numFilled++;
+
+				//find the one neighbor that is still open
+				int row = index / numCols;
+				int col = index % numCols;
+				int next = -1;
+				for (Direction direction : SolverStrategies.DIRECTIONS)
+				{
+					if (grid.hasWall(row, col, direction))
+						continue;
+					int neighbor = index + MazeGrid.rowChange(direction)*numCols + MazeGrid.colChange(direction);
+					if (cells[neighbor] != FILLED)
+					{
+						next = neighbor;
+						break;
+					}
+				}
+				if (next < 0)
+					return;
+
+				//across the border, the other stripe's cell is closed once the round is over
+				if (next < firstIndex || next >= endIndex)
+				{
+					if (numClosed == closed.length)
+						closed = Arrays.copyOf(closed, 2*closed.length);
+					closed[numClosed++] = next;
+					return;
+				}
+
+				openings[next]--;
+				if (openings[next] != 1 || next == startIndex || next == goalIndex)
+					return;
+				index = next;
+			}
+		}
+	}
+}//end of class
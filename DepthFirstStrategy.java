@@ -0,0 +1,74 @@
+/*
+In this program, we will solve a maze depth first, exactly the way MazeSolver does: from every cell we go UP, DOWN,
+LEFT or RIGHT (the first one that is open and has not been visited), and back the way we came at a dead end.
+*/
+
+import java.util.*;
+
+public class DepthFirstStrategy implements SolverStrategy
+{
+	//Methods
+	//getName - returns "dfs"
+	public String getName()
+	{
+		return "dfs";
+	}
+
+	//solve - walks depth first from the start until the goal is reached
+	public SolveResult solve(MazeGrid grid, int startRow, int startCol, int goalRow, int goalCol)
+	{
+		long startTime = System.nanoTime();
+		int numCols = grid.getNumCols();
+		boolean[] visited = new boolean[grid.getNumRows() * numCols];
+
+		//the stack holds the Direction (ordinal) of every forward move that has not been backtracked
+		byte[] stack = new byte[1024];
+		int stackSize = 0;
+
+		int row = startRow;
+		int col = startCol;
+		visited[row*numCols + col] = true;
+		int numMoves = 0;
+		long cellsExpanded = 1;
+		long peakStackSize = 0;
+
+		while (row != goalRow || col != goalCol)
+		{
+			//find the first open, unvisited neighbor (in the same order MazeSolver tries them)
+			Direction next = null;
+			for (Direction direction : SolverStrategies.DIRECTIONS)
+				if (!grid.hasWall(row, col, direction) &&
+						!visited[(row + MazeGrid.rowChange(direction))*numCols + col + MazeGrid.colChange(direction)])
+				{
+					next = direction;
+					break;
+				}
+
+			if (next != null)
+			{
+				//move forward and remember how we got here
+				if (stackSize == stack.length)
+					stack = Arrays.copyOf(stack, 2*stack.length);
+				stack[stackSize++] = (byte)next.ordinal();
+				row += MazeGrid.rowChange(next);
+				col += MazeGrid.colChange(next);
+				visited[row*numCols + col] = true;
+				cellsExpanded++;
+				peakStackSize = Math.max(peakStackSize, stackSize);
+			}
+			else
+			{
+				//dead end: go back the way we came
+				if (stackSize == 0)
+					throw new IllegalStateException("the goal cannot be reached from <" + startRow + ", " + startCol + ">");
+				Direction back = SolverStrategies.opposite(SolverStrategies.DIRECTIONS[stack[--stackSize]]);
+				row += MazeGrid.rowChange(back);
+				col += MazeGrid.colChange(back);
+			}
+			numMoves++;
+		}
+
+		return new SolveResult(SolverStrategies.pathFromStack(stack, stackSize), numMoves, System.nanoTime() - startTime,
+				cellsExpanded, peakStackSize);
+	}
+}//end of class
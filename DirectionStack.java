@@ -0,0 +1,98 @@
+/*
+In this program, we will create a stack of Directions that packs every Direction into 2 bits (its ordinal), 32 to a
+long, instead of keeping a reference to an object for every entry the way a Stack<Direction> does.  A solver's stack
+can hold millions of moves on a long maze, so this takes a sixteenth of the memory of the references alone, and a push
+or a pop only ever touches the last long.
+*/
+
+import java.util.*;
+import java.io.*;
+
+public class DirectionStack implements Serializable   //we have to implement Serializable to be able to save our game
+{
+	//Data
+	//pinned to what Java computed for the first DirectionStack, so changing this class does not make saved games unreadable
+	private static final long serialVersionUID = -5060739345782596718L;
+
+	private static final int ENTRIES_PER_WORD = 32;
+	private static final int WORD_SHIFT = 5;   //index >>> WORD_SHIFT is the long an entry is in
+	private static final Direction[] DIRECTIONS = Direction.values();
+	public static final int MAX_SIZE = Integer.MAX_VALUE - 8;   //the most that toArrayList can fit in an ArrayList
+
+	private long[] words;
+	private int size;
+
+	//Constructors
+	public DirectionStack()
+	{
+		words = new long[4];
+	}
+
+	//Methods
+	//isEmpty method
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+
+	//size method
+	public int size()
+	{
+		return size;
+	}
+
+	//peek method
+	public Direction peek()
+	{
+		//throw an exception if the stack is empty
+		if (size == 0)
+			throw new IllegalArgumentException("the stack is empty");
+
+		return get(size-1);
+	}
+
+	//pop method
+	public Direction pop()
+	{
+		//throw an exception if the stack is empty
+		if (size == 0)
+			throw new IllegalArgumentException("the stack is empty");
+
+		size--;
+		int shift = 2 * (size & (ENTRIES_PER_WORD-1));
+		long word = words[size >>> WORD_SHIFT];
+		words[size >>> WORD_SHIFT] = word & ~(3L << shift);   //so the unused bits are always 0
+		return DIRECTIONS[(int)(word >>> shift) & 3];
+	}
+
+	//push method
+	public void push(Direction direction)
+	{
+		if (size == MAX_SIZE)
+			throw new IllegalStateException("the stack is full (" + MAX_SIZE + " moves)");
+		if ((size >>> WORD_SHIFT) == words.length)
+			words = Arrays.copyOf(words, 2*words.length);
+
+		words[size >>> WORD_SHIFT] |= (long)direction.ordinal() << (2 * (size & (ENTRIES_PER_WORD-1)));
+		size++;
+	}
+
+	//get method - returns the Direction that is index entries from the bottom of the stack
+	public Direction get(int index)
+	{
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("index " + index + " is not in a stack of " + size);
+
+		return DIRECTIONS[(int)(words[index >>> WORD_SHIFT] >>> (2 * (index & (ENTRIES_PER_WORD-1)))) & 3];
+	}
+
+	//toArrayList method - returns the contents, from the bottom of the stack to the top
+	public ArrayList<Direction> toArrayList()
+	{
+		ArrayList<Direction> list = new ArrayList<Direction>(size);
+		for (int i=0; i<size; i++)
+			list.add(get(i));
+		return list;
+	}
+
+} //end of class
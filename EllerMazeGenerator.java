@@ -0,0 +1,164 @@
+/* This program generates a perfect maze one row at a time with Eller's algorithm, so only
+    O(number of columns) state is kept no matter how many rows the maze has.  Every cell of
+    the current row belongs to a set (the cells it is already connected to, through rows that
+    have already been sent out):
+        1. cells that were not connected to the row above get a set of their own
+        2. neighbors in different sets are joined at random (knocking down the wall between them)
+        3. every set gets at least one opening down to the next row, the rest are random
+    In the last row every pair of neighbors in different sets is joined, which ties the whole
+    maze together without making a loop.  The rows are sent to a MazeRowSink in the same
+    encoding the MazeGrid uses, so they can be written with RawMazeFormat and loaded back.
+    Run it as "EllerMazeGenerator rows cols fileName [seed]" to write a maze straight to a file.
+ */
+
+public class EllerMazeGenerator
+{
+	//-------data
+	private int numRows;
+	private int numCols;
+	private java.util.Random gen;
+
+	//the set that each cell of the current row is in, and how many cells of the current row are in each set
+	//(there are never more sets than columns, so the set ids are always < numCols and get reused)
+	private int[ ] setOf;
+	private int[ ] setSize;
+
+	//union-find parents used while the sets of a row are being joined
+	private int[ ] parent;
+
+	//-------constructors
+	public EllerMazeGenerator(int numRows, int numCols, long seed)
+	{
+		if (numRows < 1 || numCols < 1)
+			throw new IllegalArgumentException("number of rows and columns must be > 0");
+
+		this.numRows = numRows;
+		this.numCols = numCols;
+		gen = new java.util.Random(seed);
+	}
+
+	// **************** methods *******************************************
+
+	//-------- main - writes a maze to a file in the RawMazeFormat
+	public static void main(String[] args) throws java.io.IOException
+	{
+		if (args.length < 3)
+			throw new IllegalArgumentException("usage: EllerMazeGenerator rows cols fileName [seed]");
+
+		int numRows = Integer.parseInt(args[0]);
+		int numCols = Integer.parseInt(args[1]);
+		long seed = (args.length > 3) ? Long.parseLong(args[3]) : new java.util.Random().nextLong();
+
+		java.nio.channels.FileChannel channel = java.nio.channels.FileChannel.open(java.nio.file.Paths.get(args[2]),
+				java.nio.file.StandardOpenOption.CREATE, java.nio.file.StandardOpenOption.WRITE,
+				java.nio.file.StandardOpenOption.TRUNCATE_EXISTING);
+		try
+		{
+			RawMazeFormat.RowWriter writer = RawMazeFormat.newWriter(channel, numRows, numCols);
+			new EllerMazeGenerator(numRows, numCols, seed).generate(writer);
+			writer.flush();
+		}
+		finally
+		{
+			channel.close();
+		}
+	}
+
+	//-------- generate - generates the whole maze, sending each row to the sink as soon as it is finished
+	public void generate(MazeRowSink sink) throws java.io.IOException
+	{
+		byte[] rowCells = new byte[numCols];
+		setOf = new int[numCols];
+		setSize = new int[numCols];
+		parent = new int[numCols];
+		boolean[] idUsed = new boolean[numCols];
+		boolean[] setHasDown = new boolean[numCols];
+		int[] remaining = new int[numCols];
+
+		//no cell of the first row is connected to anything yet
+		java.util.Arrays.fill(setOf, -1);
+
+		for (int row=0; row<numRows; row++)
+		{
+			boolean lastRow = (row == numRows-1);
+
+			//every cell starts with both of its walls
+			java.util.Arrays.fill(rowCells, (byte)(MazeGrid.RIGHT_WALL | MazeGrid.DOWN_WALL));
+
+			//1. give the cells that are not connected to the row above a set of their own (reusing free ids)
+			java.util.Arrays.fill(idUsed, false);
+			java.util.Arrays.fill(setSize, 0);
+			for (int col=0; col<numCols; col++)
+				if (setOf[col] >= 0)
+					idUsed[setOf[col]] = true;
+			int nextId = 0;
+			for (int col=0; col<numCols; col++)
+			{
+				if (setOf[col] < 0)
+				{
+					while (idUsed[nextId])
+						nextId++;
+					idUsed[nextId] = true;
+					setOf[col] = nextId;
+				}
+				setSize[setOf[col]]++;
+			}
+
+			//2. join neighbors that are in different sets - always in the last row, at random otherwise
+			for (int id=0; id<numCols; id++)
+				parent[id] = id;
+			for (int col=0; col<numCols-1; col++)
+			{
+				int leftSet = find(setOf[col]);
+				int rightSet = find(setOf[col+1]);
+				if (leftSet != rightSet && (lastRow || gen.nextBoolean()))
+				{
+					rowCells[col] &= ~MazeGrid.RIGHT_WALL;
+					parent[rightSet] = leftSet;
+					setSize[leftSet] += setSize[rightSet];
+				}
+			}
+			for (int col=0; col<numCols; col++)
+				setOf[col] = find(setOf[col]);
+
+			//3. open at least one cell of every set down into the next row; the others stay closed and
+			//   will start a new set in the next row
+			if (!lastRow)
+			{
+				java.util.Arrays.fill(setHasDown, false);
+				for (int col=0; col<numCols; col++)
+					remaining[setOf[col]] = setSize[setOf[col]];
+
+				for (int col=0; col<numCols; col++)
+				{
+					int set = setOf[col];
+					remaining[set]--;
+
+					//the last cell of a set that has no opening yet must get one
+					if (gen.nextBoolean() || (remaining[set] == 0 && !setHasDown[set]))
+					{
+						rowCells[col] &= ~MazeGrid.DOWN_WALL;
+						setHasDown[set] = true;
+					}
+				}
+
+				for (int col=0; col<numCols; col++)
+					if ((rowCells[col] & MazeGrid.DOWN_WALL) != 0)
+						setOf[col] = -1;
+			}
+
+			sink.acceptRow(row, rowCells);
+		}
+	}
+
+	//-------- find - returns the set that the given set has been joined into
+	private int find(int set)
+	{
+		while (parent[set] != set)
+		{
+			parent[set] = parent[parent[set]];   //path halving
+			set = parent[set];
+		}
+		return set;
+	}
+}
@@ -0,0 +1,267 @@
+/* This program implements a MazeGrid whose cells live in a file that is mapped into memory
+    instead of in an array on the heap, so a maze can be much bigger than the heap: the
+    operating system pages the parts of it that are being built or walked in and out.
+        - the cells are laid out in 64x64 tiles of 4096 bytes (a page each), so cells that are
+          close together in the maze - above and below as well as left and right - are close
+          together in the file
+        - the file is mapped in segments of 1 GB, since a single mapping cannot reach past 2 GB
+        - the walls are stored inverted (a 1 bit means the wall is gone), so a brand new file,
+          which the file system fills with zeros, already has every wall intact
+        - the first page is a header that also records whether the grid has been frozen, so an
+          existing file is opened by mapping it again - there is nothing to parse
+        - only the walls are kept from one session to the next: the header does not record where
+          a Maze on the grid was, so a Maze made around an opened grid clears the path the last
+          one left and starts again in the upper left corner (save a game that is in progress
+          with MazeSaveFormat instead)
+        - serializing the grid (with the Maze around it) saves the name of the file and the size
+          of the grid, not the cells: the grid that is read back maps the same file again, so
+          the file has to still be there, and it is refused if it is not a grid of that size
+        int   MAGIC ("MZMP")
+        int   VERSION
+        int   number of rows
+        int   number of columns
+        int   1 if the grid is frozen (the maze has been built), 0 if not
+    Not everything that works on a Maze works on one with more than Integer.MAX_VALUE cells:
+        - building: EllerMazeGenerator (this grid is a MazeRowSink) keeps O(columns) state and
+          works at any size, and so does MazeImporter; Maze.buildMazeParallel keeps a little
+          state for every tile (a tile count that fits in an int); Maze.buildMaze numbers the
+          cells with ints and throws an IllegalArgumentException past Integer.MAX_VALUE cells
+        - solving: only MazeSolver.solveFully, whose visited cells are a bitset (1 bit per cell,
+          on the heap) and whose stack is 2 bits per move.  Its stack (the path it is on) can be
+          at most DirectionStack.MAX_SIZE moves deep, since the path it returns is an ArrayList,
+          and it throws an IllegalStateException if it has to go deeper - however many cells
+          the maze has, the path through it has to be shorter than that.  The SolverStrategies,
+          MazeCursor, MazeTreeIndex, MazeBitboard and MazeExporter's solution all index the cells
+          with ints
+ */
+
+public class MappedMazeGrid extends MazeGrid implements MazeRowSink
+{
+	//-------constants
+	public static final int MAGIC = 0x4D5A4D50;   //"MZMP"
+	public static final int VERSION = 1;
+	public static final int TILE_SHIFT = 6;
+
+	private static final int TILE_MASK = (1 << TILE_SHIFT) - 1;
+	private static final int PAGE_BYTES = 1 << (2*TILE_SHIFT);
+	private static final int SEGMENT_SHIFT = 30;
+	private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+	private static final int HEADER_FIELDS_BYTES = 20;
+	private static final int FROZEN_OFFSET = 16;
+	private static final int STORED_INVERTED = RIGHT_WALL | DOWN_WALL;
+	private static final long STATE_WORD_BITS = 0x0C0C0C0C0C0C0C0CL;   //the state bits of eight cells
+
+	//pinned, so a grid that was serialized can still be read back after this class changes (only its file name is saved)
+	private static final long serialVersionUID = 2544215524297212726L;
+
+	//-------data
+	private String fileName;
+	private int numTileCols;
+	private transient java.nio.MappedByteBuffer header;
+	private transient java.nio.MappedByteBuffer[ ] segments;
+
+	//-------constructors
+	private MappedMazeGrid(String fileName, int numRows, int numCols) throws java.io.IOException
+	{
+		super(numRows, numCols, null);
+		this.fileName = fileName;
+		numTileCols = (numCols + TILE_MASK) >>> TILE_SHIFT;
+
+		mapFile();
+		if (header.getInt(FROZEN_OFFSET) != 0)
+			super.freeze();
+	}
+
+	// **************** methods *******************************************
+
+	//-------- main - generates a maze into a new mapped file ("fileName rows cols [seed]"), or opens an existing one
+	//                ("fileName") and reports how long that took
+	public static void main(String[] args) throws java.io.IOException
+	{
+		if (args.length != 1 && args.length < 3)
+			throw new IllegalArgumentException("usage: MappedMazeGrid fileName [rows cols [seed]]");
+
+		long startTime = System.nanoTime();
+		MappedMazeGrid grid;
+		if (args.length == 1)
+			grid = open(args[0]);
+		else
+		{
+			int numRows = Integer.parseInt(args[1]);
+			int numCols = Integer.parseInt(args[2]);
+			long seed = (args.length > 3) ? Long.parseLong(args[3]) : new java.util.Random().nextLong();
+
+			grid = create(args[0], numRows, numCols);
+			new EllerMazeGenerator(numRows, numCols, seed).generate(grid);
+			grid.freeze();
+		}
+
+		System.out.println(grid.getNumRows() + " x " + grid.getNumCols() + " maze in " + args[0] +
+				(grid.isFrozen() ? "" : " (not built yet)") + ", ready in " + (System.nanoTime() - startTime) / 1000000 + " ms");
+	}
+
+	//-------- create - creates the file (replacing any file that is already there) for a grid of the given size,
+	//                  with every wall intact, and maps it
+	public static MappedMazeGrid create(String fileName, int numRows, int numCols) throws java.io.IOException
+	{
+		if (numRows < 1 || numCols < 1)
+			throw new IllegalArgumentException("number of rows and columns must be > 0");
+
+		java.nio.channels.FileChannel channel = java.nio.channels.FileChannel.open(java.nio.file.Paths.get(fileName),
+				java.nio.file.StandardOpenOption.CREATE, java.nio.file.StandardOpenOption.WRITE,
+				java.nio.file.StandardOpenOption.TRUNCATE_EXISTING);
+		try
+		{
+			java.nio.ByteBuffer fields = java.nio.ByteBuffer.allocate(HEADER_FIELDS_BYTES);
+			fields.putInt(MAGIC).putInt(VERSION).putInt(numRows).putInt(numCols).putInt(0);
+			fields.flip();
+			while (fields.hasRemaining())
+				channel.write(fields, fields.position());
+
+			//writing the very last byte makes the file its full length; everything in between reads as zeros
+			java.nio.ByteBuffer last = java.nio.ByteBuffer.allocate(1);
+			channel.write(last, fileBytes(numRows, numCols) - 1);
+		}
+		finally
+		{
+			channel.close();
+		}
+
+		return new MappedMazeGrid(fileName, numRows, numCols);
+	}
+
+	//-------- open - maps a file that was made by create (the walls are just as they were left, and so are the states,
+	//              until a Maze is made around the grid and clears them)
+	public static MappedMazeGrid open(String fileName) throws java.io.IOException
+	{
+		java.nio.channels.FileChannel channel = java.nio.channels.FileChannel.open(java.nio.file.Paths.get(fileName),
+				java.nio.file.StandardOpenOption.READ);
+		java.nio.ByteBuffer fields = java.nio.ByteBuffer.allocate(HEADER_FIELDS_BYTES);
+		try
+		{
+			while (fields.hasRemaining())
+				if (channel.read(fields, fields.position()) < 0)
+					throw new java.io.EOFException(fileName + " is too short to be a mapped maze");
+		}
+		finally
+		{
+			channel.close();
+		}
+
+		return new MappedMazeGrid(fileName, fields.getInt(8), fields.getInt(12));
+	}
+
+	//-------- getFileName - returns the name of the file the cells are in
+	public String getFileName()
+	{
+		return fileName;
+	}
+
+	//-------- freeze - makes the walls permanent, and records that in the file
+	public void freeze()
+	{
+		super.freeze();
+		header.putInt(FROZEN_OFFSET, 1);
+		header.force();
+	}
+
+	//-------- force - writes every change to the cells out to the file
+	public void force()
+	{
+		for (java.nio.MappedByteBuffer segment : segments)
+			segment.force();
+		header.force();
+	}
+
+	//-------- acceptRow - sets the walls of the row from a generator (so EllerMazeGenerator can stream into the file)
+	public void acceptRow(int row, byte[] rowCells)
+	{
+		setRowWalls(row, rowCells);
+	}
+
+	//-------- getCell - returns the byte that holds the walls and the state of the cell at [aRow][aCol]
+	protected int getCell(int aRow, int aCol)
+	{
+		long offset = offsetOf(aRow, aCol);
+		return segments[(int)(offset >>> SEGMENT_SHIFT)].get((int)(offset & SEGMENT_MASK)) ^ STORED_INVERTED;
+	}
+
+	//-------- setCell - stores the byte that holds the walls and the state of the cell at [aRow][aCol]
+	protected void setCell(int aRow, int aCol, int cell)
+	{
+		long offset = offsetOf(aRow, aCol);
+		segments[(int)(offset >>> SEGMENT_SHIFT)].put((int)(offset & SEGMENT_MASK), (byte)(cell ^ STORED_INVERTED));
+	}
+
+	//-------- clearCellStates - clears the state bits eight cells at a time, straight through the file, and only writes
+	//                           the words that had a state set, so the pages without any are not written back
+	protected void clearCellStates()
+	{
+		for (java.nio.MappedByteBuffer segment : segments)
+			for (int i=0; i<segment.capacity(); i+=8)
+			{
+				long word = segment.getLong(i);
+				if ((word & STATE_WORD_BITS) != 0)
+					segment.putLong(i, word & ~STATE_WORD_BITS);
+			}
+	}
+
+	//-------- offsetOf - returns where the cell at [aRow][aCol] is, counting from the end of the header page:
+	//                    its tile's page, and then its place (row major) within the tile
+	private long offsetOf(int aRow, int aCol)
+	{
+		long tile = (long)(aRow >>> TILE_SHIFT) * numTileCols + (aCol >>> TILE_SHIFT);
+		return (tile << (2*TILE_SHIFT)) | ((aRow & TILE_MASK) << TILE_SHIFT) | (aCol & TILE_MASK);
+	}
+
+	//-------- fileBytes - returns how long the file is for a grid of the given size (the header page plus a page
+	//                     for every tile, including the partly used tiles along the right and bottom edges)
+	private static long fileBytes(int numRows, int numCols)
+	{
+		long numTiles = (long)((numRows + TILE_MASK) >>> TILE_SHIFT) * ((numCols + TILE_MASK) >>> TILE_SHIFT);
+		return PAGE_BYTES + numTiles * PAGE_BYTES;
+	}
+
+	//-------- mapFile - checks the header of the file and maps the header page and every segment of cells
+	private void mapFile() throws java.io.IOException
+	{
+		java.nio.channels.FileChannel channel = java.nio.channels.FileChannel.open(java.nio.file.Paths.get(fileName),
+				java.nio.file.StandardOpenOption.READ, java.nio.file.StandardOpenOption.WRITE);
+		try
+		{
+			long dataBytes = fileBytes(getNumRows(), getNumCols()) - PAGE_BYTES;
+			if (channel.size() < PAGE_BYTES + dataBytes)
+				throw new java.io.IOException(fileName + " is too short for a " + getNumRows() + " x " + getNumCols() + " maze");
+
+			header = channel.map(java.nio.channels.FileChannel.MapMode.READ_WRITE, 0, PAGE_BYTES);
+			if (header.getInt(0) != MAGIC)
+				throw new java.io.IOException(fileName + " is not a mapped maze file");
+			int version = header.getInt(4);
+			if (version != VERSION)
+				throw new java.io.IOException("unsupported mapped maze version " + version);
+			if (header.getInt(8) != getNumRows() || header.getInt(12) != getNumCols())
+				throw new java.io.IOException(fileName + " is a " + header.getInt(8) + " x " + header.getInt(12) + " maze, not " +
+						getNumRows() + " x " + getNumCols());
+
+			//the mappings stay valid after the channel is closed
+			segments = new java.nio.MappedByteBuffer[(int)((dataBytes + SEGMENT_MASK) >>> SEGMENT_SHIFT)];
+			for (int i=0; i<segments.length; i++)
+			{
+				long start = (long)i << SEGMENT_SHIFT;
+				segments[i] = channel.map(java.nio.channels.FileChannel.MapMode.READ_WRITE, PAGE_BYTES + start,
+						Math.min(SEGMENT_MASK + 1, dataBytes - start));
+			}
+		}
+		finally
+		{
+			channel.close();
+		}
+	}
+
+	//-------- readObject - a deserialized grid maps its file again (only the file name was saved, not the cells)
+	private void readObject(java.io.ObjectInputStream in) throws java.io.IOException, ClassNotFoundException
+	{
+		in.defaultReadObject();
+		mapFile();
+	}
+}
@@ -1,22 +1,38 @@
 /* This program implements a Maze.  Internally, walls and data are stored
-    in a single 2D array; the entries whose row/col are even-odd or odd-even
-    are the walls and the entries whose row/col are odd-odd are the cells
-    themselves.  Therefore, a 4x5 maze will be stored in a 9x11 array so the
-    walls can be stored as well as the cells.  In the code, the variable names
-    would be made clear so it can work with (realRow vs arrayRow).
+    in a MazeGrid, which packs each cell (its right and down walls plus its
+    state) into a single byte.  The old layout - a single 2D array whose
+    entries with even-odd or odd-even row/col are the walls and whose odd-odd
+    entries are the cells, so a 4x5 maze is a 9x11 array - is still available
+    from getMazeArray(), but it is only built when someone asks for it.
+    In the code, rows and cols are always the real ones unless the variable
+    name says otherwise (realRow vs arrayRow).
  */
 
-public class Maze implements java.io.Serializable
+public class Maze implements MazeWalker, java.io.Serializable
 {
+	//-------constants
+	//pinned to what Java computed for the original Maze, so the games it saved can still be read
+	private static final long serialVersionUID = 6957558167261835187L;
+
 	//-------data
-	private int[ ][ ] mazeArray;
-	private int currentArrayRow;
-	private int currentArrayCol;
-	private int goalArrayRow;
-	private int goalArrayCol;
-	private int buildAnimationDelay;
+	private MazeGrid grid;
+	private int currentRow;
+	private int currentCol;
+	private int goalRow;
+	private int goalCol;
 	private int solveAnimationDelay;
 	private boolean alreadyBuilt;
+	private Long seed;
+
+	//the old 2D array layout, built lazily by getMazeArray() and refreshed whenever the grid has changed
+	private transient int[ ][ ] mazeArray;
+	private transient int mazeArrayModCount;
+
+	//null while nobody is listening; the array is replaced (never changed) when a listener is added or removed
+	private transient volatile MazeListener[ ] listeners;
+	private transient MazePacer solvePacer;   //the listener that slows the moves down, while there is a solve delay
+	private transient long buildStartNanos;   //from MazeMetrics.buildStarted, while the maze is being built
+	private transient volatile MazeBitboard bitboard;   //made by getBitboard, the first time it is asked for
 
 	//-------constructors
 	public Maze(int numRealRows, int numRealCols)
@@ -24,8 +40,7 @@ public class Maze implements java.io.Serializable
 		//since the maze is being created, initialize alreadyBuilt to false
 		alreadyBuilt = false;
 
-		//set the buildAnimationDelay and solveAnimationDelay to 0;  they can be reset with methods
-		buildAnimationDelay = 0;
+		//set the solveAnimationDelay to 0;  it can be reset with a method
 		solveAnimationDelay = 0;
 
 		//make sure that the numRealRows and numRealCols are both > 1 (start cannot == goal)
@@ -34,54 +49,136 @@ public class Maze implements java.io.Serializable
 		if (numRealCols < 2)
 			throw new IllegalArgumentException("number of columns must be > 1");
 
-		//create the 2D array to hold the maze (its even rows/cols hold the walls, odd rows/cols hold the paint
-		mazeArray = new int[2*numRealRows+1][2*numRealCols+1];
+		//create the grid to hold the maze (every cell starts with all of its walls intact)
+		grid = new MazeGrid(numRealRows, numRealCols);
+
+		//initialize the currentRow and currentCol to the upper left corner
+		currentRow = 0;
+		currentCol = 0;
+	}
+
+	//builds a Maze around a grid whose walls have already been carved (for example, one that was read from a file);
+	//any path left on the grid is cleared, and the current cell is put in the upper left corner and the goal in the
+	//lower right corner
+	public Maze(MazeGrid aGrid)
+	{
+		this(aGrid, true);
+	}
+
+	//builds a Maze around a grid whose walls have already been carved (see the other constructor), or, if carved is
+	//false, around a grid with every wall still intact, which is carved by calling buildMaze or buildMazeParallel
+	//(for example, a MappedMazeGrid that was just created)
+	public Maze(MazeGrid aGrid, boolean carved)
+	{
+		if (aGrid == null)
+			throw new IllegalArgumentException("trying to create a Maze with a null grid");
+		if (aGrid.getNumRows() < 2)
+			throw new IllegalArgumentException("number of rows must be > 1");
+		if (aGrid.getNumCols() < 2)
+			throw new IllegalArgumentException("number of columns must be > 1");
+
+		if (!carved && aGrid.isFrozen())
+			throw new IllegalStateException("cannot build maze - its grid has already been built");
 
-		//since the even values are the walls, set anything with an even component to 1 (wall exists to start)
-		for (int row=0; row<mazeArray.length; row++)
-			for (int col=0; col<mazeArray[row].length; col++)
-				if (row%2==0 || col%2==0)   //if either dimension is even...
-					mazeArray[row][col] = 1;		//its a wall, so set value to 1
+		grid = aGrid;
+		solveAnimationDelay = 0;
 
-		//initialize the currentArrayRow and currentArrayCol to the upper left corner
-		currentArrayRow = 1;
-		currentArrayCol= 1;
+		//if the walls are already there, this maze cannot be built again
+		alreadyBuilt = carved;
+		if (carved)
+		{
+			aGrid.clearStates();
+			finishBuilding();
+		}
 	}
 
 	// **************** methods *******************************************
 
-	//equals - returns true if it equals what is received
+	//equals - returns true if obj is a Maze of the same size, with the same walls and path (the same cells in the
+	//         old mazeArray layout), and the same current cell and goal.  The fingerprints are compared first, so two
+	//         different mazes are nearly always told apart without looking at their cells again.
 	public boolean equals(Object obj)
 	{
+		if (obj == this)
+			return true;
 		if (obj == null)
 			return false;
 		if (this.getClass() != obj.getClass())
 			return false;
 
 		Maze objMaze = (Maze)obj;
+		if (currentRow != objMaze.currentRow || currentCol != objMaze.currentCol ||
+				goalRow != objMaze.goalRow || goalCol != objMaze.goalCol)
+			return false;
+		if (getFingerprint() != objMaze.getFingerprint())
+			return false;
+
+		//the same fingerprint almost certainly means the same maze, but make sure (in one pass over the cells)
+		return grid.contentEquals(objMaze.grid);
+	}
 
-		//now do the real check - do the arrays have the exact same elements?
-		//build a single String out of all the elements in this Maze, row major
-		String myElementsStr = "";
-		for (int row=0; row<this.mazeArray.length; row++)
-			for (int col=0; col<this.mazeArray[row].length; col++)
-				myElementsStr = myElementsStr + this.mazeArray + " ";
+	//hashCode - returns a hash code that agrees with equals (from the fingerprint)
+	public int hashCode()
+	{
+		long fingerprint = getFingerprint();
+		return (int)(fingerprint ^ (fingerprint >>> 32));
+	}
 
-		//build a single String out of all the elements in argument Maze, row major
-		String objElementsStr = "";
-		java.util.ArrayList objElementsAL = new java.util.ArrayList();
-		for (int row=0; row<objMaze.mazeArray.length; row++)
-			for (int col=0; col<objMaze.mazeArray[row].length; col++)
-				objElementsStr = objElementsStr + objMaze.mazeArray[row][col] + " ";
+	//------- getFingerprint - returns a 64 bit hash of everything equals compares: the grid's fingerprint (see
+	//                        MazeGrid.getFingerprint, which is only computed again after the grid has changed),
+	//                        mixed with the current cell and the goal
+	public long getFingerprint()
+	{
+		long position = ((long)currentRow << 32 | currentCol) * 0x9E3779B97F4A7C15L;
+		long goal = ((long)goalRow << 32 | goalCol) * 0xC2B2AE3D27D4EB4FL;
+		return grid.getFingerprint() ^ Long.rotateLeft(position, 21) ^ Long.rotateLeft(goal, 43);
+	}
 
-		//if the 2 Strings are equal, then the original arrays contained the same elements
-		return myElementsStr.equals(objElementsStr);
+	//------- getLayoutFingerprint - returns a 64 bit hash of the walls only (see MazeGrid.getWallFingerprint), which
+	//                              is the same for every maze with this layout, wherever it has been walked to.
+	//                              Once the maze has been built it is only computed once.
+	public long getLayoutFingerprint()
+	{
+		return grid.getWallFingerprint();
+	}
+
+	//------- getBitboard - returns the walls as bitboards, for questions about the whole maze (dead ends, reachable
+	//                      cells - see MazeBitboard).  They are made the first time they are asked for, and kept,
+	//                      since the walls never change once the maze has been built.
+	public MazeBitboard getBitboard()
+	{
+		if (!grid.isFrozen())
+			throw new IllegalStateException("cannot make the bitboards - the maze has not been built yet");
+
+		MazeBitboard result = bitboard;
+		if (result == null)
+		{
+			result = new MazeBitboard(grid);
+			bitboard = result;
+		}
+		return result;
 	}
 
-	//------- setSolveAnimationDelay - sets the delay (milliseconds) for the maze being solved (in case its animated)
+	//------- setSolveAnimationDelay - sets the delay (milliseconds) for the maze being solved (in case its animated);
+	//                               the waiting is done by a MazePacer that listens to the moves, so while the delay
+	//                               is 0 the moves do not wait at all
 	public void setSolveAnimationDelay(int theDelay)
 	{
+		if (theDelay < 0)
+			throw new IllegalArgumentException("animation delay must be >= 0");
+
 		solveAnimationDelay = theDelay;
+		if (solvePacer != null)
+			removeMazeListener(solvePacer);
+		solvePacer = (theDelay == 0) ? null : new MazePacer(0, theDelay);
+		if (solvePacer != null)
+			addMazeListener(solvePacer);
+	}
+
+	//------- setSeed - sets the seed of the random generator used by buildMaze, so the same maze can be built again
+	public void setSeed(long theSeed)
+	{
+		seed = theSeed;
 	}
 
 	//------- buildMaze - builds the Maze; calls other buildMaze method to set buildAnimationDelay to 0
@@ -90,8 +187,163 @@ public class Maze implements java.io.Serializable
 		buildMaze(0);
 	}
 
-	//------- buildMaze - builds the Maze; receives a delay to slow it down (in case its displayed)
+	//------- buildMaze - builds the Maze; receives a delay to slow it down (in case its displayed), which a MazePacer
+	//                    listening to the builder waits out at every step
 	public void buildMaze(int buildAnimationDelay)
+	{
+		if (buildAnimationDelay < 0)
+			throw new IllegalArgumentException("animation delay must be >= 0");
+		//the backtracker numbers the cells with ints, and may need a stack as big as the maze on the heap
+		if ((long)getNumRows() * getNumCols() > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("maze is too big for buildMaze: " + getNumRows() + " x " + getNumCols() +
+					" cells (use buildMazeParallel or EllerMazeGenerator)");
+
+		startBuilding();
+
+		MazePacer buildPacer = (buildAnimationDelay == 0) ? null : new MazePacer(buildAnimationDelay, 0);
+		if (buildPacer != null)
+			addMazeListener(buildPacer);
+		try
+		{
+			//carve the whole maze as one region, showing the current cell as it goes
+			carveRegion(0, 0, getNumRows(), getNumCols(), newGenerator(), true);
+		}
+		finally
+		{
+			if (buildPacer != null)
+				removeMazeListener(buildPacer);
+		}
+
+		finishBuilding();
+	}
+
+	//------- buildMazeParallel - builds the Maze on the common ForkJoinPool; see the other buildMazeParallel
+	public void buildMazeParallel(int tileSize)
+	{
+		buildMazeParallel(tileSize, java.util.concurrent.ForkJoinPool.commonPool());
+	}
+
+	//------- buildMazeParallel - builds the Maze by splitting it into tileSize x tileSize tiles, carving every tile
+	//                            on its own in the pool, and then knocking down one wall between the tiles for every
+	//                            edge of a random spanning tree over the tiles.  Every tile is a perfect maze, and the
+	//                            spanning tree joins them without loops, so the result is a perfect maze as well.
+	//                            Each tile gets its own Random (seeded from the maze's seed and the tile's index), so
+	//                            the same seed always gives the same maze no matter how the tiles are scheduled.
+	public void buildMazeParallel(int tileSize, java.util.concurrent.ForkJoinPool pool)
+	{
+		if (tileSize < 1)
+			throw new IllegalArgumentException("tile size must be > 0");
+		//every tile is carved like buildMaze carves the whole maze, and the tiles are numbered with ints
+		long numTiles = ((getNumRows() + (long)tileSize - 1) / tileSize) * ((getNumCols() + (long)tileSize - 1) / tileSize);
+		if ((long)Math.min(tileSize, getNumRows()) * Math.min(tileSize, getNumCols()) > Integer.MAX_VALUE ||
+				numTiles > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("cannot build a " + getNumRows() + " x " + getNumCols() + " maze with " +
+					tileSize + " x " + tileSize + " tiles: the tiles are too big, or there are too many of them");
+
+		startBuilding();
+
+		final long mazeSeed = (seed == null) ? new java.util.Random().nextLong() : seed;
+		final int theTileSize = tileSize;
+		final int numRealRows = getNumRows();
+		final int numRealCols = getNumCols();
+		final int numTileRows = (numRealRows + tileSize - 1) / tileSize;
+		final int numTileCols = (numRealCols + tileSize - 1) / tileSize;
+
+		//carve every tile in parallel.  The tiles only knock down walls between their own cells (the walls between
+		//tiles stay up until they are joined), so they never write to the same wall.  The grid's modCount may lose
+		//some of its increments while they run, which is fine because it only ever needs to change.
+		java.util.ArrayList<java.util.concurrent.Callable<Void>> tileTasks = new java.util.ArrayList<java.util.concurrent.Callable<Void>>();
+		for (int tileIndex=0; tileIndex<numTileRows*numTileCols; tileIndex++)
+		{
+			final int top = (tileIndex / numTileCols) * theTileSize;
+			final int left = (tileIndex % numTileCols) * theTileSize;
+			final java.util.Random tileGen = new java.util.Random(mazeSeed * 0x9E3779B97F4A7C15L + tileIndex);
+			tileTasks.add(new java.util.concurrent.Callable<Void>()
+			{
+				public Void call()
+				{
+					carveRegion(top, left, Math.min(theTileSize, numRealRows-top), Math.min(theTileSize, numRealCols-left),
+							tileGen, false);
+					return null;
+				}
+			});
+		}
+
+		for (java.util.concurrent.Future<Void> tileFuture : pool.invokeAll(tileTasks))
+		{
+			try{ tileFuture.get(); }
+			catch(InterruptedException ex) { Thread.currentThread().interrupt(); throw new IllegalStateException("interrupted while building the maze", ex); }
+			catch(java.util.concurrent.ExecutionException ex) { throw new IllegalStateException("could not build a tile of the maze", ex.getCause()); }
+		}
+
+		//now join the tiles: run the same backtracker over the grid of tiles, and every time it moves from one tile
+		//to the next, knock down a random wall on the border between them
+		java.util.Random gen = new java.util.Random(mazeSeed);
+		MazeListener[ ] theListeners = listeners;
+		boolean[] tileJoined = new boolean[numTileRows*numTileCols];
+		int[] tileStack = new int[numTileRows*numTileCols];
+		int stackSize = 0;
+		Direction[] neighborDirs = new Direction[4];
+
+		int tileRow = gen.nextInt(numTileRows);
+		int tileCol = gen.nextInt(numTileCols);
+		tileJoined[tileRow*numTileCols + tileCol] = true;
+		while (true)
+		{
+			int numNeighbors = 0;
+			if (tileRow > 0 && !tileJoined[(tileRow-1)*numTileCols + tileCol])
+				neighborDirs[numNeighbors++] = Direction.UP;
+			if (tileRow < numTileRows-1 && !tileJoined[(tileRow+1)*numTileCols + tileCol])
+				neighborDirs[numNeighbors++] = Direction.DOWN;
+			if (tileCol > 0 && !tileJoined[tileRow*numTileCols + tileCol-1])
+				neighborDirs[numNeighbors++] = Direction.LEFT;
+			if (tileCol < numTileCols-1 && !tileJoined[tileRow*numTileCols + tileCol+1])
+				neighborDirs[numNeighbors++] = Direction.RIGHT;
+
+			if (numNeighbors > 0)
+			{
+				Direction theNeighbor = neighborDirs[gen.nextInt(numNeighbors)];
+				tileStack[stackSize++] = tileRow*numTileCols + tileCol;
+
+				//pick a random cell along the side of this tile that faces the neighbor, and open it up
+				int top = tileRow * tileSize;
+				int left = tileCol * tileSize;
+				int doorRow;
+				int doorCol;
+				if (theNeighbor == Direction.UP || theNeighbor == Direction.DOWN)
+				{
+					doorRow = (theNeighbor == Direction.UP) ? top : Math.min(top + tileSize, numRealRows) - 1;
+					doorCol = left + gen.nextInt(Math.min(tileSize, numRealCols - left));
+				}
+				else
+				{
+					doorRow = top + gen.nextInt(Math.min(tileSize, numRealRows - top));
+					doorCol = (theNeighbor == Direction.LEFT) ? left : Math.min(left + tileSize, numRealCols) - 1;
+				}
+				grid.knockDownWall(doorRow, doorCol, theNeighbor);
+				if (theListeners != null)
+					for (MazeListener listener : theListeners)
+						listener.wallKnockedDown(this, doorRow, doorCol, theNeighbor);
+
+				tileRow += MazeGrid.rowChange(theNeighbor);
+				tileCol += MazeGrid.colChange(theNeighbor);
+				tileJoined[tileRow*numTileCols + tileCol] = true;
+			}
+			else if (stackSize > 0)
+			{
+				int popped = tileStack[--stackSize];
+				tileRow = popped / numTileCols;
+				tileCol = popped % numTileCols;
+			}
+			else
+				break;   //back at the first tile with nothing left to join
+		}
+
+		finishBuilding();
+	}
+
+	//------- startBuilding - makes sure the maze is only built once, and tells the MazeMetrics that it is being built
+	private void startBuilding()
 	{
 		//if this maze has already been built and it trying to be built again, throw an exception
 		if (alreadyBuilt)
@@ -99,78 +351,95 @@ public class Maze implements java.io.Serializable
 		else
 			alreadyBuilt = true;   //because we are NOW building it
 
-		System.out.println("\nbeginning to build the maze with " + mazeArray.length/2 + " rows, " + mazeArray[0].length/2 + " cols");
-
-		//create a Stack to hold the cells we are visiting as it is built (they will be stored as Points)
-		//and an ArrayList to hold the "neighbors" in the code below
-		java.util.Stack<java.awt.Point> cellStack = new java.util.Stack<java.awt.Point>();
-		java.util.ArrayList<java.awt.Point> neighborAL;
-
-		//in the mazeArray, the even rows/cols are the walls, the odd rows/cols are the cells
-		int numRealRows = mazeArray.length/2;
-		int numRealCols = mazeArray[0].length/2;
+		buildStartNanos = MazeMetrics.get().buildStarted(getNumRows(), getNumCols());
+	}
 
-		//calculate the total number of (real) cells to visit
-		int totalCells = numRealRows * numRealCols;  //rows x cols
+	//------- newGenerator - returns the random generator to build with (seeded, if setSeed was called)
+	private java.util.Random newGenerator()
+	{
+		return (seed == null) ? new java.util.Random() : new java.util.Random(seed);
+	}
 
-		//the odd rows/cols store the actual cells.  Choose a random cell to start.
-		java.util.Random gen = new java.util.Random();
+	//------- carveRegion - runs the recursive backtracker over the cells [top..top+numRegionRows) x [left..left+numRegionCols),
+	//                      only knocking down walls between cells of that region.  If showProgress is true, the cell
+	//                      being visited is marked as PATH, and the listeners are told about it, so a display can
+	//                      follow along.  The listeners are told about every wall that is knocked down either way.
+	private void carveRegion(int top, int left, int numRegionRows, int numRegionCols, java.util.Random gen,
+			boolean showProgress)
+	{
+		//(read once: a listener added part way through a build hears about the next build)
+		MazeListener[ ] theListeners = listeners;
+		MazeListener[ ] progressListeners = showProgress ? theListeners : null;
 
-		int currentArrayRow = gen.nextInt(numRealRows)*2 + 1;	//ex: if 3 real rows, this is a random from 1,3,5
-		currentArrayCol = gen.nextInt(numRealCols)*2 + 1;		//same for cols...
-		int lastArrayRow = currentArrayRow;
-		int lastArrayCol = currentArrayCol;
+		int bottom = top + numRegionRows;
+		int right = left + numRegionCols;
 
-		mazeArray[currentArrayRow][currentArrayCol] = 2;
+		//calculate the total number of (real) cells to visit
+		int totalCells = numRegionRows * numRegionCols;  //rows x cols
+
+		//create a stack to hold the cells we are visiting as it is built (each cell is stored as its index within
+		//the region, so nothing has to be allocated per cell) and a buffer to hold the Directions of the "neighbors"
+		int[] cellStack = new int[Math.min(totalCells, 1024)];
+		int stackSize = 0;
+		Direction[] neighborDirs = new Direction[4];
+		int numNeighbors;
+
+		//Choose a random cell to start.
+		int cellRow = top + gen.nextInt(numRegionRows);
+		int cellCol = left + gen.nextInt(numRegionCols);
+
+		if (showProgress)
+			grid.setState(cellRow, cellCol, MazeGrid.PATH);
+		if (progressListeners != null)
+			for (MazeListener listener : progressListeners)
+				listener.cellVisited(this, cellRow, cellCol);
 		int numVisitedCells = 1;
 
 		//while all cells have not been visited...
 		while(numVisitedCells < totalCells)
 		{
-			//go to sleep to slow down animation (based on its speed)
-			try{ Thread.sleep(buildAnimationDelay); }
-			catch(Exception ex) {}
-
 			//find all neighbors of currentCell with all walls intact
-			neighborAL = new java.util.ArrayList<java.awt.Point>();
+			numNeighbors = 0;
 			//try cell above it
-			if (inMaze(currentArrayRow-2, currentArrayCol) && allWallsIntact(currentArrayRow-2, currentArrayCol))
-				neighborAL.add(new java.awt.Point(currentArrayRow-2, currentArrayCol));
+			if (cellRow > top && grid.allWallsIntact(cellRow-1, cellCol))
+				neighborDirs[numNeighbors++] = Direction.UP;
 			//try cell below it
-			if (inMaze(currentArrayRow+2, currentArrayCol) && allWallsIntact(currentArrayRow+2, currentArrayCol))
-				neighborAL.add(new java.awt.Point(currentArrayRow+2, currentArrayCol));
+			if (cellRow < bottom-1 && grid.allWallsIntact(cellRow+1, cellCol))
+				neighborDirs[numNeighbors++] = Direction.DOWN;
 			//try cell to the left of it
-			if (inMaze(currentArrayRow, currentArrayCol-2) && allWallsIntact(currentArrayRow, currentArrayCol-2))
-				neighborAL.add(new java.awt.Point(currentArrayRow, currentArrayCol-2));
+			if (cellCol > left && grid.allWallsIntact(cellRow, cellCol-1))
+				neighborDirs[numNeighbors++] = Direction.LEFT;
 			//try cell to the right of it
-			if (inMaze(currentArrayRow, currentArrayCol+2) && allWallsIntact(currentArrayRow, currentArrayCol+2))
-				neighborAL.add(new java.awt.Point(currentArrayRow, currentArrayCol+2));
+			if (cellCol < right-1 && grid.allWallsIntact(cellRow, cellCol+1))
+				neighborDirs[numNeighbors++] = Direction.RIGHT;
 
 			//if neighbors with intact walls exist...
-			if (neighborAL.size() > 0)
+			if (numNeighbors > 0)
 			{
-				//choose a neighbor at random
-				int randomInt = gen.nextInt(neighborAL.size());
-				java.awt.Point theNeighbor = neighborAL.get(randomInt);
-				int neighborRow = (int)theNeighbor.getX();
-				int neighborCol = (int)theNeighbor.getY();
-
-				//knock down the wall in between
-				if (currentArrayRow != neighborRow)    //neighbor chosen was above or below
-					mazeArray[(currentArrayRow+neighborRow)/2][currentArrayCol] = 0;   //knock down wall in between
-				else if (currentArrayCol != neighborCol)   //neighbor chosen was to the left or right
-					mazeArray[currentArrayRow][(currentArrayCol+neighborCol)/2] = 0;    //knock down wall in between
-
-				//push the current cell onto the cellStack
-				cellStack.push(new java.awt.Point(currentArrayRow, currentArrayCol));
+				//choose a neighbor at random and knock down the wall in between
+				Direction theNeighbor = neighborDirs[gen.nextInt(numNeighbors)];
+				grid.knockDownWall(cellRow, cellCol, theNeighbor);
+				if (theListeners != null)
+					for (MazeListener listener : theListeners)
+						listener.wallKnockedDown(this, cellRow, cellCol, theNeighbor);
+
+				//push the current cell onto the cellStack (growing it if it is full)
+				if (stackSize == cellStack.length)
+					cellStack = java.util.Arrays.copyOf(cellStack, Math.min(totalCells, 2*cellStack.length));
+				cellStack[stackSize++] = (cellRow-top)*numRegionCols + (cellCol-left);
 
 				//clear the current cell
-				mazeArray[currentArrayRow][currentArrayCol] = 0;
+				if (showProgress)
+					grid.setState(cellRow, cellCol, MazeGrid.EMPTY);
 
 				//make the new cell the current cell
-				currentArrayRow = neighborRow;
-				currentArrayCol = neighborCol;
-				mazeArray[currentArrayRow][currentArrayCol] = 2;
+				cellRow += MazeGrid.rowChange(theNeighbor);
+				cellCol += MazeGrid.colChange(theNeighbor);
+				if (showProgress)
+					grid.setState(cellRow, cellCol, MazeGrid.PATH);
+				if (progressListeners != null)
+					for (MazeListener listener : progressListeners)
+						listener.cellVisited(this, cellRow, cellCol);
 
 				//add 1 to visitedCells
 				numVisitedCells++;
@@ -178,185 +447,213 @@ public class Maze implements java.io.Serializable
 			else
 			{
 				//clear the current cell
-				mazeArray[currentArrayRow][currentArrayCol] = 0;
+				if (showProgress)
+					grid.setState(cellRow, cellCol, MazeGrid.EMPTY);
 
 				//pop the most recent entry off of cellStack and make it the current cell
-				java.awt.Point popped = cellStack.pop();
-				currentArrayRow = (int)popped.getX();
-				currentArrayCol = (int)popped.getY();
-				mazeArray[currentArrayRow][currentArrayCol] = 2;
+				int popped = cellStack[--stackSize];
+				cellRow = top + popped / numRegionCols;
+				cellCol = left + popped % numRegionCols;
+				if (showProgress)
+					grid.setState(cellRow, cellCol, MazeGrid.PATH);
+				if (progressListeners != null)
+					for (MazeListener listener : progressListeners)
+						listener.cellVisited(this, cellRow, cellCol);
 			}
 		}   //end while
 
 		//clear the cell that ended up as the current Cell
-		mazeArray[currentArrayRow][currentArrayCol] = 0;
+		if (showProgress)
+			grid.setState(cellRow, cellCol, MazeGrid.EMPTY);
+	}
+
+	//------- finishBuilding - freezes the walls, then puts the current cell in the upper left corner and the goal in
+	//                        the lower right corner
+	private void finishBuilding()
+	{
+		//from now on the walls never change, so cursors on other threads can share them
+		grid.freeze();
 
 		//set the current cell to the upper left corner
-		currentArrayRow = 1;
-		currentArrayCol = 1;
-		mazeArray[currentArrayRow][currentArrayCol] = 2;   //current
+		currentRow = 0;
+		currentCol = 0;
+		grid.setState(currentRow, currentCol, MazeGrid.PATH);   //current
 
 		//set the goal to the lower right corner
-		goalArrayRow = numRealRows*2-1;
-		goalArrayCol = numRealCols*2-1;
-		mazeArray[goalArrayRow][goalArrayCol] = 3;   //goal
+		goalRow = getNumRows()-1;
+		goalCol = getNumCols()-1;
+		grid.setState(goalRow, goalCol, MazeGrid.GOAL);   //goal
 
-		System.out.println("finished building the maze\n");
+		//(a maze made around a grid that was already carved was never started, so it is not counted)
+		MazeMetrics.get().buildFinished(getNumRows(), getNumCols(), buildStartNanos);
+		buildStartNanos = 0;
 	}
 
 	//-------- getNumRows - returns the number of rows in the maze (from user's perspective)
-	private int getNumRows()
+	public int getNumRows()
 	{
-		return mazeArray.length/2;    // divide by 2 for real answer
+		return grid.getNumRows();
 	}
 
 	//-------- getNumCols - returns the number of columns in the maze (from user's perspective)
-	private int getNumCols()
+	public int getNumCols()
+	{
+		return grid.getNumCols();
+	}
+
+	//-------- getGrid - returns the MazeGrid that holds the walls and cells
+	public MazeGrid getGrid()
 	{
-		return mazeArray[0].length/2;    // number of columns in row0 (divide by 2 for real answer)
+		return grid;
 	}
 
+	//-------- newCursor - returns a new MazeCursor that starts in the upper left corner and heads for the goal
+	public MazeCursor newCursor()
+	{
+		return new MazeCursor(grid, 0, 0, goalRow, goalCol);
+	}
 
-	//-------- allWallsIntact - returns true if the cell at [aRow][aCol] has all walls around it intact
-	private boolean allWallsIntact(int aRow, int aCol)
+	//-------- newCursor - returns a new MazeCursor with its own start and goal.  Cursors never change this
+	//                     Maze, so any number of them can be used at the same time, from any threads.
+	public MazeCursor newCursor(int startRow, int startCol, int goalRow, int goalCol)
 	{
-		return   (mazeArray[aRow-1][aCol] == 1   &&	//wall above it exists
-						mazeArray[aRow+1][aCol] == 1  &&	//wall below it exists
-						mazeArray[aRow][aCol-1] == 1   &&	//wall to the left exists
-						mazeArray[aRow][aCol+1] == 1);			//wall to the right exists
+		return new MazeCursor(grid, startRow, startCol, goalRow, goalCol);
 	}
 
-	//-------- inMaze - returns true if the cell at [aRow][aCol] is in the maze
-	private boolean inMaze(int aRow, int aCol)
+	//-------- addMazeListener - starts telling the listener about every change to this maze
+	public synchronized void addMazeListener(MazeListener listener)
 	{
-		return   (aRow > 0   &&   aRow < mazeArray.length-1   &&
-						aCol > 0     &&   aCol   < mazeArray[0].length-1);
+		if (listener == null)
+			throw new IllegalArgumentException("trying to add a null MazeListener");
+
+		MazeListener[ ] theListeners = (listeners == null) ? new MazeListener[0] : listeners;
+		theListeners = java.util.Arrays.copyOf(theListeners, theListeners.length + 1);
+		theListeners[theListeners.length - 1] = listener;
+		listeners = theListeners;
+	}
+
+	//-------- removeMazeListener - stops telling the listener about changes (does nothing if it was not listening)
+	public synchronized void removeMazeListener(MazeListener listener)
+	{
+		if (listeners == null)
+			return;
+
+		java.util.ArrayList<MazeListener> theListeners = new java.util.ArrayList<MazeListener>(java.util.Arrays.asList(listeners));
+		theListeners.remove(listener);
+		listeners = theListeners.isEmpty() ? null : theListeners.toArray(new MazeListener[0]);
 	}
 
 	//-------- getCurrentRow - returns the current (real) row
 	public int getCurrentRow()
 	{
-		return currentArrayRow/2;
+		return currentRow;
 	}
 
 	//-------- getCurrentCol - returns the current (real) col
 	public int getCurrentCol()
 	{
-		return currentArrayCol/2;
+		return currentCol;
 	}
 
 
 	//-------- isOpen - returns true if there is no wall in the direction that is passed in
 	public boolean isOpen(Direction direction)
 	{
-		boolean result = false;
-		if (direction == Direction.UP && mazeArray[currentArrayRow-1][currentArrayCol]==0)
-			result = true;
-		else if (direction == Direction.DOWN && mazeArray[currentArrayRow+1][currentArrayCol]==0)
-			result = true;
-		else if (direction == Direction.LEFT && mazeArray[currentArrayRow][currentArrayCol-1]==0)
-			result = true;
-		else if (direction == Direction.RIGHT && mazeArray[currentArrayRow][currentArrayCol+1]==0)
-			result = true;
-
-		return result;
+		return !grid.hasWall(currentRow, currentCol, direction);
 	}
 
 	//-------- isOpenTo - returns true if the current cell is openTo (no wall) the one passed in
-	private boolean isOpenTo(int aRow, int aCol)
+	private boolean isOpenTo(int realRow, int realCol)
 	{
 		boolean result;
 
-		if (!isAdjacentTo(aRow, aCol))
+		if (!isAdjacentToCell(realRow, realCol))
 			result = false;
-		else if (currentArrayRow-aRow == 2)  //IS adjacent, figure which direction and call other method
-			result = mazeArray[currentArrayRow-1][currentArrayCol]==0;   //UP
-		else if (currentArrayRow-aRow == -2)
-			result = mazeArray[currentArrayRow+1][currentArrayCol]==0;   //DOWN
-		else if (currentArrayCol-aCol == 2)
-			result = mazeArray[currentArrayRow][currentArrayCol-1]==0;   //LEFT
-		else if (currentArrayCol-aCol == -2)
-			result = mazeArray[currentArrayRow][currentArrayCol+1]==0;   //RIGHT
+		else if (currentRow-realRow == 1)  //IS adjacent, figure which direction and call other method
+			result = isOpen(Direction.UP);
+		else if (currentRow-realRow == -1)
+			result = isOpen(Direction.DOWN);
+		else if (currentCol-realCol == 1)
+			result = isOpen(Direction.LEFT);
 		else
-			result = false;
+			result = isOpen(Direction.RIGHT);
 
 		return result;
 	}
 
-	//-------- adjacentTo - returns true if the current cell is adjacentTo (above/below/left/right) current cell
+	//-------- adjacentTo - returns true if the array row/col passed in is adjacentTo (above/below/left/right) current cell
 	public boolean isAdjacentTo(int aRow, int aCol)
 	{
-		//calculate how far the move is (hopefully row OR col is just +-2)
-		int arrayRowChange = currentArrayRow - aRow;
-		int arrayColChange = currentArrayCol - aCol;
-
-		//it is adjacent if EITHER the rows or the cols differ by 2
-		return Math.abs(arrayRowChange)==2 ^ Math.abs(arrayColChange)==2;  //checking row xor col
+		//the array rows/cols of the cells are odd, so anything even cannot be a cell
+		return aRow%2==1 && aCol%2==1 && isAdjacentToCell(aRow/2, aCol/2);
 	}
 
-	// -------- move - receives a Direction and moves there if OK.  Calls the other
-	//                 arrayMove to do this
-	public boolean move(Direction direction)
+	//-------- isAdjacentToCell - returns true if the real row/col passed in is adjacentTo (above/below/left/right) current cell
+	private boolean isAdjacentToCell(int realRow, int realCol)
 	{
-		boolean success = false;
+		//calculate how far the move is (hopefully row OR col is just +-1)
+		int rowChange = currentRow - realRow;
+		int colChange = currentCol - realCol;
 
-		if (direction == Direction.UP)
-			success = arrayMove(currentArrayRow-2, currentArrayCol);
-		else if (direction == Direction.DOWN)
-			success = arrayMove(currentArrayRow+2, currentArrayCol);
-		else if (direction == Direction.LEFT)
-			success = arrayMove(currentArrayRow, currentArrayCol-2);
-		else if (direction == Direction.RIGHT)
-			success = arrayMove(currentArrayRow, currentArrayCol+2);
-
-		return success;
+		//it is adjacent if EITHER the rows or the cols differ by 1
+		return (Math.abs(rowChange)==1 && colChange==0) ^ (Math.abs(colChange)==1 && rowChange==0);  //checking row xor col
 	}
 
-	//-------- move - receives the literal (not array) row/col to move to.  Calls the
-	//                other ArrayMove to do this.
-	private boolean move(int realRow, int realCol)
+	// -------- move - receives a Direction and moves there if OK.  Calls the other
+	//                 move to do this
+	public boolean move(Direction direction)
 	{
-		return arrayMove(2*realRow+1, 2*realCol+1);
+		return move(currentRow + MazeGrid.rowChange(direction), currentCol + MazeGrid.colChange(direction));
 	}
 
-	//-------- arrayMove - moves using the maze array (moves a distance of 2 to get to next cell)
-	//                     first checks to see if move is legal.  Returns true if successful.
-	private boolean arrayMove(int newArrayRow, int newArrayCol)
+	//-------- move - receives the literal (not array) row/col to move to (a distance of 1 to get to next cell)
+	//                first checks to see if move is legal.  Returns true if successful.
+	private boolean move(int newRow, int newCol)
 	{
 		boolean success;
 
-		//go to sleep to slow down animation (based on its speed)
-		try{ Thread.sleep(solveAnimationDelay); }
-		catch(Exception ex) {}
-
 		//make sure the new row/col is still in the maze
-		if (!inMaze(newArrayRow, newArrayCol))
-			throw new IllegalMazeMoveException("trying to move to cell <" + newArrayRow/2 + ", " +
-					newArrayCol/2 + "> which is outside the maze");
+		if (!grid.inMaze(newRow, newCol))
+			throw new IllegalMazeMoveException("trying to move to cell <" + newRow + ", " +
+					newCol + "> which is outside the maze");
 
 		//make sure the new row/col is adjacent
-		else if (!isAdjacentTo(newArrayRow, newArrayCol))
-			throw new IllegalMazeMoveException("trying to move from cell <" +  currentArrayRow/2 + ", " + currentArrayCol/2 +
-					"> to non-adjacent cell <" + newArrayRow/2 + ", " + newArrayCol/2 + ">");
+		else if (!isAdjacentToCell(newRow, newCol))
+			throw new IllegalMazeMoveException("trying to move from cell <" +  currentRow + ", " + currentCol +
+					"> to non-adjacent cell <" + newRow + ", " + newCol + ">");
 
 		//make sure there is not a wall in between
-		else if (!isOpenTo(newArrayRow, newArrayCol))
-			throw new IllegalMazeMoveException("trying to move from cell <" +  currentArrayRow/2 + ", " + currentArrayCol/2 +
-					"> to cell <" + newArrayRow/2 + ", " + newArrayCol/2 + "> and there is a wall in between");
+		else if (!isOpenTo(newRow, newCol))
+			throw new IllegalMazeMoveException("trying to move from cell <" +  currentRow + ", " + currentCol +
+					"> to cell <" + newRow + ", " + newCol + "> and there is a wall in between");
 
 		//if OK, move the current cell
 		else
 		{
-			//if new ArrayRow is already in the path, then we are retreating from current location so
+			//if new cell is already in the path, then we are retreating from current location so
 			//clear current location
-			if (mazeArray[newArrayRow][newArrayCol] == 2)
-				mazeArray[currentArrayRow][currentArrayCol] = 0;
-
-			currentArrayRow = newArrayRow;
-			currentArrayCol = newArrayCol;						//move current cell
-			mazeArray[currentArrayRow][currentArrayCol] = 2;   //and show it as part of path
+			boolean retreated = (grid.getState(newRow, newCol) == MazeGrid.PATH);
+			if (retreated)
+				grid.setState(currentRow, currentCol, MazeGrid.EMPTY);
+
+			int oldRow = currentRow;
+			int oldCol = currentCol;
+			currentRow = newRow;
+			currentCol = newCol;						//move current cell
+			grid.setState(currentRow, currentCol, MazeGrid.PATH);   //and show it as part of path
 			success = true;
 
+			//tell anyone who is listening (a MazePacer, if there is a solve delay, waits it out here)
+			MazeListener[ ] theListeners = listeners;
+			if (theListeners != null)
+				for (MazeListener listener : theListeners)
+				{
+					if (retreated)
+						listener.backtracked(this, oldRow, oldCol, currentRow, currentCol);
+					else
+						listener.moved(this, oldRow, oldCol, currentRow, currentCol);
+				}
+
 		}
 
 		//return
@@ -366,15 +663,74 @@ public class Maze implements java.io.Serializable
 	//-------- goalReached - returns true if the maze is solved (current location == goal)
 	public boolean goalReached()
 	{
-		return (currentArrayRow == goalArrayRow && currentArrayCol == goalArrayCol);
+		return (currentRow == goalRow && currentCol == goalCol);
+	}
+
+	//-------- getGoalRow - returns the (real) row of the goal
+	public int getGoalRow()
+	{
+		return goalRow;
 	}
 
-	//-------- getMazeArray - returns the mazeArray
+	//-------- getGoalCol - returns the (real) col of the goal
+	public int getGoalCol()
+	{
+		return goalCol;
+	}
+
+	//-------- getMazeArray - returns the maze in the old 2D array layout (walls on the even rows/cols).
+	//                        The array is built the first time it is asked for and refreshed in place
+	//                        whenever the grid has changed since, so callers should ask for it again
+	//                        instead of holding on to it.
 	public int[][] getMazeArray()
 	{
+		if (mazeArray == null || mazeArrayModCount != grid.getModCount())
+		{
+			mazeArray = grid.toMazeArray(mazeArray);
+			mazeArrayModCount = grid.getModCount();
+		}
+
 		return mazeArray;
 	}
 
+	//-------- readObject - the listeners are not saved with the maze, so a solve delay gets its MazePacer back here.
+	//                     A maze saved by the original Maze has its mazeArray (and array rows/cols) instead of a grid.
+	private void readObject(java.io.ObjectInputStream in) throws java.io.IOException, ClassNotFoundException
+	{
+		java.io.ObjectInputStream.GetField fields = in.readFields();
+		alreadyBuilt = fields.get("alreadyBuilt", false);
+		solveAnimationDelay = fields.get("solveAnimationDelay", 0);
+		if (fields.getObjectStreamClass().getField("mazeArray") != null)
+		{
+			try
+			{
+				grid = MazeGrid.fromMazeArray((int[][])fields.get("mazeArray", null));
+			}
+			catch (IllegalArgumentException ex)
+			{
+				throw new java.io.InvalidObjectException("saved maze has a bad mazeArray: " + ex.getMessage());
+			}
+			if (alreadyBuilt)
+				grid.freeze();
+			currentRow = fields.get("currentArrayRow", 1) / 2;
+			currentCol = fields.get("currentArrayCol", 1) / 2;
+			goalRow = fields.get("goalArrayRow", 1) / 2;
+			goalCol = fields.get("goalArrayCol", 1) / 2;
+		}
+		else
+		{
+			grid = (MazeGrid)fields.get("grid", null);
+			currentRow = fields.get("currentRow", 0);
+			currentCol = fields.get("currentCol", 0);
+			goalRow = fields.get("goalRow", 0);
+			goalCol = fields.get("goalCol", 0);
+			seed = (Long)fields.get("seed", null);
+		}
+
+		if (solveAnimationDelay > 0)
+			setSolveAnimationDelay(solveAnimationDelay);
+	}
+
 	//***********************************************************************
 
 	//This is Maze's enumerated data type: moves can be UP, DOWN, LEFT, RIGHT
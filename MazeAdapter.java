@@ -0,0 +1,25 @@
+// This class is a MazeListener that does nothing with any of the events, so a listener that only cares about some
+// of them can extend it and override just those (the same as a java.awt.event.WindowAdapter).
+
+public abstract class MazeAdapter implements MazeListener
+{
+	//wallKnockedDown - does nothing
+	public void wallKnockedDown(Maze aMaze, int row, int col, Direction direction)
+	{
+	}
+
+	//cellVisited - does nothing
+	public void cellVisited(Maze aMaze, int row, int col)
+	{
+	}
+
+	//moved - does nothing
+	public void moved(Maze aMaze, int fromRow, int fromCol, int toRow, int toCol)
+	{
+	}
+
+	//backtracked - does nothing
+	public void backtracked(Maze aMaze, int fromRow, int fromCol, int toRow, int toCol)
+	{
+	}
+}
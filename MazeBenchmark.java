@@ -0,0 +1,638 @@
+/*
+In this program, we will time the hot paths of the maze: building it, solving it, single moves, painting and exporting it, and
+looking solutions up in a MazeSolutionCache, the whole-maze passes of a MazeBitboard (each checked against the same
+pass done one cell at a time), and the parallel dead-end filling solver on 1, 2, 4... threads (checked against the
+depth first solver's path).
+Run it as "MazeBenchmark [--seed n] [--only build|pbuild|solve|move|paint|index|cursors|export|cache|bitboard|fill] [rows cols]..." (it uses a range of sizes
+from 10x10 up to 4000x4000 if none are given).  Every benchmark also reports how many bytes it allocated.
+Painting is done into an offscreen image the size of the display's window, so it can be run with -Djava.awt.headless=true.
+*/
+
+import java.util.*;
+import java.io.*;
+import java.lang.management.*;
+
+public class MazeBenchmark
+{
+	//Data
+	private static final int WARMUP_ROUNDS = 5;
+	private static final int MEASURED_ROUNDS = 5;
+	private static final int MOVE_ROUNDS = 20;
+	private static final int PAINT_FRAMES = 20;
+	private static final int TILE_SIZE = 256;
+	private static final int INDEX_QUERIES = 1000000;
+	private static final int SOLVES_PER_THREAD = 8;
+	private static final int EXPORT_CELL_DIM = 2;
+	private static final int CACHE_PAIRS = 64;
+	private static final int CACHE_ROUNDS = 100;
+	private static final long CACHE_BYTES = 64L << 20;
+
+	//the same window size that the MazeDisplay starts with
+	private static final int PAINT_WIDTH = 700;
+	private static final int PAINT_HEIGHT = 500;
+
+	//results are written here so the JIT cannot throw away the work that produced them
+	private static volatile int blackhole;
+
+	public static void main (String [] args)
+	{
+		//declare the variables
+		long seed = 42;
+		String only = null;
+		ArrayList<int []> sizes = new ArrayList<int []>();
+
+		//read in the options and the sizes to try
+		for (int i=0; i<args.length; i++)
+		{
+			if (args[i].equals("--seed"))
+				seed = Long.parseLong(args[++i]);
+			else if (args[i].equals("--only"))
+				only = args[++i];
+			else
+			{
+				sizes.add(new int [] { Integer.parseInt(args[i]), Integer.parseInt(args[i+1]) });
+				i++;
+			}
+		}
+
+		//use the defaults if no sizes were given
+		if (sizes.isEmpty())
+		{
+			sizes.add(new int [] {10, 10});
+			sizes.add(new int [] {100, 100});
+			sizes.add(new int [] {1000, 1000});
+			sizes.add(new int [] {4000, 4000});
+		}
+
+		System.out.println("parallel builds use " + TILE_SIZE + "x" + TILE_SIZE + " tiles on " +
+				java.util.concurrent.ForkJoinPool.commonPool().getParallelism() + " threads");
+		System.out.println(String.format("%-6s %11s %6s %14s %-12s %14s", "bench", "size", "seed", "score", "unit", "alloc/op"));
+
+		for (int [] size : sizes)
+		{
+			if (only == null || only.equals("build"))
+				benchmarkBuild(size[0], size[1], seed);
+			if (only == null || only.equals("pbuild"))
+				benchmarkParallelBuild(size[0], size[1], seed);
+			if (only == null || only.equals("solve"))
+				benchmarkSolve(size[0], size[1], seed);
+			if (only == null || only.equals("move"))
+				benchmarkMove(size[0], size[1], seed);
+			if (only == null || only.equals("paint"))
+				benchmarkPaint(size[0], size[1], seed);
+			if (only == null || only.equals("index"))
+				benchmarkTreeIndex(size[0], size[1], seed);
+			if (only == null || only.equals("cursors"))
+				benchmarkCursors(size[0], size[1], seed);
+			if (only == null || only.equals("export"))
+				benchmarkExport(size[0], size[1], seed);
+			if (only == null || only.equals("cache"))
+				benchmarkCache(size[0], size[1], seed);
+			if (only == null || only.equals("bitboard"))
+				benchmarkBitboard(size[0], size[1], seed);
+			if (only == null || only.equals("fill"))
+				benchmarkFill(size[0], size[1], seed);
+		}
+	}//end of main
+
+	//benchmarkBuild - builds mazes of the given size and reports cells per second and bytes allocated per cell
+	private static void benchmarkBuild(int numRows, int numCols, long seed)
+	{
+		//let the JIT compile buildMaze before we start measuring
+		for (int i=0; i<WARMUP_ROUNDS; i++)
+			newMaze(numRows, numCols, seed).buildMaze();
+
+		long totalNanos = 0;
+		long totalBytes = 0;
+		for (int i=0; i<MEASURED_ROUNDS; i++)
+		{
+			//the grid is allocated by the constructor, so only buildMaze itself is measured
+			Maze myMaze = newMaze(numRows, numCols, seed);
+
+			long startBytes = allocatedBytes();
+			long startTime = System.nanoTime();
+			myMaze.buildMaze();
+			totalNanos += System.nanoTime() - startTime;
+			totalBytes += allocatedBytes() - startBytes;
+		}
+
+		long numCells = (long)numRows * numCols * MEASURED_ROUNDS;
+		report("build", numRows, numCols, seed, numCells / (totalNanos / 1e9) / 1e6, "M cells/s",
+				(double)totalBytes / numCells, "B/cell");
+	}
+
+	//benchmarkParallelBuild - builds mazes of the given size with buildMazeParallel and reports cells per second
+	private static void benchmarkParallelBuild(int numRows, int numCols, long seed)
+	{
+		for (int i=0; i<WARMUP_ROUNDS; i++)
+			newMaze(numRows, numCols, seed).buildMazeParallel(TILE_SIZE);
+
+		long totalNanos = 0;
+		long totalBytes = 0;
+		for (int i=0; i<MEASURED_ROUNDS; i++)
+		{
+			Maze myMaze = newMaze(numRows, numCols, seed);
+
+			//only the allocations of this thread are counted (not the pool's)
+			long startBytes = allocatedBytes();
+			long startTime = System.nanoTime();
+			myMaze.buildMazeParallel(TILE_SIZE);
+			totalNanos += System.nanoTime() - startTime;
+			totalBytes += allocatedBytes() - startBytes;
+		}
+
+		long numCells = (long)numRows * numCols * MEASURED_ROUNDS;
+		report("pbuild", numRows, numCols, seed, numCells / (totalNanos / 1e9) / 1e6, "M cells/s",
+				(double)totalBytes / numCells, "B/cell");
+	}
+
+	//benchmarkSolve - solves already built mazes of the given size with solveFully() and reports the time per solve
+	private static void benchmarkSolve(int numRows, int numCols, long seed)
+	{
+		for (int i=0; i<WARMUP_ROUNDS; i++)
+			new MazeSolver(builtMaze(numRows, numCols, seed)).solveFully();
+
+		long totalNanos = 0;
+		long totalBytes = 0;
+		for (int i=0; i<MEASURED_ROUNDS; i++)
+		{
+			MazeSolver mySolver = new MazeSolver(builtMaze(numRows, numCols, seed));
+
+			long startBytes = allocatedBytes();
+			long startTime = System.nanoTime();
+			mySolver.solveFully();
+			totalNanos += System.nanoTime() - startTime;
+			totalBytes += allocatedBytes() - startBytes;
+		}
+
+		report("solve", numRows, numCols, seed, totalNanos / 1e6 / MEASURED_ROUNDS, "ms/solve",
+				(double)totalBytes / MEASURED_ROUNDS, "B/solve");
+	}
+
+	//benchmarkMove - walks a solved maze's path back to the start and forward again, timing Maze.move and Maze.isOpen
+	private static void benchmarkMove(int numRows, int numCols, long seed)
+	{
+		//solve the maze once, so we have a path to walk along
+		Maze myMaze = builtMaze(numRows, numCols, seed);
+		ArrayList<Direction> path = new MazeSolver(myMaze).solveFully().getPath();
+
+		long moveNanos = 0;
+		long moveBytes = 0;
+		long numMoves = 0;
+		Direction[] directions = Direction.values();
+		long openNanos = 0;
+		long openBytes = 0;
+		long numOpenChecks = 0;
+		int numOpen = 0;
+		for (int round=0; round<WARMUP_ROUNDS + MOVE_ROUNDS; round++)
+		{
+			long startBytes = allocatedBytes();
+			long startTime = System.nanoTime();
+			walkPath(myMaze, path);
+			long elapsed = System.nanoTime() - startTime;
+			long allocated = allocatedBytes() - startBytes;
+
+			//we are back at the goal - ask about every direction a few times
+			long openStartBytes = allocatedBytes();
+			long openStart = System.nanoTime();
+			for (int i=0; i<path.size(); i++)
+				for (Direction direction : directions)
+					if (myMaze.isOpen(direction))
+						numOpen++;
+			long openElapsed = System.nanoTime() - openStart;
+			long openAllocated = allocatedBytes() - openStartBytes;
+
+			if (round >= WARMUP_ROUNDS)
+			{
+				moveNanos += elapsed;
+				moveBytes += allocated;
+				numMoves += 2L * path.size();
+				openNanos += openElapsed;
+				openBytes += openAllocated;
+				numOpenChecks += 4L * path.size();
+			}
+		}
+
+		report("move", numRows, numCols, seed, (double)moveNanos / numMoves, "ns/move",
+				(double)moveBytes / numMoves, "B/move");
+		report("isOpen", numRows, numCols, seed, (double)openNanos / numOpenChecks, "ns/call",
+				(double)openBytes / numOpenChecks, "B/call");
+		blackhole = numOpen;
+	}
+
+	//walkPath - moves from the goal back to the start along the path, and then forward to the goal again
+	private static void walkPath(Maze aMaze, ArrayList<Direction> path)
+	{
+		for (int i=path.size()-1; i>=0; i--)
+			aMaze.move(opposite(path.get(i)));
+		for (int i=0; i<path.size(); i++)
+			aMaze.move(path.get(i));
+	}
+
+	//benchmarkPaint - paints the maze into an offscreen image the size of the MazeDisplay's window, through a
+	//                 MazeViewport fitted to the maze just as the display's is (so a big maze is drawn from its mipmap)
+	private static void benchmarkPaint(int numRows, int numCols, long seed)
+	{
+		Maze myMaze = builtMaze(numRows, numCols, seed);
+
+		long buildStartBytes = allocatedBytes();
+		long startTime = System.nanoTime();
+		MazeMipmap mipmap = new MazeMipmap(myMaze);
+		long buildNanos = System.nanoTime() - startTime;
+		long buildBytes = allocatedBytes() - buildStartBytes;
+
+		MazeViewport viewport = new MazeViewport(myMaze, mipmap, PAINT_WIDTH, PAINT_HEIGHT);
+		java.awt.image.BufferedImage cellLayer = new java.awt.image.BufferedImage(PAINT_WIDTH, PAINT_HEIGHT,
+				java.awt.image.BufferedImage.TYPE_INT_RGB);
+		java.awt.image.BufferedImage wallLayer = new java.awt.image.BufferedImage(PAINT_WIDTH, PAINT_HEIGHT,
+				java.awt.image.BufferedImage.TYPE_INT_ARGB);
+
+		long totalNanos = 0;
+		long totalBytes = 0;
+		for (int frame=0; frame<WARMUP_ROUNDS + PAINT_FRAMES; frame++)
+		{
+			long startBytes = allocatedBytes();
+			startTime = System.nanoTime();
+			viewport.render(cellLayer, wallLayer);
+			if (frame >= WARMUP_ROUNDS)
+			{
+				totalNanos += System.nanoTime() - startTime;
+				totalBytes += allocatedBytes() - startBytes;
+			}
+		}
+
+		//the mipmap is built on the pool's threads, so only this thread's share of its allocations is counted
+		report("mipmap", numRows, numCols, seed, buildNanos / 1e6, "ms/build",
+				(double)buildBytes / ((long)numRows * numCols), "B/cell");
+		report("paint", numRows, numCols, seed, totalNanos / 1e6 / PAINT_FRAMES, "ms/frame",
+				(double)totalBytes / PAINT_FRAMES, "B/frame");
+	}
+
+	//benchmarkTreeIndex - builds a MazeTreeIndex and times distance queries between random pairs of cells
+	private static void benchmarkTreeIndex(int numRows, int numCols, long seed)
+	{
+		Maze myMaze = builtMaze(numRows, numCols, seed);
+
+		long buildStartBytes = allocatedBytes();
+		long startTime = System.nanoTime();
+		MazeTreeIndex index = new MazeTreeIndex(myMaze.getGrid());
+		long buildNanos = System.nanoTime() - startTime;
+		long buildBytes = allocatedBytes() - buildStartBytes;
+
+		//the query cells are chosen up front, so only the queries themselves are timed
+		Random gen = new Random(seed);
+		int[] cells = new int[4096];
+		for (int i=0; i<cells.length; i++)
+			cells[i] = gen.nextInt(numRows*numCols);
+
+		long queryNanos = 0;
+		long queryBytes = 0;
+		long totalDistance = 0;
+		for (int round=0; round<2; round++)   //the first round is the warmup
+		{
+			long startBytes = allocatedBytes();
+			startTime = System.nanoTime();
+			for (int i=0; i<INDEX_QUERIES; i++)
+			{
+				int a = cells[i & (cells.length-1)];
+				int b = cells[(i*7 + 1) & (cells.length-1)];
+				totalDistance += index.distance(a / numCols, a % numCols, b / numCols, b % numCols);
+			}
+			queryNanos = System.nanoTime() - startTime;
+			queryBytes = allocatedBytes() - startBytes;
+		}
+		blackhole = (int)totalDistance;
+
+		report("index", numRows, numCols, seed, buildNanos / 1e6, "ms/build",
+				(double)buildBytes / ((long)numRows * numCols), "B/cell");
+		report("query", numRows, numCols, seed, (double)queryNanos / INDEX_QUERIES, "ns/query",
+				(double)queryBytes / INDEX_QUERIES, "B/query");
+	}
+
+	//benchmarkCursors - solves random start/goal pairs on one shared maze from every core at once, each solver
+	//                   walking its own MazeCursor, and reports how many solves per second they manage together
+	private static void benchmarkCursors(int numRows, int numCols, long seed)
+	{
+		final Maze myMaze = builtMaze(numRows, numCols, seed);
+		int numThreads = Runtime.getRuntime().availableProcessors();
+		Thread[] threads = new Thread[numThreads];
+
+		long startTime = System.nanoTime();
+		for (int t=0; t<numThreads; t++)
+		{
+			final Random gen = new Random(seed + t);
+			threads[t] = new Thread(new Runnable()
+			{
+				public void run()
+				{
+					for (int i=0; i<SOLVES_PER_THREAD; i++)
+					{
+						MazeCursor cursor = myMaze.newCursor(gen.nextInt(myMaze.getNumRows()), gen.nextInt(myMaze.getNumCols()),
+								gen.nextInt(myMaze.getNumRows()), gen.nextInt(myMaze.getNumCols()));
+						new MazeSolver(cursor).solveFully();
+					}
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads)
+		{
+			try{ thread.join(); }
+			catch(InterruptedException ex) { Thread.currentThread().interrupt(); return; }
+		}
+		long totalNanos = System.nanoTime() - startTime;
+
+		//allocations happen on the solver threads, so there is nothing to report in the alloc/op column
+		System.out.println(String.format("%-6s %11s %6d %14.3f %-12s %s", "cursor", numRows + "x" + numCols, seed,
+				numThreads * SOLVES_PER_THREAD / (totalNanos / 1e9), "solves/s", "(" + numThreads + " threads)"));
+	}
+
+	//newMaze - returns a maze of the given size that will be built with the given seed
+	private static Maze newMaze(int numRows, int numCols, long seed)
+	{
+		Maze myMaze = new Maze(numRows, numCols);
+		myMaze.setSeed(seed);
+		return myMaze;
+	}
+
+	//builtMaze - returns a maze of the given size that has already been built with the given seed
+	private static Maze builtMaze(int numRows, int numCols, long seed)
+	{
+		Maze myMaze = newMaze(numRows, numCols, seed);
+		myMaze.buildMaze();
+		return myMaze;
+	}
+
+	//opposite - returns the Direction that undoes a move in the given Direction
+	private static Direction opposite(Direction direction)
+	{
+		if (direction == Direction.UP)
+			return Direction.DOWN;
+		else if (direction == Direction.DOWN)
+			return Direction.UP;
+		else if (direction == Direction.LEFT)
+			return Direction.RIGHT;
+		else
+			return Direction.LEFT;
+	}
+
+	//benchmarkExport - exports the maze as a PNG (thrown away as it is written) and reports the megapixels per second
+	private static void benchmarkExport(int numRows, int numCols, long seed)
+	{
+		Maze myMaze = builtMaze(numRows, numCols, seed);
+		MazeExporter exporter = new MazeExporter(myMaze, EXPORT_CELL_DIM);
+		java.nio.channels.WritableByteChannel discard = java.nio.channels.Channels.newChannel(new OutputStream()
+		{
+			public void write(int b)
+			{
+			}
+
+			public void write(byte[] b, int off, int len)
+			{
+				blackhole += len;
+			}
+		});
+
+		long totalNanos = 0;
+		for (int round=0; round<WARMUP_ROUNDS + MEASURED_ROUNDS; round++)
+		{
+			long startTime = System.nanoTime();
+			try
+			{
+				exporter.writePng(discard);
+			}
+			catch (IOException ex)
+			{
+				throw new UncheckedIOException(ex);
+			}
+			if (round >= WARMUP_ROUNDS)
+				totalNanos += System.nanoTime() - startTime;
+		}
+
+		//the bands are rendered on the pool's threads, so there is nothing to report in the alloc/op column
+		System.out.println(String.format("%-6s %11s %6d %14.3f %-12s %s", "export", numRows + "x" + numCols, seed,
+				exporter.getMegapixels() * MEASURED_ROUNDS / (totalNanos / 1e9), "MP/s",
+				"(" + java.util.concurrent.ForkJoinPool.commonPool().getParallelism() + " threads)"));
+	}
+
+	//benchmarkCache - solves random start/goal pairs on one maze through a MazeSolutionCache: once to fill it (every
+	//                 lookup misses and is solved), then over and over (every lookup hits)
+	private static void benchmarkCache(int numRows, int numCols, long seed)
+	{
+		Maze myMaze = builtMaze(numRows, numCols, seed);
+		MazeSolutionCache cache = new MazeSolutionCache(CACHE_BYTES);
+
+		Random gen = new Random(seed);
+		int[][] pairs = new int[CACHE_PAIRS][];
+		for (int i=0; i<pairs.length; i++)
+			pairs[i] = new int[] {gen.nextInt(numRows), gen.nextInt(numCols), gen.nextInt(numRows), gen.nextInt(numCols)};
+
+		long startTime = System.nanoTime();
+		for (int[] pair : pairs)
+			blackhole += cache.solve(myMaze, pair[0], pair[1], pair[2], pair[3]).getPathLength();
+		long missNanos = System.nanoTime() - startTime;
+
+		long hitNanos = 0;
+		long hitBytes = 0;
+		for (int round=0; round<WARMUP_ROUNDS + CACHE_ROUNDS; round++)
+		{
+			long startBytes = allocatedBytes();
+			startTime = System.nanoTime();
+			for (int[] pair : pairs)
+				blackhole += cache.solve(myMaze, pair[0], pair[1], pair[2], pair[3]).getPathLength();
+			if (round >= WARMUP_ROUNDS)
+			{
+				hitNanos += System.nanoTime() - startTime;
+				hitBytes += allocatedBytes() - startBytes;
+			}
+		}
+
+		//the misses are solved on this thread, but their allocations are the solver's, so only the hits report them
+		System.out.println(String.format("%-6s %11s %6d %14.3f %-12s %s", "miss", numRows + "x" + numCols, seed,
+				missNanos / 1e3 / CACHE_PAIRS, "us/solve", "(" + cache.getBytes() + " B cached)"));
+		report("hit", numRows, numCols, seed, hitNanos / 1e3 / (CACHE_ROUNDS * CACHE_PAIRS), "us/solve",
+				(double)hitBytes / (CACHE_ROUNDS * CACHE_PAIRS), "B/solve");
+	}
+
+	//benchmarkBitboard - counts the dead ends, counts the cells with all their walls, and finds the cells that can be
+	//                    reached from the upper left corner, with a MazeBitboard and one cell at a time, and reports
+	//                    how long each pass takes both ways (the two must agree)
+	private static void benchmarkBitboard(int numRows, int numCols, long seed)
+	{
+		Maze myMaze = builtMaze(numRows, numCols, seed);
+		MazeGrid grid = myMaze.getGrid();
+		MazeBitboard bitboard = myMaze.getBitboard();
+
+		long[] scalarNanos = new long[3];
+		long[] bitboardNanos = new long[3];
+		for (int round=0; round<WARMUP_ROUNDS + MEASURED_ROUNDS; round++)
+		{
+			long[] nanos = new long[6];
+			long startTime = System.nanoTime();
+			long scalarDeadEnds = countDeadEnds(grid);
+			nanos[0] = System.nanoTime() - startTime;
+
+			startTime = System.nanoTime();
+			long deadEnds = bitboard.countDeadEnds();
+			nanos[1] = System.nanoTime() - startTime;
+
+			startTime = System.nanoTime();
+			long scalarIntact = countIntact(grid);
+			nanos[2] = System.nanoTime() - startTime;
+
+			startTime = System.nanoTime();
+			long intact = bitboard.countIntact();
+			nanos[3] = System.nanoTime() - startTime;
+
+			startTime = System.nanoTime();
+			boolean[] scalarReached = reachable(grid, 0, 0);
+			nanos[4] = System.nanoTime() - startTime;
+
+			startTime = System.nanoTime();
+			long[] reached = bitboard.reachable(0, 0);
+			nanos[5] = System.nanoTime() - startTime;
+
+			if (deadEnds != scalarDeadEnds || intact != scalarIntact)
+				throw new IllegalStateException("the bitboard counts " + deadEnds + " dead ends and " + intact +
+						" intact cells, but there are " + scalarDeadEnds + " and " + scalarIntact);
+			for (int row=0; row<numRows; row++)
+				for (int col=0; col<numCols; col++)
+					if (bitboard.contains(reached, row, col) != scalarReached[row*numCols + col])
+						throw new IllegalStateException("the bitboard does not agree whether <" + row + ", " + col + "> can be reached");
+
+			if (round >= WARMUP_ROUNDS)
+				for (int i=0; i<3; i++)
+				{
+					scalarNanos[i] += nanos[2*i];
+					bitboardNanos[i] += nanos[2*i + 1];
+				}
+			blackhole += (int)(deadEnds + intact);
+		}
+
+		String[] names = {"dead", "intact", "reach"};
+		for (int i=0; i<3; i++)
+			System.out.println(String.format("%-6s %11s %6d %14.3f %-12s %s", names[i], numRows + "x" + numCols, seed,
+					bitboardNanos[i] / 1e6 / MEASURED_ROUNDS, "ms/pass", String.format("(%.3f ms scalar, %.1fx)",
+					scalarNanos[i] / 1e6 / MEASURED_ROUNDS, (double)scalarNanos[i] / Math.max(1, bitboardNanos[i]))));
+	}
+
+	//benchmarkFill - solves the maze with a DeadEndFillingStrategy on pools of 1, 2, 4... threads (up to the number of
+	//                processors), and reports the time and the speedup over one thread; every path must be the same
+	//                as the depth first solver's (the maze is perfect, so there is only one)
+	private static void benchmarkFill(int numRows, int numCols, long seed)
+	{
+		Maze myMaze = builtMaze(numRows, numCols, seed);
+		ArrayList<Direction> expected = SolverStrategies.solve(new DepthFirstStrategy(), myMaze).getPath();
+
+		//1, 2, 4... threads, and always the number of processors last
+		int numProcessors = Runtime.getRuntime().availableProcessors();
+		ArrayList<Integer> threadCounts = new ArrayList<Integer>();
+		for (int numThreads=1; numThreads<numProcessors; numThreads*=2)
+			threadCounts.add(numThreads);
+		threadCounts.add(numProcessors);
+
+		double oneThreadNanos = 0;
+		for (int numThreads : threadCounts)
+		{
+			java.util.concurrent.ForkJoinPool pool = new java.util.concurrent.ForkJoinPool(numThreads);
+			try
+			{
+				DeadEndFillingStrategy strategy = new DeadEndFillingStrategy(pool, 0);
+				long totalNanos = 0;
+				for (int round=0; round<WARMUP_ROUNDS + MEASURED_ROUNDS; round++)
+				{
+					long startTime = System.nanoTime();
+					SolveResult result = SolverStrategies.solve(strategy, myMaze);
+					if (round >= WARMUP_ROUNDS)
+						totalNanos += System.nanoTime() - startTime;
+
+					if (!result.getPath().equals(expected))
+						throw new IllegalStateException("dead-end filling found a different path than the depth first solver");
+				}
+
+				double nanos = (double)totalNanos / MEASURED_ROUNDS;
+				if (numThreads == 1)
+					oneThreadNanos = nanos;
+				System.out.println(String.format("%-6s %11s %6d %14.3f %-12s %s", "fill", numRows + "x" + numCols, seed,
+						nanos / 1e6, "ms/solve", String.format("(%d threads, %.2fx)", numThreads, oneThreadNanos / nanos)));
+			}
+			finally
+			{
+				pool.shutdown();
+			}
+		}
+	}
+
+	//countDeadEnds - counts the cells with exactly one opening, one cell at a time
+	private static long countDeadEnds(MazeGrid grid)
+	{
+		long count = 0;
+		for (int row=0; row<grid.getNumRows(); row++)
+			for (int col=0; col<grid.getNumCols(); col++)
+			{
+				int numOpen = 0;
+				for (Direction direction : SolverStrategies.DIRECTIONS)
+					if (!grid.hasWall(row, col, direction))
+						numOpen++;
+				if (numOpen == 1)
+					count++;
+			}
+		return count;
+	}
+
+	//countIntact - counts the cells with all four walls, one cell at a time
+	private static long countIntact(MazeGrid grid)
+	{
+		long count = 0;
+		for (int row=0; row<grid.getNumRows(); row++)
+			for (int col=0; col<grid.getNumCols(); col++)
+				if (grid.allWallsIntact(row, col))
+					count++;
+		return count;
+	}
+
+	//reachable - finds the cells that can be reached from [startRow][startCol] with a breadth first search
+	private static boolean[] reachable(MazeGrid grid, int startRow, int startCol)
+	{
+		int numCols = grid.getNumCols();
+		boolean[] reached = new boolean[grid.getNumRows() * numCols];
+		int[] queue = new int[reached.length];
+		int head = 0;
+		int tail = 0;
+		reached[startRow*numCols + startCol] = true;
+		queue[tail++] = startRow*numCols + startCol;
+		while (head < tail)
+		{
+			int index = queue[head++];
+			int row = index / numCols;
+			int col = index % numCols;
+			for (Direction direction : SolverStrategies.DIRECTIONS)
+			{
+				int next = index + MazeGrid.rowChange(direction)*numCols + MazeGrid.colChange(direction);
+				if (!grid.hasWall(row, col, direction) && !reached[next])
+				{
+					reached[next] = true;
+					queue[tail++] = next;
+				}
+			}
+		}
+		return reached;
+	}
+
+	//report - prints one line of results
+	private static void report(String bench, int numRows, int numCols, long seed, double score, String unit,
+			double alloc, String allocUnit)
+	{
+		System.out.println(String.format("%-6s %11s %6d %14.3f %-12s %9.3f %s", bench, numRows + "x" + numCols, seed,
+				score, unit, alloc, allocUnit));
+	}
+
+	//allocatedBytes - returns how many bytes this thread has allocated so far (or 0 if the JVM cannot tell us)
+	private static long allocatedBytes()
+	{
+		ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		if (threadBean instanceof com.sun.management.ThreadMXBean)
+			return ((com.sun.management.ThreadMXBean)threadBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+		return 0;
+	}
+}//end of class
@@ -0,0 +1,282 @@
+/* This program keeps a copy of the walls of a built maze as bitboards: two bits per cell, 64
+    cells to a long, one row after another (each row starts a new long).
+        - right[row][word] has a bit set for every cell whose wall to the RIGHT is knocked down
+        - down[row][word]  has a bit set for every cell whose wall BELOW is knocked down
+    The openings to the left and above are the same bits shifted by one column, or taken from
+    the row above, so every question about a whole row - which cells are open on a side, which
+    are dead ends, which have all four walls - is a few shifts, masks and bit counts for every
+    64 cells, instead of four lookups (and four bounds checks) for every cell.  The whole-grid
+    passes are built on those:
+        - countDeadEnds / countIntact count the cells with exactly one opening, or none
+        - reachable finds every cell that can be reached from a cell, 64 cells at a time: the
+          cells reached in a long are spread along its open runs with a Kogge-Stone fill (six
+          shifts in each direction), then passed through the openings to the longs above, below
+          and beside it, until no long changes any more.  A perfect maze winds back and forth,
+          so a long is usually spread more than once; this is a few times faster than a search
+          one cell at a time, not the hundreds of times the counts are.
+    The walls of a maze never change once it is built, so the bitboards are made once (see
+    Maze.getBitboard) and can be read by any number of threads.
+ */
+
+public class MazeBitboard
+{
+	//-------data
+	private int numRows;
+	private int numCols;
+	private int wordsPerRow;
+	private long lastWordMask;   //the bits of the last long of a row that are cells
+	private long[ ] right;       //indexed by row * wordsPerRow + word
+	private long[ ] down;
+
+	//-------constructors
+	public MazeBitboard(MazeGrid grid)
+	{
+		numRows = grid.getNumRows();
+		numCols = grid.getNumCols();
+		wordsPerRow = (numCols + 63) >>> 6;
+		lastWordMask = (numCols % 64 == 0) ? -1L : (1L << (numCols % 64)) - 1;
+		if ((long)numRows * wordsPerRow > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("maze is too big for a bitboard: " + numRows + " x " + numCols);
+
+		right = new long[numRows * wordsPerRow];
+		down = new long[numRows * wordsPerRow];
+		for (int row=0; row<numRows; row++)
+			for (int col=0; col<numCols; col++)
+			{
+				int cell = grid.getCell(row, col);
+				long bit = 1L << col;   //(only the low 6 bits of col count)
+				if ((cell & MazeGrid.RIGHT_WALL) == 0)
+					right[row * wordsPerRow + (col >>> 6)] |= bit;
+				if ((cell & MazeGrid.DOWN_WALL) == 0)
+					down[row * wordsPerRow + (col >>> 6)] |= bit;
+			}
+	}
+
+	// **************** methods *******************************************
+
+	//-------- getNumRows - returns the number of rows of the maze
+	public int getNumRows()
+	{
+		return numRows;
+	}
+
+	//-------- getNumCols - returns the number of columns of the maze
+	public int getNumCols()
+	{
+		return numCols;
+	}
+
+	//-------- getWordsPerRow - returns how many longs a row of cells takes up (in a mask, and in a set of cells)
+	public int getWordsPerRow()
+	{
+		return wordsPerRow;
+	}
+
+	//-------- isOpen - returns true if the wall on the side of [aRow][aCol] that is passed in is knocked down
+	//                  (the border walls never are)
+	public boolean isOpen(int aRow, int aCol, Direction direction)
+	{
+		if (direction == Direction.UP)
+			return aRow > 0 && bit(down, aRow-1, aCol);
+		else if (direction == Direction.DOWN)
+			return bit(down, aRow, aCol);
+		else if (direction == Direction.LEFT)
+			return aCol > 0 && bit(right, aRow, aCol-1);
+		else
+			return bit(right, aRow, aCol);
+	}
+
+	//-------- openNeighbors - fills mask (wordsPerRow longs) with the cells of the row that are open on the side
+	//                         that is passed in
+	public void openNeighbors(int row, Direction direction, long[ ] mask)
+	{
+		for (int word=0; word<wordsPerRow; word++)
+			mask[word] = openWord(row, word, direction);
+	}
+
+	//-------- deadEnds - fills mask (wordsPerRow longs) with the cells of the row that have exactly one opening
+	public void deadEnds(int row, long[ ] mask)
+	{
+		for (int word=0; word<wordsPerRow; word++)
+			mask[word] = deadEndWord(row, word);
+	}
+
+	//-------- countDeadEnds - returns how many cells of the maze have exactly one opening
+	public long countDeadEnds()
+	{
+		long count = 0;
+		for (int row=0; row<numRows; row++)
+			for (int word=0; word<wordsPerRow; word++)
+				count += Long.bitCount(deadEndWord(row, word));
+		return count;
+	}
+
+	//-------- countIntact - returns how many cells of the maze still have all four walls
+	public long countIntact()
+	{
+		long count = 0;
+		for (int row=0; row<numRows; row++)
+			for (int word=0; word<wordsPerRow; word++)
+			{
+				long open = openWord(row, word, Direction.UP) | openWord(row, word, Direction.DOWN) |
+						openWord(row, word, Direction.LEFT) | openWord(row, word, Direction.RIGHT);
+				count += Long.bitCount(~open & validBits(word));
+			}
+		return count;
+	}
+
+	//-------- reachable - returns the set of cells that can be reached from [startRow][startCol] (one bit per cell,
+	//                     laid out like the bitboards; see contains and countCells)
+	public long[ ] reachable(int startRow, int startCol)
+	{
+		if (startRow < 0 || startRow >= numRows || startCol < 0 || startCol >= numCols)
+			throw new IllegalArgumentException("cell <" + startRow + ", " + startCol + "> is outside the maze");
+
+		int numWords = numRows * wordsPerRow;
+		long[ ] reached = new long[numWords];
+
+		//the longs with reached cells that have not been spread yet, in a ring buffer (each long is in it at most once)
+		int[ ] queue = new int[numWords];
+		long[ ] queued = new long[(numWords + 63) >>> 6];
+		int head = 0;
+		int size = 0;
+
+		int first = startRow * wordsPerRow + (startCol >>> 6);
+		reached[first] = 1L << startCol;
+		queue[size++] = first;
+		queued[first >>> 6] |= 1L << first;
+		long[ ] added = new long[4];
+		int[ ] neighbors = new int[4];
+		while (size > 0)
+		{
+			int index = queue[head];
+			head = (head == numWords - 1) ? 0 : head + 1;
+			size--;
+			queued[index >>> 6] &= ~(1L << index);
+
+			//spread the reached cells along the open runs of the long, then into the longs around it
+			long fill = fillWord(reached[index], right[index]);
+			reached[index] = fill;
+
+			int word = index % wordsPerRow;
+			java.util.Arrays.fill(added, 0);
+			neighbors[0] = index - wordsPerRow;
+			neighbors[1] = index + wordsPerRow;
+			neighbors[2] = index - 1;
+			neighbors[3] = index + 1;
+			if (index >= wordsPerRow)
+				added[0] = fill & down[index - wordsPerRow] & ~reached[index - wordsPerRow];
+			if (index + wordsPerRow < numWords)
+				added[1] = fill & down[index] & ~reached[index + wordsPerRow];
+			if (word > 0)
+				added[2] = ((fill & 1L) << 63) & right[index-1] & ~reached[index-1];
+			if (word < wordsPerRow - 1)
+				added[3] = ((fill & right[index]) >>> 63) & ~reached[index+1];
+
+			for (int i=0; i<4; i++)
+			{
+				if (added[i] == 0)
+					continue;
+
+				int neighbor = neighbors[i];
+				reached[neighbor] |= added[i];
+				if ((queued[neighbor >>> 6] & (1L << neighbor)) == 0)
+				{
+					queue[(head + size) % numWords] = neighbor;
+					size++;
+					queued[neighbor >>> 6] |= 1L << neighbor;
+				}
+			}
+		}
+		return reached;
+	}
+
+	//-------- contains - returns true if [aRow][aCol] is in the set of cells (for example, one returned by reachable)
+	public boolean contains(long[ ] cells, int aRow, int aCol)
+	{
+		return bit(cells, aRow, aCol);
+	}
+
+	//-------- countCells - returns how many cells are in the set
+	public static long countCells(long[ ] cells)
+	{
+		long count = 0;
+		for (long word : cells)
+			count += Long.bitCount(word);
+		return count;
+	}
+
+	//-------- fillWord - spreads the cells of fill along the open runs of a long (open has a bit set for every cell
+	//                    that is open to the right): to the right, then to the left, doubling the distance each step
+	private static long fillWord(long fill, long open)
+	{
+		long entry = open << 1;   //bit c: the cell can be entered from the cell to its left
+		fill |= entry & (fill << 1);
+		entry &= entry << 1;
+		fill |= entry & (fill << 2);
+		entry &= entry << 2;
+		fill |= entry & (fill << 4);
+		entry &= entry << 4;
+		fill |= entry & (fill << 8);
+		entry &= entry << 8;
+		fill |= entry & (fill << 16);
+		entry &= entry << 16;
+		fill |= entry & (fill << 32);
+
+		entry = open;   //bit c: the cell can be entered from the cell to its right
+		fill |= entry & (fill >>> 1);
+		entry &= entry >>> 1;
+		fill |= entry & (fill >>> 2);
+		entry &= entry >>> 2;
+		fill |= entry & (fill >>> 4);
+		entry &= entry >>> 4;
+		fill |= entry & (fill >>> 8);
+		entry &= entry >>> 8;
+		fill |= entry & (fill >>> 16);
+		entry &= entry >>> 16;
+		fill |= entry & (fill >>> 32);
+		return fill;
+	}
+
+	//-------- deadEndWord - returns the cells of the long that are open on exactly one side: with the four sides
+	//                       added up two at a time, a cell has one opening if the two sums differ in their low bit
+	//                       and neither pair had both open (and not both pairs had one)
+	private long deadEndWord(int row, int word)
+	{
+		long up = openWord(row, word, Direction.UP);
+		long below = openWord(row, word, Direction.DOWN);
+		long left = openWord(row, word, Direction.LEFT);
+		long toRight = openWord(row, word, Direction.RIGHT);
+
+		long vertical = up ^ below;
+		long horizontal = left ^ toRight;
+		long pairs = (up & below) | (left & toRight) | (vertical & horizontal);
+		return (vertical ^ horizontal) & ~pairs;
+	}
+
+	//-------- openWord - returns the cells of the long that are open on the side that is passed in
+	private long openWord(int row, int word, Direction direction)
+	{
+		int index = row * wordsPerRow + word;
+		if (direction == Direction.UP)
+			return (row > 0) ? down[index - wordsPerRow] : 0;
+		else if (direction == Direction.DOWN)
+			return down[index];
+		else if (direction == Direction.LEFT)
+			return (right[index] << 1) | ((word > 0) ? right[index-1] >>> 63 : 0);
+		else
+			return right[index];
+	}
+
+	//-------- validBits - returns the bits of the long that are cells (all of them, except in the last long of a row)
+	private long validBits(int word)
+	{
+		return (word == wordsPerRow - 1) ? lastWordMask : -1L;
+	}
+
+	//-------- bit - returns the bit of [aRow][aCol] in a set of cells
+	private boolean bit(long[ ] cells, int aRow, int aCol)
+	{
+		return (cells[aRow * wordsPerRow + (aCol >>> 6)] & (1L << aCol)) != 0;
+	}
+}//end of class
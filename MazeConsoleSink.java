@@ -0,0 +1,26 @@
+/*
+In this program, we will print the builds (and solves) as they happen, which the Maze itself used to do on every
+build: add it to the MazeMetrics to see them.
+*/
+
+public class MazeConsoleSink implements MazeMetrics.Sink
+{
+	//Methods
+	//buildStarted - announces the build
+	public void buildStarted(int numRows, int numCols)
+	{
+		System.out.println("\nbeginning to build the maze with " + numRows + " rows, " + numCols + " cols");
+	}
+
+	//buildFinished - announces that the build is over, and how long it took
+	public void buildFinished(int numRows, int numCols, long elapsedNanos)
+	{
+		System.out.println("finished building the maze (" + (elapsedNanos / 1000000) + " ms)\n");
+	}
+
+	//solveFinished - prints the result
+	public void solveFinished(SolveResult result)
+	{
+		System.out.println("solved the maze: " + result);
+	}
+}//end of class
@@ -0,0 +1,132 @@
+/* This program implements a MazeCursor: one independent position in a maze that has already
+    been built.  The cursor only reads the walls of the (frozen) MazeGrid; its position, its goal
+    and the marks of the path it has walked are all its own.  So unlike the Maze's single current
+    cell, any number of cursors can walk the same maze at the same time - from different threads,
+    without copying the grid and without any locks.  A single cursor is not meant to be shared
+    between threads.
+ */
+
+public class MazeCursor implements MazeWalker, java.io.Serializable
+{
+	//-------constants
+	//pinned, since a MazeSolver that walks a cursor saves it with the game (as its myWalker)
+	private static final long serialVersionUID = 5975881453137405835L;
+
+	//-------data
+	private final MazeGrid grid;
+	private final int goalRow;
+	private final int goalCol;
+	private int currentRow;
+	private int currentCol;
+
+	//the cells (row*numCols+col) on the path from the start to the current cell
+	private java.util.BitSet pathMarks;
+
+	//-------constructors
+	public MazeCursor(MazeGrid aGrid, int startRow, int startCol, int goalRow, int goalCol)
+	{
+		if (aGrid == null)
+			throw new IllegalArgumentException("trying to create a MazeCursor with a null grid");
+
+		//reading the volatile frozen flag is also what makes the walls visible to this thread
+		if (!aGrid.isFrozen())
+			throw new IllegalStateException("cannot create a cursor - the maze has not been built yet");
+		if (!aGrid.inMaze(startRow, startCol))
+			throw new IllegalArgumentException("start <" + startRow + ", " + startCol + "> is outside the maze");
+		if (!aGrid.inMaze(goalRow, goalCol))
+			throw new IllegalArgumentException("goal <" + goalRow + ", " + goalCol + "> is outside the maze");
+
+		grid = aGrid;
+		this.goalRow = goalRow;
+		this.goalCol = goalCol;
+		currentRow = startRow;
+		currentCol = startCol;
+
+		pathMarks = new java.util.BitSet();
+		pathMarks.set(currentRow*grid.getNumCols() + currentCol);
+	}
+
+	// **************** methods *******************************************
+
+	//-------- getGrid - returns the grid this cursor walks on
+	public MazeGrid getGrid()
+	{
+		return grid;
+	}
+
+	//-------- getNumRows - returns the number of (real) rows in the maze
+	public int getNumRows()
+	{
+		return grid.getNumRows();
+	}
+
+	//-------- getNumCols - returns the number of (real) columns in the maze
+	public int getNumCols()
+	{
+		return grid.getNumCols();
+	}
+
+	//-------- getCurrentRow - returns the current (real) row
+	public int getCurrentRow()
+	{
+		return currentRow;
+	}
+
+	//-------- getCurrentCol - returns the current (real) col
+	public int getCurrentCol()
+	{
+		return currentCol;
+	}
+
+	//-------- getGoalRow - returns the (real) row of the goal
+	public int getGoalRow()
+	{
+		return goalRow;
+	}
+
+	//-------- getGoalCol - returns the (real) col of the goal
+	public int getGoalCol()
+	{
+		return goalCol;
+	}
+
+	//-------- isOpen - returns true if there is no wall in the direction that is passed in
+	public boolean isOpen(Direction direction)
+	{
+		return !grid.hasWall(currentRow, currentCol, direction);
+	}
+
+	//-------- isOnPath - returns true if [aRow][aCol] is on this cursor's path from its start to its current cell
+	public boolean isOnPath(int aRow, int aCol)
+	{
+		return pathMarks.get(aRow*grid.getNumCols() + aCol);
+	}
+
+	//-------- move - moves one cell in the direction that is passed in, if there is no wall in the way.
+	//                Moving back onto the path retreats from the current cell, just like Maze.move does.
+	public boolean move(Direction direction)
+	{
+		if (!isOpen(direction))
+			throw new IllegalArgumentException("trying to move " + direction + " from cell <" + currentRow + ", " +
+					currentCol + "> and there is a wall in the way");
+
+		int newRow = currentRow + MazeGrid.rowChange(direction);
+		int newCol = currentCol + MazeGrid.colChange(direction);
+		int numCols = grid.getNumCols();
+
+		//if the new cell is already on the path, then we are retreating from the current cell
+		if (pathMarks.get(newRow*numCols + newCol))
+			pathMarks.clear(currentRow*numCols + currentCol);
+
+		currentRow = newRow;
+		currentCol = newCol;
+		pathMarks.set(currentRow*numCols + currentCol);
+		return true;
+	}
+
+	//-------- goalReached - returns true if the cursor is on its goal
+	public boolean goalReached()
+	{
+		return (currentRow == goalRow && currentCol == goalCol);
+	}
+}
@@ -1,70 +1,68 @@
-// This class implements a JFrame which will display a Maze (written to combine walls and data)
-
-public class MazeDisplay extends javax.swing.JFrame implements Runnable, java.io.Serializable
+// This class implements a JFrame which will display a Maze (written to combine walls and data).  Nothing is drawn
+// unless the maze changes: the walls are drawn once, into an image of their own, and every time the Maze moves only
+// the cells it changed are redrawn - at most once a frame, on the event dispatch thread - so an idle display costs
+// no CPU at all.  Only the part of the maze in the window is drawn (see MazeViewport): drag it with the mouse to
+// move around, turn the mouse wheel to zoom in and out, and press Home to see the whole maze again.  Zoomed far out,
+// every pixel is a block of cells (from a MazeMipmap), so even a maze of billions of cells can be watched live.
+
+public class MazeDisplay extends javax.swing.JFrame implements MazeListener, java.io.Serializable
 {
 	//------------ constants
 	private final int START_WIDTH = 700;
 	private final int START_HEIGHT = 500;
-	private final int ANIMATIONDELAY = 0;	//Animation display rate (in milliseconds), so 20fps
+	private final int FRAME_DELAY = 16;	//the shortest time between two frames (in milliseconds), so about 60fps
+	private final int MAX_DIRTY_CELLS = 4096;	//when more cells than this change in one frame, all of them are redrawn
 
 	//------------ data
-	private int cellDim;
-	private int[ ][ ] mazeArray;
-	private int numArrayRows;
-	private int numArrayCols;
-
-	private java.awt.Graphics g;
-	private Thread animationThread;
-	private java.awt.Insets insets;
+	private Maze myMaze;
+
+	private MazePanel panel;
+	private transient MazeMipmap mipmap;
+	private transient MazeViewport viewport;	//which part of the maze is in the window, and how closely
+	private transient java.awt.image.BufferedImage cellLayer;	//the cells in the window, in the color of their state
+	private transient java.awt.image.BufferedImage wallLayer;	//their walls, on a transparent background
+	private transient javax.swing.Timer frameTimer;
+
+	//the cells (row*numCols+col) that changed since the last frame.  They are added on the thread that moves the maze
+	//and taken on the event dispatch thread, so they are only touched while holding dirtyLock.
+	private final Object dirtyLock = new Object();
+	private long[] dirtyCells = new long[64];
+	private long[] drawingCells = new long[64];
+	private int numDirty;
+	private boolean allDirty;
+	private boolean frameScheduled;
 
 	//-----------  constructor(s)
-	// Parameterized constructor which receives an int that is the landscapeID
+	// Parameterized constructor which receives the Maze to display
 	public MazeDisplay(Maze aMaze)
 	{
 		//if aMaze is null, throw an exception
 		if (aMaze == null)
 			throw new IllegalArgumentException("trying to create a MazeDisplay with a null Maze");
 
-		//store the reference to aMaze's mazeArray to be used in the display
-		mazeArray = aMaze.getMazeArray();
-
-		//isolate the number of rows and the number of columns in the mazeArray
-		numArrayRows = mazeArray.length;
-		numArrayCols = mazeArray[0].length;
+		//store the reference to aMaze to be used in the display
+		myMaze = aMaze;
 
-		//get the number of "real" rows and cols tht the Maze has
-		int numRealRows = numArrayRows/2;
-		int numRealCols= numArrayCols/2;
+		//the mipmap starts listening to the maze before the display does, so it is up to date when a frame is drawn
+		mipmap = new MazeMipmap(aMaze);
 
-		//calculate the optimum size of one cell
-		int calcWidth = START_WIDTH/numRealCols;
-		int calcHeight = START_HEIGHT/numRealRows;
-		cellDim = Math.min(calcWidth, calcHeight);
-
-		//but if the cellDim is < 2 pixels, then it is too small to draw
-		if (cellDim < 2)
-			throw new IllegalArgumentException("maze has too many rows/cols to draw");
+		//fit the maze into the starting size, then shrink the window to the maze if it is smaller than that
+		viewport = new MazeViewport(aMaze, mipmap, START_WIDTH, START_HEIGHT);
+		int width = (int)Math.min(START_WIDTH, viewport.getMazeWidth());
+		int height = (int)Math.min(START_HEIGHT, viewport.getMazeHeight());
+		viewport.setSize(width, height);
+		viewport.fit();
 
 		//set the JFrame attributes
 		 setTitle("THE MAZE SOLVER");
 		setDefaultCloseOperation( javax.swing.JFrame.EXIT_ON_CLOSE);
-		setSize(numRealCols*cellDim+7,numRealRows*cellDim+1+28); //add one for last border, subtract 38 for title bar, borders
+		panel = new MazePanel(width, height);
+		setContentPane(panel);
+		pack();
 		center();
-		setResizable(false);
 		setAlwaysOnTop(true);
 		setVisible(true);
 
-		// use those values to determine the greeny and the orangey
-		insets = getInsets();
-
-		// add a WindowListener
-		addWindowListener(new java.awt.event.WindowAdapter()
-						  {public void windowClosing(java.awt.event.WindowEvent e)
-						  { System.exit(0);}});
-
-		// get the Graphics object that will be used to write to this JFrame;
-		g = getGraphics();
-
 		// Anonymous inner class window listener to terminate the program.
 		this.addWindowListener(new java.awt.event.WindowAdapter()
 		{
@@ -75,33 +73,138 @@ public class MazeDisplay extends javax.swing.JFrame implements Runnable, java.io
 		}
 		);
 
-		// Create and start animation thread
-		animationThread = new Thread(this);
-		animationThread.start();
+		// a frame is drawn FRAME_DELAY milliseconds after the first change since the last one, so however fast the
+		// maze moves, the display is never redrawn more often than that
+		frameTimer = new javax.swing.Timer(FRAME_DELAY, new java.awt.event.ActionListener()
+		{
+			public void actionPerformed(java.awt.event.ActionEvent e)
+			{
+				drawFrame();
+			}
+		});
+		frameTimer.setRepeats(false);
 
+		// and start listening to the maze
+		aMaze.addMazeListener(this);
 	}
 
 	//-----------  methods(s)
 
-	// run will actually run this Frame
-	public void run()
+	// moved - remembers the two cells the move changed, and makes sure a frame is coming to draw them
+	public void moved(Maze aMaze, int fromRow, int fromCol, int toRow, int toCol)
+	{
+		cellsChanged(aMaze, fromRow, fromCol, toRow, toCol);
+	}
+
+	// backtracked - the same as a move forward: both cells are drawn again
+	public void backtracked(Maze aMaze, int fromRow, int fromCol, int toRow, int toCol)
+	{
+		cellsChanged(aMaze, fromRow, fromCol, toRow, toCol);
+	}
+
+	// wallKnockedDown - does nothing (the display is only made once the maze has been built)
+	public void wallKnockedDown(Maze aMaze, int row, int col, Direction direction)
+	{
+	}
+
+	// cellVisited - does nothing (the display is only made once the maze has been built)
+	public void cellVisited(Maze aMaze, int row, int col)
 	{
-		//Loop, sleep, and update sprite positions once each ANIMATIONDELAY milliseconds
-		long time = System.currentTimeMillis();
-		while (true) //infinite loop
+	}
+
+	// cellsChanged - remembers the two cells, and makes sure a frame is coming to draw them
+	private void cellsChanged(Maze aMaze, int fromRow, int fromCol, int toRow, int toCol)
+	{
+		long numCols = aMaze.getNumCols();
+		synchronized (dirtyLock)
+		{
+			markDirty(fromRow*numCols + fromCol);
+			markDirty(toRow*numCols + toCol);
+			if (frameScheduled)
+				return;
+			frameScheduled = true;
+		}
+
+		// the timer is only ever started from the event dispatch thread
+		javax.swing.SwingUtilities.invokeLater(new Runnable()
 		{
-			paint(g);
-			try
+			public void run()
 			{
-				time += ANIMATIONDELAY;
-				Thread.sleep(Math.max(0,time - System.currentTimeMillis()));
+				frameTimer.start();
 			}
-			catch (InterruptedException e)
-			{
-				System.out.println(e);
-			}//end catch
-		}//end while loop
-	}//end run method
+		});
+	}
+
+	// markDirty - adds a cell to the ones the next frame draws (the caller holds dirtyLock)
+	private void markDirty(long cell)
+	{
+		if (allDirty)
+			return;
+		if (numDirty == MAX_DIRTY_CELLS)
+		{
+			allDirty = true;
+			return;
+		}
+
+		if (numDirty == dirtyCells.length)
+			dirtyCells = java.util.Arrays.copyOf(dirtyCells, 2*dirtyCells.length);
+		dirtyCells[numDirty++] = cell;
+	}
+
+	// drawFrame - (on the event dispatch thread) redraws the cells that changed into the cell layer, and asks for
+	//             just their part of the window to be repainted
+	private void drawFrame()
+	{
+		int numToDraw;
+		boolean drawAll;
+		synchronized (dirtyLock)
+		{
+			// swap the lists, so the maze can keep moving while this frame is drawn
+			long[] temp = drawingCells;
+			drawingCells = dirtyCells;
+			dirtyCells = temp;
+			numToDraw = numDirty;
+			drawAll = allDirty;
+			numDirty = 0;
+			allDirty = false;
+			frameScheduled = false;
+		}
+
+		// (the timer can go off before the window has been painted for the first time, when there are no layers yet)
+		if (drawAll || cellLayer == null)
+		{
+			drawView();
+			return;
+		}
+
+		int numCols = myMaze.getNumCols();
+		java.awt.Graphics layerGraphics = cellLayer.getGraphics();
+		for (int i=0; i<numToDraw; i++)
+		{
+			// (cells outside the window are not drawn at all)
+			java.awt.Rectangle changed = viewport.renderCell(layerGraphics, (int)(drawingCells[i] / numCols), (int)(drawingCells[i] % numCols));
+			if (changed != null)
+				panel.repaint(changed);
+		}
+		layerGraphics.dispose();
+	}
+
+	// drawView - (on the event dispatch thread) draws everything in the window again, after the view moved or the
+	//            window changed size
+	private void drawView()
+	{
+		int width = Math.max(1, panel.getWidth());
+		int height = Math.max(1, panel.getHeight());
+		if (cellLayer == null || cellLayer.getWidth() != width || cellLayer.getHeight() != height)
+		{
+			viewport.setSize(width, height);
+			cellLayer = new java.awt.image.BufferedImage(width, height, java.awt.image.BufferedImage.TYPE_INT_RGB);
+			wallLayer = new java.awt.image.BufferedImage(width, height, java.awt.image.BufferedImage.TYPE_INT_ARGB);
+		}
+
+		viewport.render(cellLayer, wallLayer);
+		panel.repaint();
+	}
 
 	// center - will set the x and y of this Frame to the center of the screen
 	private void center()
@@ -149,93 +252,105 @@ public class MazeDisplay extends javax.swing.JFrame implements Runnable, java.io
 		//repaint();
 	}
 
-	//------------------------------------------------
-	public void update(java.awt.Graphics g)
-	{
-		repaint();
-	}
-
-
-
 	//------------------------------------------------
 	public void actionPerformed(java.awt.event.ActionEvent e)
 	{
 	}
 
-	// paint - repaints the whole Maze.  Uses "double-buffering" to eliminate flickering.
-	public void paint(java.awt.Graphics g)
-	{
-		// create an image - we will "double buffer" (draw to that image first and then
-		// draw the image) to eliminate flickering
-		java.awt.Image image = createImage(getWidth(), getHeight());
-    	java.awt.Graphics graphicsBuffer = image.getGraphics();
+	//***********************************************************************
 
-    	// fill the image with the background color
-    	//graphicsBuffer.setColor(Color.WHITE);
-       	//graphicsBuffer.fillRect(12, 12, getWidth()-24, getHeight()-24);
+	// MazePanel shows the two layers: the cells, with the walls on top of them.  Swing clips the painting to the part
+	// of the panel that was repainted, so only the pixels of the cells that changed are copied.  It also turns the
+	// mouse and the keys into moves of the view.
+	private class MazePanel extends javax.swing.JPanel
+	{
+		private static final long serialVersionUID = -4765348142908660239L;
 
+		private int lastX;
+		private int lastY;
 
-		graphicsBuffer.setColor(java.awt.Color.BLACK);
+		public MazePanel(int width, int height)
+		{
+			setPreferredSize(new java.awt.Dimension(width, height));
+			setOpaque(true);
+			setFocusable(true);
 
-		for (int row=0; row<numArrayRows; row++)
-			for (int col=0; col<numArrayCols;col++)
+			java.awt.event.MouseAdapter mouse = new java.awt.event.MouseAdapter()
 			{
-				if (row%2==1 && col%2==1 && mazeArray[row][col] == 3)    //odd rows, odd cols are the actual cells
+				public void mousePressed(java.awt.event.MouseEvent e)
 				{
-					graphicsBuffer.setColor(java.awt.Color.MAGENTA);   //goal
-					int startx = getInsets().left + col/2 * cellDim;
-					int starty = getInsets().top + row/2 * cellDim;
-					graphicsBuffer.fillRect(startx, starty, cellDim, cellDim);
+					lastX = e.getX();
+					lastY = e.getY();
+					requestFocusInWindow();
 				}
-				if (row%2==1 && col%2==1 && mazeArray[row][col] == 2)    //odd rows, odd cols are the actual cells
+
+				public void mouseDragged(java.awt.event.MouseEvent e)
 				{
-					graphicsBuffer.setColor(java.awt.Color.YELLOW);   //current
-					int startx = getInsets().left + col/2 * cellDim;
-					int starty = getInsets().top + row/2 * cellDim;
-					graphicsBuffer.fillRect(startx, starty, cellDim, cellDim);
+					boolean moved = viewport.pan(e.getX() - lastX, e.getY() - lastY);
+					lastX = e.getX();
+					lastY = e.getY();
+					if (moved)
+						drawView();
 				}
-				else if (row%2==1 && col%2==1 && mazeArray[row][col] == 0)    //odd rows, odd cols are the actual cells
+
+				public void mouseWheelMoved(java.awt.event.MouseWheelEvent e)
 				{
-					graphicsBuffer.setColor(java.awt.Color.WHITE);   //current
-					int startx = getInsets().left + col/2 * cellDim;
-					int starty = getInsets().top + row/2 * cellDim;
-					graphicsBuffer.fillRect(startx, starty, cellDim, cellDim);
+					// rolling the wheel away from you zooms in
+					if (viewport.zoomAt(e.getX(), e.getY(), -e.getWheelRotation()))
+						drawView();
 				}
-			}
-
-		graphicsBuffer.setColor(java.awt.Color.BLACK);
+			};
+			addMouseListener(mouse);
+			addMouseMotionListener(mouse);
+			addMouseWheelListener(mouse);
 
-		for (int row=0; row<numArrayRows; row++)
-			for (int col=0; col<numArrayCols;col++)
+			addKeyListener(new java.awt.event.KeyAdapter()
 			{
-				if (row%2==0 && col%2==1 && mazeArray[row][col] == 1)    //even rows, odd cols are the horizontal walls
+				public void keyPressed(java.awt.event.KeyEvent e)
 				{
-					int startx = getInsets().left + col/2 * cellDim;
-					int endx = getInsets().left + col/2 * cellDim + cellDim;
-					int starty = getInsets().top + row/2 * cellDim;
-					int endy = getInsets().top + row/2 * cellDim;
-					graphicsBuffer.drawLine(startx, starty, endx, endy);
+					int step = Math.max(getWidth(), getHeight()) / 4;
+					boolean moved;
+					if (e.getKeyCode() == java.awt.event.KeyEvent.VK_HOME)
+					{
+						viewport.fit();
+						moved = true;
+					}
+					else if (e.getKeyCode() == java.awt.event.KeyEvent.VK_LEFT)
+						moved = viewport.pan(step, 0);
+					else if (e.getKeyCode() == java.awt.event.KeyEvent.VK_RIGHT)
+						moved = viewport.pan(-step, 0);
+					else if (e.getKeyCode() == java.awt.event.KeyEvent.VK_UP)
+						moved = viewport.pan(0, step);
+					else if (e.getKeyCode() == java.awt.event.KeyEvent.VK_DOWN)
+						moved = viewport.pan(0, -step);
+					else if (e.getKeyChar() == '+' || e.getKeyChar() == '=')
+						moved = viewport.zoomAt(getWidth()/2, getHeight()/2, 1);
+					else if (e.getKeyChar() == '-')
+						moved = viewport.zoomAt(getWidth()/2, getHeight()/2, -1);
+					else
+						return;
+					if (moved)
+						drawView();
 				}
+			});
 
-				else if (row%2==1 && col%2==0 && mazeArray[row][col] == 1)    //odd rows, even cols are the vertical walls
+			// the layers are made (again) whenever the panel changes size
+			addComponentListener(new java.awt.event.ComponentAdapter()
+			{
+				public void componentResized(java.awt.event.ComponentEvent e)
 				{
-					int startx = getInsets().left + col/2 * cellDim;
-					int endx = getInsets().left + col/2 * cellDim;
-					int starty = getInsets().top + row/2 * cellDim;
-					int endy = getInsets().top + row/2 * cellDim + cellDim;
-					graphicsBuffer.drawLine(startx, starty, endx, endy);
+					drawView();
 				}
-			}
-
-		// copy the image to the actual Frame
-		g.drawImage(image, 0, 0, java.awt.Color.WHITE, null);
-
-		repaint();
-
+			});
+		}
 
+		protected void paintComponent(java.awt.Graphics g)
+		{
+			if (cellLayer == null)
+				drawView();
+			g.drawImage(cellLayer, 0, 0, null);
+			g.drawImage(wallLayer, 0, 0, null);
+		}
 	}
 
 }
-
-
-
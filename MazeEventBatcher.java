@@ -0,0 +1,140 @@
+// This class is a MazeListener that collects the events of a Maze and hands them on to another listener in batches:
+// the Maze's thread only copies a few ints per event into an array, and every batchSize events (or when flush is
+// called) the whole array is played back to the other listener, in order.  With an Executor, the playing back
+// happens there instead of on the Maze's thread, so a slow listener (one that draws, or writes to a file) never
+// holds the Maze up.  The Executor has to run its tasks one at a time, in the order they were given to it (for
+// example, java.util.concurrent.Executors.newSingleThreadExecutor(), or java.awt.EventQueue.invokeLater).
+
+public class MazeEventBatcher implements MazeListener
+{
+	//------------ constants
+	private static final int WALL_KNOCKED_DOWN = 0;
+	private static final int CELL_VISITED = 1;
+	private static final int MOVED = 2;
+	private static final int BACKTRACKED = 3;
+	private static final int INTS_PER_EVENT = 5;	//what happened, then up to four numbers that go with it
+
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	//------------ data
+	private MazeListener target;
+	private int batchSize;
+	private java.util.concurrent.Executor executor;	//null to play the batches back on the Maze's thread
+	private Maze batchMaze;	//the Maze the events in the batch came from
+	private int[] events;
+	private int numEvents;
+
+	//-----------  constructor(s)
+	// Parameterized constructor which receives the listener to hand the events on to, and how many to a batch; the
+	// batches are played back on the thread that fills them
+	public MazeEventBatcher(MazeListener target, int batchSize)
+	{
+		this(target, batchSize, null);
+	}
+
+	// Parameterized constructor which also receives the Executor to play the batches back on
+	public MazeEventBatcher(MazeListener target, int batchSize, java.util.concurrent.Executor executor)
+	{
+		if (target == null)
+			throw new IllegalArgumentException("trying to create a MazeEventBatcher with a null MazeListener");
+		if (batchSize < 1)
+			throw new IllegalArgumentException("batch size must be > 0");
+
+		this.target = target;
+		this.batchSize = batchSize;
+		this.executor = executor;
+		events = new int[batchSize * INTS_PER_EVENT];
+	}
+
+	//-----------  methods(s)
+
+	//wallKnockedDown - adds the event to the batch
+	public void wallKnockedDown(Maze aMaze, int row, int col, Direction direction)
+	{
+		add(aMaze, WALL_KNOCKED_DOWN, row, col, direction.ordinal(), 0);
+	}
+
+	//cellVisited - adds the event to the batch
+	public void cellVisited(Maze aMaze, int row, int col)
+	{
+		add(aMaze, CELL_VISITED, row, col, 0, 0);
+	}
+
+	//moved - adds the event to the batch
+	public void moved(Maze aMaze, int fromRow, int fromCol, int toRow, int toCol)
+	{
+		add(aMaze, MOVED, fromRow, fromCol, toRow, toCol);
+	}
+
+	//backtracked - adds the event to the batch
+	public void backtracked(Maze aMaze, int fromRow, int fromCol, int toRow, int toCol)
+	{
+		add(aMaze, BACKTRACKED, fromRow, fromCol, toRow, toCol);
+	}
+
+	//flush - hands on the events that are waiting, without waiting for the batch to fill up (for example, when the
+	//        Maze has stopped moving for a while)
+	public synchronized void flush()
+	{
+		if (numEvents == 0)
+			return;
+
+		final Maze theMaze = batchMaze;
+		final int[] theEvents = events;
+		final int theNumEvents = numEvents;
+		numEvents = 0;
+
+		if (executor == null)
+			deliver(theMaze, theEvents, theNumEvents);   //the array can be filled again as soon as this returns
+		else
+		{
+			events = new int[batchSize * INTS_PER_EVENT];
+			executor.execute(new Runnable()
+			{
+				public void run()
+				{
+					deliver(theMaze, theEvents, theNumEvents);
+				}
+			});
+		}
+	}
+
+	//add - stores one event, and hands the batch on if it is full (a parallel build adds from several threads)
+	private synchronized void add(Maze aMaze, int kind, int a, int b, int c, int d)
+	{
+		// a batch only ever holds the events of one Maze
+		if (aMaze != batchMaze)
+		{
+			flush();
+			batchMaze = aMaze;
+		}
+
+		int i = numEvents * INTS_PER_EVENT;
+		events[i] = kind;
+		events[i+1] = a;
+		events[i+2] = b;
+		events[i+3] = c;
+		events[i+4] = d;
+		numEvents++;
+
+		if (numEvents == batchSize)
+			flush();
+	}
+
+	//deliver - plays a batch back to the target, one event at a time
+	private void deliver(Maze aMaze, int[] theEvents, int theNumEvents)
+	{
+		for (int i=0; i<theNumEvents*INTS_PER_EVENT; i+=INTS_PER_EVENT)
+		{
+			int kind = theEvents[i];
+			if (kind == WALL_KNOCKED_DOWN)
+				target.wallKnockedDown(aMaze, theEvents[i+1], theEvents[i+2], DIRECTIONS[theEvents[i+3]]);
+			else if (kind == CELL_VISITED)
+				target.cellVisited(aMaze, theEvents[i+1], theEvents[i+2]);
+			else if (kind == MOVED)
+				target.moved(aMaze, theEvents[i+1], theEvents[i+2], theEvents[i+3], theEvents[i+4]);
+			else
+				target.backtracked(aMaze, theEvents[i+1], theEvents[i+2], theEvents[i+3], theEvents[i+4]);
+		}
+	}
+}
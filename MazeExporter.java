@@ -0,0 +1,507 @@
+/*
+In this program, we will export a maze (and, if we are given one, the path that solves it) to a PNG or an SVG file
+without a display, so it also runs with -Djava.awt.headless=true.  The image is cut into bands - tiles that are as
+wide as the maze, and as many rows of cells tall as fit in about a megabyte (but at least one) - which are rendered in
+parallel and written out in order as they finish.  Only two bands per processor are ever in memory at once, so the
+memory used does not grow with the height of the maze, only with its width: a band is never less than a whole row of
+cells, and an image so wide that one row of cells does not fit in a band is refused.  It looks just like the MazeDisplay:
+cellDim pixels per cell, a one pixel wall line between the cells, and the same colors.
+For PNG, each band is compressed on its own (ending in a sync flush, so the compressed bands can be joined into one
+zlib stream) and the Adler-32 checksums of the bands are combined at the end, so even the compression is parallel.
+Run it as "MazeExporter rows cols cellDim fileName [seed] [strategy]"; a fileName ending in .svg is written as SVG.
+*/
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.zip.*;
+
+public class MazeExporter
+{
+	//Data
+	private static final int BAND_BYTES = 1 << 20;   //roughly how many uncompressed pixels go in one band
+	private static final int TILE_SIZE = 256;         //for building the maze in main
+	private static final int MAX_BAND_BYTES = 1 << 30;   //the most one band (one row of cells, if need be) can take
+	private static final int SVG_CELL_BYTES = 160;       //more than the SVG for one cell ever takes
+
+	//the palette: the index of each color is what a pixel holds
+	private static final int WHITE = 0;
+	private static final int BLACK = 1;
+	private static final int PATH = 2;
+	private static final int GOAL = 3;
+	private static final int SOLUTION = 4;
+	private static final java.awt.Color[] COLORS = { java.awt.Color.WHITE, java.awt.Color.BLACK,
+			MazeRenderer.cellColor(MazeGrid.PATH), MazeRenderer.cellColor(MazeGrid.GOAL), java.awt.Color.GREEN };
+
+	private static final byte[] PNG_SIGNATURE = { (byte)137, 80, 78, 71, 13, 10, 26, 10 };
+
+	private MazeGrid grid;
+	private int cellDim;
+	private int width;
+	private int height;
+	private int bandCellRows;
+	private int numBands;
+	private BitSet solution;
+	private ExecutorService pool;
+
+	//Constructor
+	//which will receive the maze and how many pixels wide each cell is; the bands are rendered on the common pool
+	public MazeExporter(Maze aMaze, int cellDim)
+	{
+		this(aMaze, cellDim, ForkJoinPool.commonPool());
+	}
+
+	//Constructor
+	//which will also receive the pool to render the bands on
+	public MazeExporter(Maze aMaze, int cellDim, ExecutorService pool)
+	{
+		if (aMaze == null || pool == null)
+			throw new IllegalArgumentException("trying to create a MazeExporter with a null Maze or pool");
+		if (cellDim < 2)
+			throw new IllegalArgumentException("cells must be at least 2 pixels wide to leave room for the walls");
+
+		grid = aMaze.getGrid();
+		this.cellDim = cellDim;
+		this.pool = pool;
+
+		long theWidth = (long)grid.getNumCols() * cellDim + 1;
+		long theHeight = (long)grid.getNumRows() * cellDim + 1;
+		if (theWidth > Integer.MAX_VALUE - 1 || theHeight > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("the image would be too big: " + theWidth + " x " + theHeight + " pixels");
+		width = (int)theWidth;
+		height = (int)theHeight;
+
+		//whole rows of cells go in a band, so even the thinnest band (with the bottom border, if it is the last) has to fit
+		long rowOfCellsBytes = (width + 1L) * (cellDim + 1);
+		if (rowOfCellsBytes > MAX_BAND_BYTES)
+			throw new IllegalArgumentException("the image is too wide: one row of cells would take " + rowOfCellsBytes +
+					" bytes to render, and a band can take at most " + MAX_BAND_BYTES);
+		bandCellRows = (int)Math.max(1, Math.min(grid.getNumRows(), BAND_BYTES / ((width + 1L) * cellDim)));
+		numBands = (grid.getNumRows() + bandCellRows - 1) / bandCellRows;
+	}
+
+	//Methods
+	//main - builds a maze, solves it with the strategy if one is given, and exports it, reporting the megapixels per second
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length < 4)
+			throw new IllegalArgumentException("usage: MazeExporter rows cols cellDim fileName [seed] [strategy]");
+
+		System.setProperty("java.awt.headless", "true");
+		int numRows = Integer.parseInt(args[0]);
+		int numCols = Integer.parseInt(args[1]);
+		int cellDim = Integer.parseInt(args[2]);
+		String fileName = args[3];
+
+		Maze myMaze = new Maze(numRows, numCols);
+		if (args.length > 4)
+			myMaze.setSeed(Long.parseLong(args[4]));
+		myMaze.buildMazeParallel(TILE_SIZE);
+
+		MazeExporter exporter = new MazeExporter(myMaze, cellDim);
+		if (args.length > 5)
+		{
+			SolveResult result = SolverStrategies.solve(SolverStrategies.forName(args[5]), myMaze);
+			exporter.setSolution(myMaze.getCurrentRow(), myMaze.getCurrentCol(), result.getPath());
+		}
+
+		long startTime = System.nanoTime();
+		FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		try
+		{
+			if (fileName.toLowerCase().endsWith(".svg"))
+				exporter.writeSvg(channel);
+			else
+				exporter.writePng(channel);
+		}
+		finally
+		{
+			channel.close();
+		}
+		long elapsed = System.nanoTime() - startTime;
+
+		System.out.println(exporter.getWidth() + " x " + exporter.getHeight() + " pixels in " + (elapsed / 1000000) + " ms, " +
+				String.format("%.1f", exporter.getMegapixels() / (elapsed / 1e9)) + " MP/s");
+	}
+
+	//getWidth - returns the width of the image in pixels
+	public int getWidth()
+	{
+		return width;
+	}
+
+	//getHeight - returns the height of the image in pixels
+	public int getHeight()
+	{
+		return height;
+	}
+
+	//getMegapixels - returns how many millions of pixels the image has
+	public double getMegapixels()
+	{
+		return (double)width * height / 1e6;
+	}
+
+	//setSolution - makes the cells on the path from [startRow][startCol] that follows the Directions stand out (null
+	//              for no path)
+	public void setSolution(int startRow, int startCol, List<Direction> path)
+	{
+		if (path == null)
+		{
+			solution = null;
+			return;
+		}
+		if ((long)grid.getNumRows() * grid.getNumCols() > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("the maze is too big to mark a path on");
+
+		int numCols = grid.getNumCols();
+		solution = new BitSet();
+		int row = startRow;
+		int col = startCol;
+		solution.set(row*numCols + col);
+		for (Direction direction : path)
+		{
+			row += MazeGrid.rowChange(direction);
+			col += MazeGrid.colChange(direction);
+			solution.set(row*numCols + col);
+		}
+	}
+
+	//writePng - writes the image as an 8 bit palette PNG
+	public void writePng(final WritableByteChannel channel) throws IOException
+	{
+		channel.write(ByteBuffer.wrap(PNG_SIGNATURE));
+
+		ByteBuffer header = ByteBuffer.allocate(13);
+		header.putInt(width).putInt(height).put((byte)8).put((byte)3).put((byte)0).put((byte)0).put((byte)0);
+		writeChunk(channel, "IHDR", header.array(), 13);
+
+		byte[] palette = new byte[3 * COLORS.length];
+		for (int i=0; i<COLORS.length; i++)
+		{
+			palette[3*i] = (byte)COLORS[i].getRed();
+			palette[3*i+1] = (byte)COLORS[i].getGreen();
+			palette[3*i+2] = (byte)COLORS[i].getBlue();
+		}
+		writeChunk(channel, "PLTE", palette, palette.length);
+
+		//the zlib header, then every band, then the Adler-32 of all the uncompressed bytes
+		writeChunk(channel, "IDAT", new byte[] { 0x78, (byte)0x9C }, 2);
+		final long[] adler = { 1 };
+		inOrder(new BandTask()
+		{
+			public Band render(int band)
+			{
+				return pngBand(band);
+			}
+		}, new BandSink()
+		{
+			public void write(Band band) throws IOException
+			{
+				writeChunk(channel, "IDAT", band.data, band.length);
+				adler[0] = adler32Combine(adler[0], band.adler, band.rawLength);
+			}
+		});
+		writeChunk(channel, "IDAT", ByteBuffer.allocate(4).putInt((int)adler[0]).array(), 4);
+
+		writeChunk(channel, "IEND", new byte[0], 0);
+	}
+
+	//writeSvg - writes the image as SVG: a rectangle for each run of cells that is not white, and a path for the walls
+	//           of each row of cells
+	public void writeSvg(final WritableByteChannel channel) throws IOException
+	{
+		if ((long)grid.getNumCols() * SVG_CELL_BYTES > MAX_BAND_BYTES)
+			throw new IllegalArgumentException("the maze is too wide for SVG: one row of cells could take more than " +
+					MAX_BAND_BYTES + " bytes");
+
+		writeAscii(channel, "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+				"<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"" + width + "\" height=\"" + height + "\" viewBox=\"0 0 " +
+				width + " " + height + "\" shape-rendering=\"crispEdges\">\n" +
+				"<rect width=\"" + width + "\" height=\"" + height + "\" fill=\"" + hex(WHITE) + "\"/>\n");
+
+		inOrder(new BandTask()
+		{
+			public Band render(int band)
+			{
+				return svgBand(band);
+			}
+		}, new BandSink()
+		{
+			public void write(Band band) throws IOException
+			{
+				channel.write(ByteBuffer.wrap(band.data, 0, band.length));
+			}
+		});
+
+		//the top and left borders are never stored in the grid, but they are always there
+		writeAscii(channel, "<path fill=\"none\" stroke=\"" + hex(BLACK) + "\" d=\"M0.5 0.5H" + (width - 1) + ".5M0.5 0.5V" +
+				(height - 1) + ".5\"/>\n</svg>\n");
+	}
+
+	//pngBand - renders the band's rows of pixels (each behind a "no filter" byte) and compresses them
+	private Band pngBand(int band)
+	{
+		int top = band * bandCellRows * cellDim;
+		int bottom = (band == numBands-1) ? height : top + bandCellRows * cellDim;
+		int rowBytes = width + 1;
+		byte[] raw = new byte[(int)((long)(bottom - top) * rowBytes)];   //at most MAX_BAND_BYTES (see the constructor)
+		for (int y=top; y<bottom; y++)
+			renderRow(y, raw, (y - top) * rowBytes + 1);   //the filter byte stays 0
+
+		Adler32 adler = new Adler32();
+		adler.update(raw, 0, raw.length);
+
+		//every band but the last ends on a byte boundary (sync flush) so the next band's data can follow it
+		Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+		deflater.setInput(raw);
+		boolean last = (band == numBands-1);
+		if (last)
+			deflater.finish();
+		byte[] out = new byte[Math.max(64, raw.length / 8)];
+		int length = 0;
+		while (true)
+		{
+			if (length == out.length)
+				out = Arrays.copyOf(out, 2*out.length);
+			length += deflater.deflate(out, length, out.length - length, last ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH);
+			if (last ? deflater.finished() : length < out.length)
+				break;
+		}
+		deflater.end();
+
+		return new Band(out, length, adler.getValue(), raw.length);
+	}
+
+	//svgBand - writes out the band's cells and walls as SVG elements
+	private Band svgBand(int band)
+	{
+		int numCols = grid.getNumCols();
+		int firstRow = band * bandCellRows;
+		int lastRow = Math.min(grid.getNumRows(), firstRow + bandCellRows);
+		StringBuilder svg = new StringBuilder();
+
+		for (int row=firstRow; row<lastRow; row++)
+		{
+			int y = row * cellDim;
+
+			//the cells, as runs of the same color
+			for (int col=0; col<numCols; )
+			{
+				int color = cellColorIndex(row, col);
+				int runEnd = col + 1;
+				while (runEnd < numCols && cellColorIndex(row, runEnd) == color)
+					runEnd++;
+				if (color != WHITE)
+					svg.append("<rect x=\"").append(col * cellDim).append("\" y=\"").append(y).append("\" width=\"")
+							.append((runEnd - col) * cellDim).append("\" height=\"").append(cellDim).append("\" fill=\"")
+							.append(hex(color)).append("\"/>\n");
+				col = runEnd;
+			}
+
+			//the walls, through the middle of the pixels they cover: the walls below as runs, then the walls to the right
+			svg.append("<path fill=\"none\" stroke=\"").append(hex(BLACK)).append("\" d=\"");
+			for (int col=0; col<numCols; )
+			{
+				if (!grid.hasWall(row, col, Direction.DOWN))
+				{
+					col++;
+					continue;
+				}
+				int runEnd = col + 1;
+				while (runEnd < numCols && grid.hasWall(row, runEnd, Direction.DOWN))
+					runEnd++;
+				svg.append('M').append(col * cellDim).append(".5 ").append(y + cellDim).append(".5H")
+						.append(runEnd * cellDim).append(".5");
+				col = runEnd;
+			}
+			for (int col=0; col<numCols; col++)
+				if (grid.hasWall(row, col, Direction.RIGHT))
+					svg.append('M').append((col + 1) * cellDim).append(".5 ").append(y).append(".5V")
+							.append(y + cellDim).append(".5");
+			svg.append("\"/>\n");
+		}
+
+		byte[] data = svg.toString().getBytes(java.nio.charset.StandardCharsets.US_ASCII);
+		return new Band(data, data.length, 0, 0);
+	}
+
+	//renderRow - writes the palette index of every pixel in pixel row y into row, starting at offset, drawing it the
+	//            way MazeRenderer.drawMaze does: the cells first, then the walls over them
+	private void renderRow(int y, byte[] row, int offset)
+	{
+		int numRows = grid.getNumRows();
+		int numCols = grid.getNumCols();
+		int cellRow = y / cellDim;
+		boolean onWallLine = (y % cellDim == 0);
+
+		//the top and bottom borders are walls all the way across
+		if (cellRow == 0 && onWallLine || cellRow == numRows)
+		{
+			Arrays.fill(row, offset, offset + width, (byte)BLACK);
+			return;
+		}
+
+		//the cells
+		for (int col=0; col<numCols; col++)
+			Arrays.fill(row, offset + col * cellDim, offset + (col + 1) * cellDim, (byte)cellColorIndex(cellRow, col));
+
+		//the walls below the row of cells above, which run along this pixel row
+		if (onWallLine)
+			for (int col=0; col<numCols; col++)
+				if (grid.hasWall(cellRow-1, col, Direction.DOWN))
+					Arrays.fill(row, offset + col * cellDim, offset + (col + 1) * cellDim + 1, (byte)BLACK);
+
+		//the left border, and the walls to the right of the cells (a wall line also gets the end of the walls above)
+		row[offset] = BLACK;
+		for (int col=0; col<numCols; col++)
+			if (grid.hasWall(cellRow, col, Direction.RIGHT) || (onWallLine && grid.hasWall(cellRow-1, col, Direction.RIGHT)))
+				row[offset + (col + 1) * cellDim] = BLACK;
+	}
+
+	//cellColorIndex - returns the palette index of the cell at [row][col]: the goal, then the solution, then its state
+	private int cellColorIndex(int row, int col)
+	{
+		int state = grid.getState(row, col);
+		if (state == MazeGrid.GOAL)
+			return GOAL;
+		else if (solution != null && solution.get(row * grid.getNumCols() + col))
+			return SOLUTION;
+		else if (state == MazeGrid.PATH)
+			return PATH;
+		else
+			return WHITE;
+	}
+
+	//inOrder - renders every band on the pool, a few at a time, and hands them to the sink in order
+	private void inOrder(final BandTask task, BandSink sink) throws IOException
+	{
+		int maxInFlight = 2 * Runtime.getRuntime().availableProcessors();
+		ArrayDeque<Future<Band>> inFlight = new ArrayDeque<Future<Band>>();
+		int nextBand = 0;
+
+		try
+		{
+			while (nextBand < numBands || !inFlight.isEmpty())
+			{
+				while (nextBand < numBands && inFlight.size() < maxInFlight)
+				{
+					final int band = nextBand++;
+					inFlight.add(pool.submit(new Callable<Band>()
+					{
+						public Band call()
+						{
+							return task.render(band);
+						}
+					}));
+				}
+				sink.write(inFlight.poll().get());
+			}
+		}
+		catch (InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("interrupted while exporting the maze");
+		}
+		catch (ExecutionException ex)
+		{
+			throw new IllegalStateException("could not render a band of the maze", ex.getCause());
+		}
+		finally
+		{
+			for (Future<Band> future : inFlight)
+				future.cancel(true);
+		}
+	}
+
+	//writeChunk - writes one PNG chunk: its length, its type, its data and the CRC of the type and the data
+	private static void writeChunk(WritableByteChannel channel, String type, byte[] data, int length) throws IOException
+	{
+		byte[] typeBytes = type.getBytes(java.nio.charset.StandardCharsets.US_ASCII);
+		CRC32 crc = new CRC32();
+		crc.update(typeBytes);
+		crc.update(data, 0, length);
+
+		ByteBuffer header = ByteBuffer.allocate(8);
+		header.putInt(length).put(typeBytes).flip();
+		ByteBuffer body = ByteBuffer.wrap(data, 0, length);
+		ByteBuffer trailer = ByteBuffer.allocate(4);
+		trailer.putInt((int)crc.getValue()).flip();
+		while (header.hasRemaining())
+			channel.write(header);
+		while (body.hasRemaining())
+			channel.write(body);
+		while (trailer.hasRemaining())
+			channel.write(trailer);
+	}
+
+	//writeAscii - writes the text to the channel
+	private static void writeAscii(WritableByteChannel channel, String text) throws IOException
+	{
+		ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(java.nio.charset.StandardCharsets.US_ASCII));
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+	}
+
+	//hex - returns the palette color as an SVG color, like #ff00ff
+	private static String hex(int colorIndex)
+	{
+		return String.format("#%06x", COLORS[colorIndex].getRGB() & 0xFFFFFF);
+	}
+
+	//adler32Combine - returns the Adler-32 of two blocks of bytes, one after the other, from the checksums of each of
+	//                 them and the length of the second one (the same arithmetic as zlib's adler32_combine)
+	private static long adler32Combine(long adler1, long adler2, long length2)
+	{
+		final long BASE = 65521;
+		long remainder = length2 % BASE;
+		long sum1 = adler1 & 0xFFFF;
+		long sum2 = (remainder * sum1) % BASE;
+		sum1 += (adler2 & 0xFFFF) + BASE - 1;
+		sum2 += ((adler1 >> 16) & 0xFFFF) + ((adler2 >> 16) & 0xFFFF) + BASE - remainder;
+		if (sum1 >= BASE)
+			sum1 -= BASE;
+		if (sum1 >= BASE)
+			sum1 -= BASE;
+		if (sum2 >= 2*BASE)
+			sum2 -= 2*BASE;
+		if (sum2 >= BASE)
+			sum2 -= BASE;
+		return sum1 | (sum2 << 16);
+	}
+
+	//***********************************************************************
+
+	//Band is one rendered band: its bytes (compressed, for PNG) and, for PNG, the checksum and length before compression
+	private static class Band
+	{
+		private byte[] data;
+		private int length;
+		private long adler;
+		private long rawLength;
+
+		public Band(byte[] data, int length, long adler, long rawLength)
+		{
+			this.data = data;
+			this.length = length;
+			this.adler = adler;
+			this.rawLength = rawLength;
+		}
+	}
+
+	//BandTask renders one band (on a pool thread)
+	private static interface BandTask
+	{
+		public Band render(int band);
+	}
+
+	//BandSink writes out the bands, in order (on the calling thread)
+	private static interface BandSink
+	{
+		public void write(Band band) throws IOException;
+	}
+}//end of class
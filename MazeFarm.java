@@ -0,0 +1,335 @@
+/*
+In this program, we will run many independent build-and-solve jobs at once.  Jobs are handed to a fixed pool of
+worker threads (one per core by default, since the work is all CPU); submit() blocks while too many jobs are already
+waiting or running, so a fast producer cannot run the farm out of memory.  Every result is handed to a ResultSink as
+soon as its job finishes, and close() reports the throughput and the p50/p99 latency of all the jobs.
+Run it as "MazeFarm rows cols count [strategy] [threads]" to stream one line per job to the console.
+*/
+
+import java.util.*;
+import java.util.concurrent.*;
+
+public class MazeFarm
+{
+	//Data
+	private ExecutorService workers;
+	private Semaphore inFlight;
+	private ResultSink sink;
+	private long startTime;
+	private long numFailed;
+	private long[] latencies = new long[1024];
+	private int numLatencies;
+
+	//Constructor
+	//which will receive the number of worker threads, how many jobs may be queued or running at once, and the sink
+	public MazeFarm(int numThreads, int maxInFlight, ResultSink sink)
+	{
+		if (numThreads < 1 || maxInFlight < 1)
+			throw new IllegalArgumentException("the farm needs at least one thread and one job in flight");
+		if (sink == null)
+			throw new IllegalArgumentException("trying to create a MazeFarm with a null sink");
+
+		workers = Executors.newFixedThreadPool(numThreads);
+		inFlight = new Semaphore(maxInFlight);
+		this.sink = sink;
+		startTime = System.nanoTime();
+	}
+
+	//Methods
+	//main - runs count jobs of the given size through a farm, printing each result and then the totals
+	public static void main(String[] args) throws InterruptedException
+	{
+		if (args.length < 3)
+			throw new IllegalArgumentException("usage: MazeFarm rows cols count [strategy] [threads]");
+
+		int numRows = Integer.parseInt(args[0]);
+		int numCols = Integer.parseInt(args[1]);
+		int count = Integer.parseInt(args[2]);
+		String strategy = (args.length > 3) ? args[3] : "dfs";
+		int numThreads = (args.length > 4) ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+
+		MazeFarm farm = new MazeFarm(numThreads, 4*numThreads, new ResultSink()
+		{
+			public void accept(Result result)
+			{
+				System.out.println(result);
+			}
+		});
+
+		for (int i=0; i<count; i++)
+			farm.submit(new Job(numRows, numCols, i, strategy));
+
+		System.out.println(farm.close());
+	}
+
+	//submit - queues a job, waiting first if the farm already has as many jobs in flight as it allows
+	public void submit(final Job job) throws InterruptedException
+	{
+		//make sure the strategy exists before the job is queued
+		final SolverStrategy strategy = SolverStrategies.forName(job.getStrategy());
+		final long submitTime = System.nanoTime();
+
+		inFlight.acquire();
+		try
+		{
+			workers.execute(new Runnable()
+			{
+				public void run()
+				{
+					try
+					{
+						finish(runJob(job, strategy, submitTime));
+					}
+					catch (RuntimeException ex)
+					{
+						finish(new Result(job, ex, System.nanoTime() - submitTime));
+					}
+					finally
+					{
+						inFlight.release();
+					}
+				}
+			});
+		}
+		catch (RejectedExecutionException ex)
+		{
+			inFlight.release();
+			throw new IllegalStateException("the farm has been closed", ex);
+		}
+	}
+
+	//close - waits for every submitted job to finish, stops the workers, and returns the totals
+	public Stats close() throws InterruptedException
+	{
+		workers.shutdown();
+		workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		long elapsed = System.nanoTime() - startTime;
+
+		synchronized (this)
+		{
+			long[] sorted = Arrays.copyOf(latencies, numLatencies);
+			Arrays.sort(sorted);
+			return new Stats(numLatencies, numFailed, elapsed, percentile(sorted, 0.50), percentile(sorted, 0.99));
+		}
+	}
+
+	//runJob - builds the job's maze and solves it with the job's strategy
+	private static Result runJob(Job job, SolverStrategy strategy, long submitTime)
+	{
+		long buildStart = System.nanoTime();
+		Maze myMaze = new Maze(job.getNumRows(), job.getNumCols());
+		myMaze.setSeed(job.getSeed());
+		myMaze.buildMaze();
+		long buildNanos = System.nanoTime() - buildStart;
+
+		SolveResult solveResult = SolverStrategies.solve(strategy, myMaze);
+		return new Result(job, solveResult, buildNanos, System.nanoTime() - submitTime);
+	}
+
+	//finish - records the job's latency and hands its result to the sink (one result at a time, so the sink
+	//         does not have to be thread safe)
+	private synchronized void finish(Result result)
+	{
+		if (numLatencies == latencies.length)
+			latencies = Arrays.copyOf(latencies, 2*latencies.length);
+		latencies[numLatencies++] = result.getLatencyNanos();
+		if (result.getError() != null)
+			numFailed++;
+
+		sink.accept(result);
+	}
+
+	//percentile - returns the value at the given fraction of an already sorted array (0 if it is empty)
+	private static long percentile(long[] sorted, double fraction)
+	{
+		if (sorted.length == 0)
+			return 0;
+		return sorted[(int)Math.min(sorted.length-1, Math.ceil(fraction * sorted.length) - 1)];
+	}
+
+	//***********************************************************************
+
+	//Job describes one maze to build and solve
+	public static class Job
+	{
+		private int numRows;
+		private int numCols;
+		private long seed;
+		private String strategy;
+
+		//constructor - receives the size of the maze, the seed to build it with and the name of the strategy
+		public Job(int numRows, int numCols, long seed, String strategy)
+		{
+			this.numRows = numRows;
+			this.numCols = numCols;
+			this.seed = seed;
+			this.strategy = strategy;
+		}
+
+		//getNumRows - returns the number of rows of the maze
+		public int getNumRows()
+		{
+			return numRows;
+		}
+
+		//getNumCols - returns the number of columns of the maze
+		public int getNumCols()
+		{
+			return numCols;
+		}
+
+		//getSeed - returns the seed the maze is built with
+		public long getSeed()
+		{
+			return seed;
+		}
+
+		//getStrategy - returns the name of the strategy that solves it
+		public String getStrategy()
+		{
+			return strategy;
+		}
+
+		//toString - returns a single line describing it
+		public String toString()
+		{
+			return numRows + "x" + numCols + " seed " + seed + " " + strategy;
+		}
+	}
+
+	//***********************************************************************
+
+	//Result is what happened to one Job: its SolveResult and timings, or the error that stopped it
+	public static class Result
+	{
+		private Job job;
+		private SolveResult solveResult;
+		private RuntimeException error;
+		private long buildNanos;
+		private long latencyNanos;
+
+		//constructor - for a job that finished
+		public Result(Job job, SolveResult solveResult, long buildNanos, long latencyNanos)
+		{
+			this.job = job;
+			this.solveResult = solveResult;
+			this.buildNanos = buildNanos;
+			this.latencyNanos = latencyNanos;
+		}
+
+		//constructor - for a job that failed
+		public Result(Job job, RuntimeException error, long latencyNanos)
+		{
+			this.job = job;
+			this.error = error;
+			this.latencyNanos = latencyNanos;
+		}
+
+		//getJob - returns the job this is the result of
+		public Job getJob()
+		{
+			return job;
+		}
+
+		//getSolveResult - returns what the solver reported (null if the job failed)
+		public SolveResult getSolveResult()
+		{
+			return solveResult;
+		}
+
+		//getError - returns what stopped the job (null if it finished)
+		public RuntimeException getError()
+		{
+			return error;
+		}
+
+		//getBuildNanos - returns how long building the maze took
+		public long getBuildNanos()
+		{
+			return buildNanos;
+		}
+
+		//getLatencyNanos - returns the time from the job being submitted to it finishing (waiting included)
+		public long getLatencyNanos()
+		{
+			return latencyNanos;
+		}
+
+		//toString - returns a single line describing it
+		public String toString()
+		{
+			if (error != null)
+				return job + ": failed with " + error;
+			return job + ": " + solveResult + ", built in " + (buildNanos / 1000) + " us, latency " +
+					(latencyNanos / 1000) + " us";
+		}
+	}
+
+	//***********************************************************************
+
+	//ResultSink receives the results as their jobs finish (never more than one at a time)
+	public static interface ResultSink
+	{
+		public void accept(Result result);
+	}
+
+	//***********************************************************************
+
+	//Stats are the totals for all the jobs a farm ran
+	public static class Stats
+	{
+		private long numJobs;
+		private long numFailed;
+		private long elapsedNanos;
+		private long p50LatencyNanos;
+		private long p99LatencyNanos;
+
+		//constructor - receives the totals
+		public Stats(long numJobs, long numFailed, long elapsedNanos, long p50LatencyNanos, long p99LatencyNanos)
+		{
+			this.numJobs = numJobs;
+			this.numFailed = numFailed;
+			this.elapsedNanos = elapsedNanos;
+			this.p50LatencyNanos = p50LatencyNanos;
+			this.p99LatencyNanos = p99LatencyNanos;
+		}
+
+		//getNumJobs - returns how many jobs finished or failed
+		public long getNumJobs()
+		{
+			return numJobs;
+		}
+
+		//getNumFailed - returns how many jobs failed
+		public long getNumFailed()
+		{
+			return numFailed;
+		}
+
+		//getP50LatencyNanos - returns the median latency
+		public long getP50LatencyNanos()
+		{
+			return p50LatencyNanos;
+		}
+
+		//getP99LatencyNanos - returns the 99th percentile latency
+		public long getP99LatencyNanos()
+		{
+			return p99LatencyNanos;
+		}
+
+		//getJobsPerSecond - returns how many jobs the farm finished per second, from creation to close
+		public double getJobsPerSecond()
+		{
+			return numJobs / (elapsedNanos / 1e9);
+		}
+
+		//toString - returns a single line describing it
+		public String toString()
+		{
+			return numJobs + " jobs (" + numFailed + " failed) in " + String.format("%.3f", elapsedNanos / 1e9) + " s: " +
+					String.format("%.1f", getJobsPerSecond()) + " jobs/s, latency p50 " + (p50LatencyNanos / 1000) +
+					" us, p99 " + (p99LatencyNanos / 1000) + " us";
+		}
+	}
+}//end of class
@@ -0,0 +1,432 @@
+/* This program implements the grid that a Maze is stored in.  Instead of a 2D int array
+    with a slot for every wall and every cell, each (real) cell is packed into a single byte
+    of one flat array, row major:
+        bit 0     - the wall to the RIGHT of the cell exists
+        bit 1     - the wall BELOW the cell exists
+        bits 2-3  - the state of the cell (EMPTY, PATH or GOAL)
+    The wall above a cell is the wall below the cell above it, and the wall to the left of a
+    cell is the wall to the right of the cell to its left.  The walls on the outside border
+    are never knocked down, so the top and left borders do not need to be stored at all.
+    Once a maze has been built its grid is frozen: the walls can never change again, so any
+    number of threads can read them (for example through MazeCursors) without locking.  Only
+    the state bits - which show the Maze's own current path - are still written after that.
+    The cells are kept in an array on the heap; every read and write of a cell goes through
+    getCell/setCell, so a subclass can keep them somewhere else (see MappedMazeGrid).
+ */
+
+public class MazeGrid implements java.io.Serializable
+{
+	//-------constants
+	public static final int RIGHT_WALL = 1;
+	public static final int DOWN_WALL = 2;
+
+	//the cell states use the same values the old mazeArray used for its cells
+	public static final int EMPTY = 0;
+	public static final int PATH = 2;
+	public static final int GOAL = 3;
+
+	private static final int STATE_SHIFT = 2;
+	private static final int WALL_MASK = RIGHT_WALL | DOWN_WALL;
+
+	//for the fingerprints: which bits of eight cells at a time to hash, and the primes the hash mixes them with
+	private static final long CELL_BITS = 0x0F0F0F0F0F0F0F0FL;
+	private static final long WALL_BITS = 0x0303030303030303L;
+	private static final long PRIME_1 = 0x9E3779B185EBCA87L;
+	private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+	private static final long PRIME_3 = 0x27D4EB2F165667C5L;
+
+	//pinned to what Java computed for the first MazeGrid, so adding methods or fields does not make saved games unreadable
+	private static final long serialVersionUID = 6573190281185132545L;
+
+	//-------data
+	private int numRows;
+	private int numCols;
+	private byte[ ] cells;
+	private int modCount;
+
+	//written once, after the last wall has been knocked down; because it is volatile, a thread that sees it
+	//set also sees every wall that was knocked down before it was set
+	private volatile boolean frozen;
+
+	//the last fingerprints that were computed, and the modCount they were computed at
+	private transient volatile Fingerprint fingerprint;
+	private transient volatile Fingerprint wallFingerprint;
+
+	//-------constructors
+	public MazeGrid(int numRows, int numCols)
+	{
+		this(numRows, numCols, newCells(numRows, numCols));
+	}
+
+	//for subclasses that keep the cells somewhere else: they pass null for the cells and override getCell and setCell
+	//(and every cell must start out with both of its walls intact and an EMPTY state)
+	protected MazeGrid(int numRows, int numCols, byte[ ] cells)
+	{
+		//make sure that the grid is not empty
+		if (numRows < 1 || numCols < 1)
+			throw new IllegalArgumentException("number of rows and columns must be > 0");
+
+		this.numRows = numRows;
+		this.numCols = numCols;
+		this.cells = cells;
+	}
+
+	// **************** methods *******************************************
+
+	//-------- getNumRows - returns the number of (real) rows in the grid
+	public int getNumRows()
+	{
+		return numRows;
+	}
+
+	//-------- getNumCols - returns the number of (real) columns in the grid
+	public int getNumCols()
+	{
+		return numCols;
+	}
+
+	//-------- getModCount - returns a counter that changes every time a wall or a state changes
+	public int getModCount()
+	{
+		return modCount;
+	}
+
+	//-------- freeze - makes the walls permanent (done when the maze has been built)
+	public void freeze()
+	{
+		frozen = true;
+	}
+
+	//-------- isFrozen - returns true if the walls can no longer change
+	public boolean isFrozen()
+	{
+		return frozen;
+	}
+
+	//-------- getFingerprint - returns a 64 bit hash of the size of the grid and the walls and state of every cell.
+	//                          It is computed in one pass over the cells, eight at a time, and kept until the grid
+	//                          changes, so asking again costs nothing until then.
+	public long getFingerprint()
+	{
+		Fingerprint cached = fingerprint;
+		if (cached == null || cached.modCount != modCount)
+		{
+			//(if the grid changes while it is hashed, the modCount it is stored with is already out of date)
+			int theModCount = modCount;
+			cached = new Fingerprint(theModCount, false, hashCells(CELL_BITS));
+			fingerprint = cached;
+		}
+		return cached.value;
+	}
+
+	//-------- getWallFingerprint - returns a 64 bit hash of the size of the grid and its walls only (the layout of the
+	//                              maze, whatever path is on it).  Once the grid is frozen it is only computed once.
+	public long getWallFingerprint()
+	{
+		Fingerprint cached = wallFingerprint;
+		if (cached == null || (cached.modCount != modCount && !cached.frozen))
+		{
+			boolean wasFrozen = frozen;
+			int theModCount = modCount;
+			cached = new Fingerprint(theModCount, wasFrozen, hashCells(WALL_BITS));
+			wallFingerprint = cached;
+		}
+		return cached.value;
+	}
+
+	//-------- contentEquals - returns true if the other grid is the same size, and every cell has the same walls and
+	//                         state as the cell in the same place in this grid
+	public boolean contentEquals(MazeGrid other)
+	{
+		if (other == this)
+			return true;
+		if (other == null || other.numRows != numRows || other.numCols != numCols)
+			return false;
+		if (cells != null && other.cells != null)
+			return java.util.Arrays.equals(cells, other.cells);
+
+		for (int row=0; row<numRows; row++)
+			for (int col=0; col<numCols; col++)
+				if (getCell(row, col) != other.getCell(row, col))
+					return false;
+		return true;
+	}
+
+	//-------- inMaze - returns true if the cell at [aRow][aCol] is in the grid
+	public boolean inMaze(int aRow, int aCol)
+	{
+		return   (aRow >= 0   &&   aRow < numRows   &&
+						aCol >= 0   &&   aCol < numCols);
+	}
+
+	//-------- hasWall - returns true if the cell at [aRow][aCol] has a wall on the side that is passed in
+	public boolean hasWall(int aRow, int aCol, Direction direction)
+	{
+		boolean result;
+
+		if (direction == Direction.UP)
+			result = aRow == 0 || (getCell(aRow-1, aCol) & DOWN_WALL) != 0;
+		else if (direction == Direction.DOWN)
+			result = (getCell(aRow, aCol) & DOWN_WALL) != 0;
+		else if (direction == Direction.LEFT)
+			result = aCol == 0 || (getCell(aRow, aCol-1) & RIGHT_WALL) != 0;
+		else
+			result = (getCell(aRow, aCol) & RIGHT_WALL) != 0;
+
+		return result;
+	}
+
+	//-------- allWallsIntact - returns true if the cell at [aRow][aCol] has all walls around it intact
+	public boolean allWallsIntact(int aRow, int aCol)
+	{
+		return   ((getCell(aRow, aCol) & WALL_MASK) == WALL_MASK   &&		//walls to the right and below exist
+						(aRow == 0 || (getCell(aRow-1, aCol) & DOWN_WALL) != 0)   &&		//wall above it exists
+						(aCol == 0 || (getCell(aRow, aCol-1) & RIGHT_WALL) != 0));		//wall to the left exists
+	}
+
+	//-------- knockDownWall - removes the wall on the side of [aRow][aCol] that is passed in
+	public void knockDownWall(int aRow, int aCol, Direction direction)
+	{
+		//the walls of a built maze, and the walls on the border, can never be knocked down
+		if (frozen)
+			throw new IllegalStateException("cannot knock down a wall - the maze has already been built");
+		if (!inMaze(aRow, aCol) || !inMaze(aRow + rowChange(direction), aCol + colChange(direction)))
+			throw new IllegalArgumentException("cannot knock down the border wall " + direction + " of cell <" +
+					aRow + ", " + aCol + ">");
+
+		//the wall above/left of a cell is stored in the cell above/left of it
+		if (direction == Direction.UP)
+			setCell(aRow-1, aCol, getCell(aRow-1, aCol) & ~DOWN_WALL);
+		else if (direction == Direction.DOWN)
+			setCell(aRow, aCol, getCell(aRow, aCol) & ~DOWN_WALL);
+		else if (direction == Direction.LEFT)
+			setCell(aRow, aCol-1, getCell(aRow, aCol-1) & ~RIGHT_WALL);
+		else
+			setCell(aRow, aCol, getCell(aRow, aCol) & ~RIGHT_WALL);
+
+		modCount++;
+	}
+
+	//-------- getState - returns the state (EMPTY, PATH or GOAL) of the cell at [aRow][aCol]
+	public int getState(int aRow, int aCol)
+	{
+		return getCell(aRow, aCol) >> STATE_SHIFT;
+	}
+
+	//-------- setState - sets the state (EMPTY, PATH or GOAL) of the cell at [aRow][aCol]
+	public void setState(int aRow, int aCol, int state)
+	{
+		setCell(aRow, aCol, (getCell(aRow, aCol) & WALL_MASK) | (state << STATE_SHIFT));
+		modCount++;
+	}
+
+	//-------- clearStates - makes the state of every cell EMPTY and leaves the walls as they are, so a path that was
+	//                       left on the grid (by a Maze that walked it before) is gone
+	public void clearStates()
+	{
+		clearCellStates();
+		modCount++;
+	}
+
+	//-------- getRowWalls - copies the walls (not the states) of the cells in the given row into rowCells
+	public void getRowWalls(int aRow, byte[] rowCells)
+	{
+		for (int col=0; col<numCols; col++)
+			rowCells[col] = (byte)(getCell(aRow, col) & WALL_MASK);
+	}
+
+	//-------- setRowWalls - sets the walls of the cells in the given row from rowCells (their states become EMPTY)
+	public void setRowWalls(int aRow, byte[] rowCells)
+	{
+		if (frozen)
+			throw new IllegalStateException("cannot change the walls - the maze has already been built");
+
+		for (int col=0; col<numCols; col++)
+			setCell(aRow, col, rowCells[col] & WALL_MASK);
+		modCount++;
+	}
+
+	//-------- toMazeArray - fills (or creates, if it is null or the wrong size) a (2R+1)x(2C+1) array in the
+	//                       old layout: the even rows/cols are the walls (1 = wall), the odd rows/cols are the cells
+	public int[][] toMazeArray(int[][] mazeArray)
+	{
+		if (mazeArray == null || mazeArray.length != 2*numRows+1 || mazeArray[0].length != 2*numCols+1)
+			mazeArray = new int[2*numRows+1][2*numCols+1];
+
+		//the outside border is always a wall, and so is every corner post
+		for (int arrayRow=0; arrayRow<mazeArray.length; arrayRow+=2)
+			java.util.Arrays.fill(mazeArray[arrayRow], 1);
+		for (int arrayRow=1; arrayRow<mazeArray.length; arrayRow+=2)
+			mazeArray[arrayRow][0] = 1;
+
+		for (int row=0; row<numRows; row++)
+			for (int col=0; col<numCols; col++)
+			{
+				int cell = getCell(row, col);
+				mazeArray[2*row+1][2*col+1] = cell >> STATE_SHIFT;
+				mazeArray[2*row+1][2*col+2] = cell & RIGHT_WALL;
+				mazeArray[2*row+2][2*col+1] = (cell & DOWN_WALL) >> 1;
+			}
+
+		return mazeArray;
+	}
+
+	//-------- fromMazeArray - returns a grid with the walls and states of a maze in the old (2R+1)x(2C+1) layout (the
+	//                         reverse of toMazeArray), for the games the original Maze saved
+	public static MazeGrid fromMazeArray(int[][] mazeArray)
+	{
+		if (mazeArray == null || mazeArray.length < 3 || mazeArray.length % 2 == 0 || mazeArray[0].length < 3 ||
+				mazeArray[0].length % 2 == 0)
+			throw new IllegalArgumentException("not a maze array: it must have an odd number (> 1) of rows and columns");
+
+		MazeGrid grid = new MazeGrid(mazeArray.length/2, mazeArray[0].length/2);
+		for (int row=0; row<grid.numRows; row++)
+			for (int col=0; col<grid.numCols; col++)
+			{
+				int cell = (mazeArray[2*row+1][2*col+1] & 3) << STATE_SHIFT;
+				if (mazeArray[2*row+1][2*col+2] != 0)
+					cell |= RIGHT_WALL;
+				if (mazeArray[2*row+2][2*col+1] != 0)
+					cell |= DOWN_WALL;
+				grid.setCell(row, col, cell);
+			}
+		return grid;
+	}
+
+	//-------- hashCells - hashes the bits of every cell that are in bitsToHash, eight cells (row major) to a word.
+	//                     Grids on the heap read their array eight bytes at a time; other grids go through getCell,
+	//                     and put the same words together, so the same maze has the same fingerprint either way.
+	private long hashCells(long bitsToHash)
+	{
+		long hash = PRIME_3 ^ (((long)numRows << 32 | numCols) * PRIME_1);
+		if (cells != null)
+		{
+			java.nio.ByteBuffer words = java.nio.ByteBuffer.wrap(cells).order(java.nio.ByteOrder.LITTLE_ENDIAN);
+			int i = 0;
+			for ( ; i + 8 <= cells.length; i += 8)
+				hash = mixWord(hash, words.getLong(i) & bitsToHash);
+
+			long lastWord = 0;
+			for (int j=0; i + j < cells.length; j++)
+				lastWord |= (long)(cells[i + j] & 0xFF) << (8*j);
+			hash = mixWord(hash, lastWord & bitsToHash);
+		}
+		else
+		{
+			long word = 0;
+			int numInWord = 0;
+			for (int row=0; row<numRows; row++)
+				for (int col=0; col<numCols; col++)
+				{
+					word |= (long)(getCell(row, col) & 0xFF) << (8*numInWord);
+					if (++numInWord == 8)
+					{
+						hash = mixWord(hash, word & bitsToHash);
+						word = 0;
+						numInWord = 0;
+					}
+				}
+			hash = mixWord(hash, word & bitsToHash);
+		}
+
+		//spread every bit of the hash over all of the others
+		hash ^= hash >>> 33;
+		hash *= PRIME_2;
+		hash ^= hash >>> 29;
+		hash *= PRIME_3;
+		return hash ^ (hash >>> 32);
+	}
+
+	//-------- mixWord - mixes one word of cells into the hash
+	private static long mixWord(long hash, long word)
+	{
+		word *= PRIME_2;
+		word = Long.rotateLeft(word, 31) * PRIME_1;
+		return Long.rotateLeft(hash ^ word, 27) * PRIME_1 + PRIME_3;
+	}
+
+	//-------- getCell - returns the byte that holds the walls and the state of the cell at [aRow][aCol]
+	protected int getCell(int aRow, int aCol)
+	{
+		return cells[aRow*numCols + aCol];
+	}
+
+	//-------- setCell - stores the byte that holds the walls and the state of the cell at [aRow][aCol]
+	protected void setCell(int aRow, int aCol, int cell)
+	{
+		cells[aRow*numCols + aCol] = (byte)cell;
+	}
+
+	//-------- clearCellStates - clears the state bits of every cell (a subclass that keeps its cells somewhere else can
+	//                           do that faster than with a getCell and a setCell for every cell)
+	protected void clearCellStates()
+	{
+		if (cells != null)
+		{
+			for (int i=0; i<cells.length; i++)
+				cells[i] &= WALL_MASK;
+			return;
+		}
+
+		for (int row=0; row<numRows; row++)
+			for (int col=0; col<numCols; col++)
+			{
+				int cell = getCell(row, col);
+				if ((cell & ~WALL_MASK) != 0)
+					setCell(row, col, cell & WALL_MASK);
+			}
+	}
+
+	//-------- newCells - returns the array for a grid on the heap, with every cell's walls intact and an EMPTY state
+	private static byte[ ] newCells(int numRows, int numCols)
+	{
+		//make sure that the grid is not empty and that it fits in one array
+		if (numRows < 1 || numCols < 1)
+			throw new IllegalArgumentException("number of rows and columns must be > 0");
+		if ((long)numRows * numCols > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("maze has too many cells for the heap: " + numRows + " x " + numCols);
+
+		byte[ ] cells = new byte[numRows * numCols];
+		java.util.Arrays.fill(cells, (byte)WALL_MASK);
+		return cells;
+	}
+
+	//-------- rowChange - returns how much the row changes when moving in the direction that is passed in
+	public static int rowChange(Direction direction)
+	{
+		if (direction == Direction.UP)
+			return -1;
+		else if (direction == Direction.DOWN)
+			return 1;
+		else
+			return 0;
+	}
+
+	//-------- colChange - returns how much the col changes when moving in the direction that is passed in
+	public static int colChange(Direction direction)
+	{
+		if (direction == Direction.LEFT)
+			return -1;
+		else if (direction == Direction.RIGHT)
+			return 1;
+		else
+			return 0;
+	}
+
+	//***********************************************************************
+
+	//a fingerprint, and the modCount (and whether the grid was frozen) when it was computed
+	private static class Fingerprint
+	{
+		private final int modCount;
+		private final boolean frozen;
+		private final long value;
+
+		private Fingerprint(int modCount, boolean frozen, long value)
+		{
+			this.modCount = modCount;
+			this.frozen = frozen;
+			this.value = value;
+		}
+	}
+}
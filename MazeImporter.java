@@ -0,0 +1,173 @@
+/* This program imports a maze that was made by another program, from a file of either kind:
+        - a raw maze (RawMazeFormat), recognized by the "MZRW" at the start of the file
+        - ASCII art (AsciiMazeFormat), for anything else
+    The file is mapped a segment at a time and its rows go through a MazeValidator straight into
+    the grid, in one pass, so nothing but the grid is ever the size of the maze.  The validator
+    makes sure it is a maze the solvers can be trusted with - a perfect maze, closed all around,
+    in which the goal (the lower right corner) can be reached from the start (the upper left
+    corner) - and a bad file is reported with the row or the line it went wrong on.
+        - read(fileName) imports into a MazeGrid on the heap
+        - read(fileName, mappedFileName) imports into a MappedMazeGrid, for a maze bigger than the heap
+    Run it as "MazeImporter fileName [mappedFileName]" to import a file and see how fast that was,
+    or as "MazeImporter --export fileName.txt|fileName.raw rows cols [seed]" to stream a maze from
+    EllerMazeGenerator out to a file in either format.
+ */
+
+public class MazeImporter
+{
+	// **************** methods *******************************************
+
+	//-------- main - imports a file and reports its size and how fast it was read, or exports a generated maze
+	public static void main(String[] args) throws java.io.IOException
+	{
+		if (args.length > 0 && args[0].equals("--export"))
+		{
+			if (args.length < 4)
+				throw new IllegalArgumentException("usage: MazeImporter --export fileName.txt|fileName.raw rows cols [seed]");
+
+			int numRows = Integer.parseInt(args[2]);
+			int numCols = Integer.parseInt(args[3]);
+			long seed = (args.length > 4) ? Long.parseLong(args[4]) : new java.util.Random().nextLong();
+			long startTime = System.nanoTime();
+			export(args[1], numRows, numCols, seed);
+			report("wrote", args[1], numRows, numCols, startTime);
+			return;
+		}
+		if (args.length < 1 || args.length > 2)
+			throw new IllegalArgumentException("usage: MazeImporter fileName [mappedFileName]");
+
+		long startTime = System.nanoTime();
+		Maze aMaze = (args.length == 1) ? read(args[0]) : read(args[0], args[1]);
+		MazeGrid grid = aMaze.getGrid();
+		report("imported", args[0], grid.getNumRows(), grid.getNumCols(), startTime);
+	}
+
+	//-------- read - imports the maze in the file into a grid on the heap
+	public static Maze read(String fileName) throws java.io.IOException
+	{
+		return read(fileName, null);
+	}
+
+	//-------- read - imports the maze in the file into a new MappedMazeGrid in mappedFileName (or, if that is null,
+	//                into a grid on the heap), after checking that it is a proper maze
+	public static Maze read(String fileName, String mappedFileName) throws java.io.IOException
+	{
+		java.nio.channels.FileChannel channel = java.nio.channels.FileChannel.open(java.nio.file.Paths.get(fileName),
+				java.nio.file.StandardOpenOption.READ);
+		try
+		{
+			boolean raw = isRaw(channel);
+			int[ ] size;
+			try
+			{
+				size = raw ? RawMazeFormat.readSize(channel) : AsciiMazeFormat.readSize(channel);
+			}
+			catch (java.io.IOException ex)
+			{
+				throw new java.io.IOException(fileName + ": " + ex.getMessage(), ex);
+			}
+			int numRows = size[0];
+			int numCols = size[1];
+			if (numRows < 2 || numCols < 2)
+				throw new java.io.IOException(fileName + " is a " + numRows + " x " + numCols + " maze; a maze needs at " +
+						"least 2 rows and 2 columns");
+
+			//the rows go through the validator into the grid
+			final MazeGrid grid;
+			MazeRowSink sink;
+			if (mappedFileName != null)
+			{
+				MappedMazeGrid mappedGrid = MappedMazeGrid.create(mappedFileName, numRows, numCols);
+				grid = mappedGrid;
+				sink = mappedGrid;
+			}
+			else
+			{
+				if ((long)numRows * numCols > Integer.MAX_VALUE)
+					throw new java.io.IOException(fileName + " is a " + numRows + " x " + numCols + " maze, which is too " +
+							"big for the heap; import it into a mapped file instead");
+				grid = new MazeGrid(numRows, numCols);
+				sink = new MazeRowSink()
+				{
+					public void acceptRow(int row, byte[] rowCells)
+					{
+						grid.setRowWalls(row, rowCells);
+					}
+				};
+			}
+
+			MazeValidator validator = new MazeValidator(numRows, numCols, sink);
+			try
+			{
+				if (raw)
+					RawMazeFormat.readRows(channel, numRows, numCols, validator);
+				else
+					AsciiMazeFormat.readRows(channel, validator);
+				validator.finish();
+			}
+			catch (java.io.IOException ex)
+			{
+				throw new java.io.IOException(fileName + ": " + ex.getMessage(), ex);
+			}
+
+			grid.freeze();
+			if (grid instanceof MappedMazeGrid)
+				((MappedMazeGrid)grid).force();
+			return new Maze(grid);
+		}
+		finally
+		{
+			channel.close();
+		}
+	}
+
+	//-------- export - generates a maze with EllerMazeGenerator and streams it out to the file, as ASCII art if the
+	//                  name ends in .txt and as a raw maze if not
+	public static void export(String fileName, int numRows, int numCols, long seed) throws java.io.IOException
+	{
+		java.nio.channels.FileChannel channel = java.nio.channels.FileChannel.open(java.nio.file.Paths.get(fileName),
+				java.nio.file.StandardOpenOption.CREATE, java.nio.file.StandardOpenOption.WRITE,
+				java.nio.file.StandardOpenOption.TRUNCATE_EXISTING);
+		try
+		{
+			EllerMazeGenerator generator = new EllerMazeGenerator(numRows, numCols, seed);
+			if (fileName.toLowerCase().endsWith(".txt"))
+			{
+				AsciiMazeFormat.RowWriter writer = AsciiMazeFormat.newWriter(channel, numRows, numCols);
+				generator.generate(writer);
+				writer.flush();
+			}
+			else
+			{
+				RawMazeFormat.RowWriter writer = RawMazeFormat.newWriter(channel, numRows, numCols);
+				generator.generate(writer);
+				writer.flush();
+			}
+		}
+		finally
+		{
+			channel.close();
+		}
+	}
+
+	//-------- isRaw - returns true if the file starts with the magic number of a raw maze
+	private static boolean isRaw(java.nio.channels.FileChannel channel) throws java.io.IOException
+	{
+		java.nio.ByteBuffer magic = java.nio.ByteBuffer.allocate(4);
+		while (magic.hasRemaining())
+			if (channel.read(magic, magic.position()) < 0)
+				return false;
+		return magic.getInt(0) == RawMazeFormat.MAGIC;
+	}
+
+	//-------- report - prints how big the maze and the file are, and how fast the file went
+	private static void report(String verb, String fileName, int numRows, int numCols, long startTime)
+			throws java.io.IOException
+	{
+		long elapsed = System.nanoTime() - startTime;
+		long fileBytes = java.nio.file.Files.size(java.nio.file.Paths.get(fileName));
+		System.out.println(verb + " a " + numRows + " x " + numCols + " maze (" + fileName + ", " +
+				fileBytes / (1024*1024) + " MB) in " + elapsed / 1000000 + " ms, " +
+				String.format("%.1f", fileBytes * 1e9 / (1024*1024) / Math.max(1, elapsed)) + " MB/s");
+	}
+}//end of class
@@ -0,0 +1,307 @@
+/*
+In this program, we will keep an append-only journal of a MazeSolver's moves next to its saved game (the snapshot), so
+that saving again only has to write the moves made since the last save instead of the whole maze.  Resuming loads the
+snapshot and replays the journal on top of it.  Once the journal grows bigger than the snapshot, the next checkpoint
+writes a fresh snapshot and starts the journal over, so replaying never costs more than reading the snapshot did.
+The journal is the snapshot's file name followed by ".journal":
+	int    MAGIC ("MZJL")
+	short  VERSION
+	long   the last 8 bytes of the snapshot it continues from (its checksum), so a stale journal is never replayed
+	then one block per checkpoint:
+	int    number of moves n
+	bytes  n moves: 0-3 = moved forward in that Direction (its ordinal), 4 = backtracked
+	int    CRC32 of the number of moves and the moves
+A block that was only partly written when the program stopped (or that does not match its CRC) ends the journal; it
+and everything after it are dropped on resume.
+*/
+
+import java.util.*;
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.zip.CRC32;
+
+public class MazeJournal
+{
+	//Data
+	public static final int MAGIC = 0x4D5A4A4C;   //"MZJL"
+	public static final short VERSION = 1;
+	public static final String SUFFIX = ".journal";
+	public static final byte BACKTRACK = 4;
+
+	private static final int HEADER_BYTES = 14;
+	private static final int CLOCK_CHECK_MOVES = 1024;   //how many moves go by between looks at the clock
+
+	private MazeSolver solver;
+	private String fileName;
+	private FileChannel channel;
+	private long snapshotBytes;
+	private long journalBytes;
+	private byte[] pending = new byte[1024];
+	private int numPending;
+	private long checkpointIntervalNanos;
+	private long nextCheckpointTime;
+
+	//Constructor
+	//which will receive the solver being journaled and the file name of its snapshot
+	private MazeJournal(MazeSolver solver, String fileName)
+	{
+		this.solver = solver;
+		this.fileName = fileName;
+	}
+
+	//Methods
+	//start - saves a snapshot of the solver's game to the file, starts an empty journal next to it, and attaches the
+	//        journal to the solver so its moves are recorded from now on
+	public static MazeJournal start(MazeSolver solver, String fileName) throws IOException
+	{
+		MazeJournal journal = new MazeJournal(solver, fileName);
+		journal.rewriteSnapshot();
+		solver.myJournal = journal;
+		return journal;
+	}
+
+	//resume - loads the snapshot in the file, replays its journal (if it has one), and returns the solver with the
+	//         journal attached, ready to record more moves
+	public static MazeSolver resume(String fileName) throws IOException
+	{
+		MazeSolver solver = MazeSaveFormat.load(fileName);
+		MazeJournal journal = new MazeJournal(solver, fileName);
+		journal.snapshotBytes = Files.size(Paths.get(fileName));
+		long snapshotChecksum = MazeSaveFormat.readChecksum(fileName);
+
+		journal.channel = FileChannel.open(Paths.get(fileName + SUFFIX), StandardOpenOption.CREATE,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try
+		{
+			if (journal.readHeader(snapshotChecksum))
+				journal.replay();
+			else
+				journal.writeHeader(snapshotChecksum);   //missing or stale: the snapshot already has all of its moves
+		}
+		catch (IOException ex)
+		{
+			journal.close();
+			throw ex;
+		}
+
+		solver.myJournal = journal;
+		return solver;
+	}
+
+	//getFileName - returns the file name of the snapshot
+	public String getFileName()
+	{
+		return fileName;
+	}
+
+	//setCheckpointInterval - makes the journal checkpoint by itself, at most this many milliseconds apart, while moves
+	//                        are being recorded (0 turns it off; checkpoint() can always be called directly)
+	public void setCheckpointInterval(long millis)
+	{
+		if (millis < 0)
+			throw new IllegalArgumentException("the checkpoint interval cannot be negative");
+
+		checkpointIntervalNanos = millis * 1000000L;
+		nextCheckpointTime = System.nanoTime() + checkpointIntervalNanos;
+	}
+
+	//recordMove - records that the solver moved forward in the given Direction
+	public void recordMove(Direction direction)
+	{
+		record((byte)direction.ordinal());
+	}
+
+	//recordBacktrack - records that the solver popped its stack and moved back
+	public void recordBacktrack()
+	{
+		record(BACKTRACK);
+	}
+
+	//checkpoint - makes every move recorded so far durable: usually by appending them to the journal, but by writing
+	//             a fresh snapshot instead once the journal has outgrown the snapshot
+	public void checkpoint() throws IOException
+	{
+		if (numPending > 0)
+		{
+			if (journalBytes + numPending > snapshotBytes)
+				rewriteSnapshot();
+			else
+				appendBlock();
+		}
+		nextCheckpointTime = System.nanoTime() + checkpointIntervalNanos;
+	}
+
+	//close - closes the journal file (moves that were not checkpointed are lost)
+	public void close() throws IOException
+	{
+		if (channel != null)
+			channel.close();
+		channel = null;
+	}
+
+	//record - adds one move to the ones waiting for the next checkpoint
+	private void record(byte move)
+	{
+		if (numPending == pending.length)
+			pending = Arrays.copyOf(pending, 2*pending.length);
+		pending[numPending++] = move;
+
+		if (checkpointIntervalNanos > 0 && numPending % CLOCK_CHECK_MOVES == 0 && System.nanoTime() >= nextCheckpointTime)
+		{
+			try
+			{
+				checkpoint();
+			}
+			catch (IOException ex)
+			{
+				throw new UncheckedIOException(ex);
+			}
+		}
+	}
+
+	//appendBlock - writes the pending moves to the end of the journal as one block
+	private void appendBlock() throws IOException
+	{
+		ByteBuffer block = ByteBuffer.allocate(4 + numPending + 4);
+		block.putInt(numPending);
+		block.put(pending, 0, numPending);
+
+		CRC32 crc = new CRC32();
+		crc.update(block.array(), 0, block.position());
+		block.putInt((int)crc.getValue());
+		block.flip();
+
+		while (block.hasRemaining())
+			journalBytes += channel.write(block, journalBytes);
+		channel.force(false);
+		numPending = 0;
+	}
+
+	//rewriteSnapshot - saves the whole game next to the snapshot, swaps it in, and starts the journal over
+	private void rewriteSnapshot() throws IOException
+	{
+		//if we stop before the rename, the old snapshot and its journal are still there; if we stop after it, the
+		//old journal no longer matches the snapshot's checksum and is ignored
+		Path snapshot = Paths.get(fileName);
+		Path temp = Paths.get(fileName + ".tmp");
+		long checksum;
+		FileChannel tempChannel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		try
+		{
+			//the new snapshot has to be on disk before the rename, or a crash could leave the name pointing at nothing
+			checksum = MazeSaveFormat.write(solver, tempChannel);
+			tempChannel.force(true);
+		}
+		finally
+		{
+			tempChannel.close();
+		}
+		Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		snapshotBytes = Files.size(snapshot);
+
+		close();
+		channel = FileChannel.open(Paths.get(fileName + SUFFIX), StandardOpenOption.CREATE,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		writeHeader(checksum);
+		numPending = 0;
+	}
+
+	//writeHeader - empties the journal file and writes its header
+	private void writeHeader(long snapshotChecksum) throws IOException
+	{
+		channel.truncate(0);
+		ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+		header.putInt(MAGIC).putShort(VERSION).putLong(snapshotChecksum);
+		header.flip();
+		while (header.hasRemaining())
+			channel.write(header, header.position());
+		channel.force(false);
+		journalBytes = HEADER_BYTES;
+	}
+
+	//readHeader - returns true if the journal file has a header that continues from the snapshot with this checksum
+	private boolean readHeader(long snapshotChecksum) throws IOException
+	{
+		ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+		if (!readFully(header, 0))
+			return false;
+
+		if (header.getInt(0) != MAGIC)
+			throw new IOException(fileName + SUFFIX + " is not a maze journal");
+		short version = header.getShort(4);
+		if (version != VERSION)
+			throw new IOException(fileName + SUFFIX + " has unknown format version " + version);
+
+		return header.getLong(6) == snapshotChecksum;
+	}
+
+	//replay - applies every complete block of the journal to the solver, then drops whatever comes after them
+	private void replay() throws IOException
+	{
+		long position = HEADER_BYTES;
+		long size = channel.size();
+		ByteBuffer count = ByteBuffer.allocate(4);
+
+		while (true)
+		{
+			count.clear();
+			if (!readFully(count, position))
+				break;
+			int numMoves = count.getInt(0);
+			if (numMoves <= 0 || numMoves > size - position - 8)
+				break;
+
+			ByteBuffer block = ByteBuffer.allocate(4 + numMoves + 4);
+			if (!readFully(block, position))
+				break;
+			CRC32 crc = new CRC32();
+			crc.update(block.array(), 0, 4 + numMoves);
+			if (block.getInt(4 + numMoves) != (int)crc.getValue())
+				break;
+
+			for (int i=0; i<numMoves; i++)
+				apply(block.get(4 + i));
+			position += block.capacity();
+		}
+
+		//a torn or damaged tail is cut off, so new blocks are appended right after the last good one
+		channel.truncate(position);
+		journalBytes = position;
+	}
+
+	//apply - makes one recorded move on the solver, exactly as its step() did
+	private void apply(byte move) throws IOException
+	{
+		Maze myMaze = solver.myMaze;
+		try
+		{
+			if (move == BACKTRACK)
+				myMaze.move(SolverStrategies.opposite(solver.myStack.pop()));
+			else if (move >= 0 && move < SolverStrategies.DIRECTIONS.length)
+			{
+				Direction direction = SolverStrategies.DIRECTIONS[move];
+				solver.myStack.push(direction);
+				myMaze.move(direction);
+				solver.markVisited(myMaze.getCurrentRow(), myMaze.getCurrentCol());
+			}
+			else
+				throw new IOException(fileName + SUFFIX + " has an unknown move " + move);
+		}
+		catch (IllegalArgumentException ex)
+		{
+			throw new IOException(fileName + SUFFIX + " does not fit its snapshot: " + ex.getMessage(), ex);
+		}
+	}
+
+	//readFully - reads from the journal at the position until the buffer is full; returns false if the file ends first
+	private boolean readFully(ByteBuffer buffer, long position) throws IOException
+	{
+		while (buffer.hasRemaining())
+			if (channel.read(buffer, position + buffer.position()) < 0)
+				return false;
+		return true;
+	}
+}//end of class
@@ -0,0 +1,23 @@
+// This is anything that wants to follow a Maze as it changes (for example, the MazeDisplay, which only redraws the
+// cells it is told about, or a MazePacer, which slows the Maze down so it can be watched).  Listeners are called on
+// the thread that changes the Maze, so they should be quick; a MazeEventBatcher can hand the events to them in batches
+// instead.  While nobody is listening, the Maze does not make any of these calls at all.  Extend MazeAdapter to
+// listen for just some of them.
+
+public interface MazeListener
+{
+	//wallKnockedDown - while the maze is being built, the wall on the given side of [row][col] was knocked down.
+	//                  buildMazeParallel calls this from the threads of its pool, several at a time.
+	public void wallKnockedDown(Maze aMaze, int row, int col, Direction direction);
+
+	//cellVisited - while the maze is being built (by buildMaze), the builder arrived at [row][col]: either for the
+	//              first time, or when backing up to it
+	public void cellVisited(Maze aMaze, int row, int col);
+
+	//moved - the current cell moved forward from [fromRow][fromCol] to [toRow][toCol], which is now part of the path
+	public void moved(Maze aMaze, int fromRow, int fromCol, int toRow, int toCol);
+
+	//backtracked - the current cell moved back along its path from [fromRow][fromCol] to [toRow][toCol], so the cell
+	//              it left is no longer part of the path
+	public void backtracked(Maze aMaze, int fromRow, int fromCol, int toRow, int toCol);
+}
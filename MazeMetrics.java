@@ -0,0 +1,452 @@
+/*
+In this program, we will count what the mazes and their solvers do, for the whole program: how many mazes were built
+and how long that took, how many moves were made (and how many of them were backtracks), how deep a solver's stack
+got, and how long the solves took.  The counters are LongAdders, which every thread adds to without waiting for the
+others, and the times go into histograms made of them, so counting costs a few nanoseconds on the hot path.
+The numbers can be read through JMX (see MazeMetricsMBean), and anything that wants to hear about every build and
+solve as it happens (for example, the MazeConsoleSink, which prints the builds the way the Maze used to) can be added
+as a Sink.
+*/
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+public class MazeMetrics implements MazeMetricsMBean
+{
+	//Data
+	public static final String OBJECT_NAME = "MazeSolverGame:type=MazeMetrics";
+	public static final int RATE_WINDOW_SECONDS = 10;   //getMovesPerSecond is the rate over the last 10 seconds
+
+	private static final MazeMetrics METRICS = new MazeMetrics();
+
+	private volatile boolean enabled = true;
+	private volatile Sink[] sinks;   //null while there are none; replaced (never changed) when one is added or removed
+
+	private LongAdder mazesBuilt = new LongAdder();
+	private LongAdder cellsBuilt = new LongAdder();
+	private LatencyHistogram buildTimes = new LatencyHistogram();
+	private LongAdder movesForward = new LongAdder();
+	private LongAdder backtracks = new LongAdder();
+	private LongAccumulator maxStackDepth = new LongAccumulator(new java.util.function.LongBinaryOperator()
+	{
+		public long applyAsLong(long left, long right)
+		{
+			return Math.max(left, right);
+		}
+	}, 0);
+	private LongAdder solvesCompleted = new LongAdder();
+	private LatencyHistogram solveTimes = new LatencyHistogram();
+
+	//the number of moves, counted once a second by a daemon timer for the last RATE_WINDOW_SECONDS seconds, which
+	//getMovesPerSecond measures from (so reading the rate never changes it, however many readers there are)
+	private long[] sampleNanos = new long[RATE_WINDOW_SECONDS + 1];
+	private long[] sampleMoves = new long[RATE_WINDOW_SECONDS + 1];
+	private int nextSample;
+	private int numSamples;
+
+	//the metrics are registered with the platform's MBean server the first time they are used
+	static
+	{
+		try
+		{
+			java.lang.management.ManagementFactory.getPlatformMBeanServer().registerMBean(METRICS,
+					new javax.management.ObjectName(OBJECT_NAME));
+		}
+		catch (Exception ex)
+		{
+			//no JMX (or already registered by another class loader) - the metrics still work, they just cannot be seen there
+		}
+
+		new java.util.Timer("MazeMetrics", true).scheduleAtFixedRate(new java.util.TimerTask()
+		{
+			public void run()
+			{
+				METRICS.takeSample();
+			}
+		}, 1000, 1000);
+	}
+
+	//Constructor
+	//private, since there is only one set of metrics for the whole program
+	private MazeMetrics()
+	{
+		takeSample();
+	}
+
+	//Methods
+	//get - returns the metrics
+	public static MazeMetrics get()
+	{
+		return METRICS;
+	}
+
+	//addSink - starts telling the sink about every build and solve
+	public synchronized void addSink(Sink sink)
+	{
+		if (sink == null)
+			throw new IllegalArgumentException("trying to add a null Sink");
+
+		Sink[] theSinks = (sinks == null) ? new Sink[0] : sinks;
+		theSinks = Arrays.copyOf(theSinks, theSinks.length + 1);
+		theSinks[theSinks.length - 1] = sink;
+		sinks = theSinks;
+	}
+
+	//removeSink - stops telling the sink (does nothing if it was not added)
+	public synchronized void removeSink(Sink sink)
+	{
+		if (sinks == null)
+			return;
+
+		ArrayList<Sink> theSinks = new ArrayList<Sink>(Arrays.asList(sinks));
+		theSinks.remove(sink);
+		sinks = theSinks.isEmpty() ? null : theSinks.toArray(new Sink[0]);
+	}
+
+	//buildStarted - (called by the Maze) a maze is about to be built; returns the time to hand back to buildFinished
+	public long buildStarted(int numRows, int numCols)
+	{
+		if (!enabled)
+			return 0;
+
+		Sink[] theSinks = sinks;
+		if (theSinks != null)
+			for (Sink sink : theSinks)
+				sink.buildStarted(numRows, numCols);
+		return System.nanoTime();
+	}
+
+	//buildFinished - (called by the Maze) the maze that buildStarted returned startNanos for has been built
+	public void buildFinished(int numRows, int numCols, long startNanos)
+	{
+		if (!enabled || startNanos == 0)
+			return;
+
+		long elapsedNanos = System.nanoTime() - startNanos;
+		mazesBuilt.increment();
+		cellsBuilt.add((long)numRows * numCols);
+		buildTimes.record(elapsedNanos);
+
+		Sink[] theSinks = sinks;
+		if (theSinks != null)
+			for (Sink sink : theSinks)
+				sink.buildFinished(numRows, numCols, elapsedNanos);
+	}
+
+	//movedForward - (called by the MazeSolver) a solver moved into a new cell, and its stack is now stackDepth deep
+	public void movedForward(int stackDepth)
+	{
+		if (!enabled)
+			return;
+
+		movesForward.increment();
+		maxStackDepth.accumulate(stackDepth);   //only writes when the depth is a new maximum
+	}
+
+	//backtracked - (called by the MazeSolver) a solver backed out of a dead end
+	public void backtracked()
+	{
+		if (enabled)
+			backtracks.increment();
+	}
+
+	//solveFinished - (called by the MazeSolver) a solver reached its goal
+	public void solveFinished(SolveResult result)
+	{
+		if (!enabled)
+			return;
+
+		solvesCompleted.increment();
+		solveTimes.record(result.getElapsedNanos());
+
+		Sink[] theSinks = sinks;
+		if (theSinks != null)
+			for (Sink sink : theSinks)
+				sink.solveFinished(result);
+	}
+
+	//isEnabled - returns true if the metrics are being counted
+	public boolean isEnabled()
+	{
+		return enabled;
+	}
+
+	//setEnabled - starts or stops counting (and telling the sinks)
+	public void setEnabled(boolean enabled)
+	{
+		this.enabled = enabled;
+	}
+
+	//getMazesBuilt - returns how many mazes have been built
+	public long getMazesBuilt()
+	{
+		return mazesBuilt.sum();
+	}
+
+	//getCellsBuilt - returns how many cells all of those mazes had together
+	public long getCellsBuilt()
+	{
+		return cellsBuilt.sum();
+	}
+
+	//getBuildTimes - returns the histogram of how long the builds took
+	public LatencyHistogram getBuildTimes()
+	{
+		return buildTimes;
+	}
+
+	//getBuildMillisMean - returns how long a build took on average
+	public double getBuildMillisMean()
+	{
+		return buildTimes.getMeanNanos() / 1e6;
+	}
+
+	//getBuildMillisP50 - returns the median time a build took
+	public double getBuildMillisP50()
+	{
+		return buildTimes.getPercentileNanos(50) / 1e6;
+	}
+
+	//getBuildMillisP99 - returns the 99th percentile of the time a build took
+	public double getBuildMillisP99()
+	{
+		return buildTimes.getPercentileNanos(99) / 1e6;
+	}
+
+	//getBuildMillisMax - returns the longest a build took
+	public double getBuildMillisMax()
+	{
+		return buildTimes.getMaxNanos() / 1e6;
+	}
+
+	//getMovesForward - returns how many moves into new cells the solvers made
+	public long getMovesForward()
+	{
+		return movesForward.sum();
+	}
+
+	//getBacktracks - returns how many moves back out of dead ends the solvers made
+	public long getBacktracks()
+	{
+		return backtracks.sum();
+	}
+
+	//getBacktrackRatio - returns the fraction of all moves that were backtracks
+	public double getBacktrackRatio()
+	{
+		long numBacktracks = backtracks.sum();
+		long numMoves = movesForward.sum() + numBacktracks;
+		return (numMoves == 0) ? 0 : (double)numBacktracks / numMoves;
+	}
+
+	//getMovesPerSecond - returns how many moves (forward and back) the solvers made per second over the last
+	//                    RATE_WINDOW_SECONDS seconds (or since the metrics were reset, if that was more recent)
+	public synchronized double getMovesPerSecond()
+	{
+		int oldest = (nextSample - numSamples + sampleNanos.length) % sampleNanos.length;
+		long elapsedNanos = System.nanoTime() - sampleNanos[oldest];
+		long numMoves = movesForward.sum() + backtracks.sum() - sampleMoves[oldest];
+		return (elapsedNanos <= 0) ? 0 : numMoves / (elapsedNanos / 1e9);
+	}
+
+	//getMaxStackDepth - returns the deepest any solver's stack has been
+	public long getMaxStackDepth()
+	{
+		return maxStackDepth.get();
+	}
+
+	//getSolvesCompleted - returns how many solvers reached their goal
+	public long getSolvesCompleted()
+	{
+		return solvesCompleted.sum();
+	}
+
+	//getSolveTimes - returns the histogram of how long the solves took
+	public LatencyHistogram getSolveTimes()
+	{
+		return solveTimes;
+	}
+
+	//getSolveMillisMean - returns how long a solve took on average
+	public double getSolveMillisMean()
+	{
+		return solveTimes.getMeanNanos() / 1e6;
+	}
+
+	//getSolveMillisP50 - returns the median time a solve took
+	public double getSolveMillisP50()
+	{
+		return solveTimes.getPercentileNanos(50) / 1e6;
+	}
+
+	//getSolveMillisP99 - returns the 99th percentile of the time a solve took
+	public double getSolveMillisP99()
+	{
+		return solveTimes.getPercentileNanos(99) / 1e6;
+	}
+
+	//getSolveMillisMax - returns the longest a solve took
+	public double getSolveMillisMax()
+	{
+		return solveTimes.getMaxNanos() / 1e6;
+	}
+
+	//reset - starts counting again from zero (counts made while this runs may land on either side of it)
+	public synchronized void reset()
+	{
+		mazesBuilt.reset();
+		cellsBuilt.reset();
+		buildTimes.reset();
+		movesForward.reset();
+		backtracks.reset();
+		maxStackDepth.reset();
+		solvesCompleted.reset();
+		solveTimes.reset();
+		numSamples = 0;
+		takeSample();
+	}
+
+	//takeSample - (called by the timer, once a second) counts the moves so far, in place of the oldest count once
+	//              there are RATE_WINDOW_SECONDS seconds of them
+	private synchronized void takeSample()
+	{
+		sampleNanos[nextSample] = System.nanoTime();
+		sampleMoves[nextSample] = movesForward.sum() + backtracks.sum();
+		nextSample = (nextSample + 1) % sampleNanos.length;
+		numSamples = Math.min(numSamples + 1, sampleNanos.length);
+	}
+
+	//toString - returns the metrics as a single line
+	public String toString()
+	{
+		return getMazesBuilt() + " mazes built (p50 " + String.format("%.3f", getBuildMillisP50()) + " ms), " +
+				getSolvesCompleted() + " solved (p50 " + String.format("%.3f", getSolveMillisP50()) + " ms), " +
+				getMovesForward() + " moves forward, " + getBacktracks() + " backtracks, max stack " + getMaxStackDepth();
+	}
+
+	//***********************************************************************
+
+	//Sink hears about every build and solve as it happens (on the thread that did it, so it should be quick)
+	public static interface Sink
+	{
+		//buildStarted - a maze of numRows x numCols cells is about to be built
+		public void buildStarted(int numRows, int numCols);
+
+		//buildFinished - it was built, in elapsedNanos nanoseconds
+		public void buildFinished(int numRows, int numCols, long elapsedNanos);
+
+		//solveFinished - a solver reached its goal
+		public void solveFinished(SolveResult result);
+	}
+
+	//***********************************************************************
+
+	//LatencyHistogram counts times (in nanoseconds) in buckets: 8 buckets for every power of two, so a percentile is
+	//never more than about 12% away from the real value, and recording a time is one LongAdder increment
+	public static class LatencyHistogram
+	{
+		private static final int SUB_BUCKET_BITS = 3;
+		private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+		private LongAdder[] buckets = new LongAdder[(64 - SUB_BUCKET_BITS) * SUB_BUCKETS];
+		private LongAdder count = new LongAdder();
+		private LongAdder totalNanos = new LongAdder();
+		private LongAccumulator maxNanos = new LongAccumulator(new java.util.function.LongBinaryOperator()
+		{
+			public long applyAsLong(long left, long right)
+			{
+				return Math.max(left, right);
+			}
+		}, 0);
+
+		//constructor - makes an empty histogram
+		public LatencyHistogram()
+		{
+			for (int i=0; i<buckets.length; i++)
+				buckets[i] = new LongAdder();
+		}
+
+		//record - counts one time
+		public void record(long nanos)
+		{
+			nanos = Math.max(0, nanos);
+			buckets[bucketOf(nanos)].increment();
+			count.increment();
+			totalNanos.add(nanos);
+			maxNanos.accumulate(nanos);
+		}
+
+		//getCount - returns how many times were counted
+		public long getCount()
+		{
+			return count.sum();
+		}
+
+		//getMeanNanos - returns the average time (0 if there are none)
+		public double getMeanNanos()
+		{
+			long n = count.sum();
+			return (n == 0) ? 0 : (double)totalNanos.sum() / n;
+		}
+
+		//getMaxNanos - returns the longest time
+		public long getMaxNanos()
+		{
+			return maxNanos.get();
+		}
+
+		//getPercentileNanos - returns the time that percentile percent of the times were no longer than (the top of its
+		//                     bucket, but never more than the longest time); 0 if there are none
+		public long getPercentileNanos(double percentile)
+		{
+			long[] counts = new long[buckets.length];
+			long n = 0;
+			for (int i=0; i<buckets.length; i++)
+			{
+				counts[i] = buckets[i].sum();
+				n += counts[i];
+			}
+			if (n == 0)
+				return 0;
+
+			long rank = Math.max(1, (long)Math.ceil(percentile / 100 * n));
+			long seen = 0;
+			int i = 0;
+			while (i < counts.length-1 && seen + counts[i] < rank)
+				seen += counts[i++];
+			return Math.min(bucketTop(i), maxNanos.get());
+		}
+
+		//reset - empties the histogram
+		public void reset()
+		{
+			for (LongAdder bucket : buckets)
+				bucket.reset();
+			count.reset();
+			totalNanos.reset();
+			maxNanos.reset();
+		}
+
+		//bucketOf - returns the bucket a time goes in: the small times get one each, and every power of two above
+		//           them is split into SUB_BUCKETS by the bits just below its top bit
+		private static int bucketOf(long nanos)
+		{
+			if (nanos < SUB_BUCKETS)
+				return (int)nanos;
+			int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+			int subBucket = (int)(nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+			return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+		}
+
+		//bucketTop - returns the longest time that goes in the bucket
+		private static long bucketTop(int bucket)
+		{
+			if (bucket < SUB_BUCKETS)
+				return bucket;
+			int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+			long width = 1L << (exponent - SUB_BUCKET_BITS);
+			long bottom = (long)(SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+			return bottom + width - 1;
+		}
+	}
+}//end of class
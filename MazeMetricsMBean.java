@@ -0,0 +1,36 @@
+/*
+In this program, we will describe what MazeMetrics shows through JMX (for example, in jconsole, under
+"MazeSolverGame:type=MazeMetrics").  Times are in milliseconds; the percentiles are within about 12% of the real value.
+*/
+
+public interface MazeMetricsMBean
+{
+	//isEnabled/setEnabled - whether anything is being counted at all
+	public boolean isEnabled();
+	public void setEnabled(boolean enabled);
+
+	//the mazes that were built
+	public long getMazesBuilt();
+	public long getCellsBuilt();
+	public double getBuildMillisMean();
+	public double getBuildMillisP50();
+	public double getBuildMillisP99();
+	public double getBuildMillisMax();
+
+	//the moves the solvers made
+	public long getMovesForward();
+	public long getBacktracks();
+	public double getBacktrackRatio();
+	public double getMovesPerSecond();
+	public long getMaxStackDepth();
+
+	//the solves that reached their goal
+	public long getSolvesCompleted();
+	public double getSolveMillisMean();
+	public double getSolveMillisP50();
+	public double getSolveMillisP99();
+	public double getSolveMillisMax();
+
+	//reset - starts counting again from zero
+	public void reset();
+}
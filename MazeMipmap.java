@@ -0,0 +1,262 @@
+/* This program keeps a pyramid of downsampled copies (mipmaps) of a Maze, so a view that is
+    zoomed far out can be drawn one pixel at a time without looking at every cell under each
+    pixel.  On level L, one texel stands for a block of 2^L x 2^L cells and holds
+        - how dense the walls in the block are (0 = no walls, 255 = every wall standing)
+        - how many cells of the block are on the Maze's current path
+    Each level is built from the one below it, and the whole pyramid is built once, in parallel.
+    The finest levels are skipped for big mazes so the pyramid stays small (a block of cells is
+    then looked at one cell at a time - see rgbAt).  The mipmap listens to the Maze, so the path
+    counts follow the Maze as it moves; the walls never change once a maze has been built, so it
+    should be made from a built Maze (it does not listen to the builder).
+    A grid with more than MAX_SUMMARIZED_CELLS cells (a ChunkedMazeGrid, say) is never
+    summarized at all: every level is looked up one cell at a time, and the view is only let
+    zoom out as far as SAMPLED_TOP_LEVEL, so a frame never touches more than a few screens'
+    worth of cells.
+ */
+
+public class MazeMipmap extends MazeAdapter
+{
+	//-------constants
+	private static final int MAX_BASE_TEXELS = 1 << 22;
+	private static final long MAX_SUMMARIZED_CELLS = 1L << 36;
+	private static final int SAMPLED_TOP_LEVEL = 1;
+
+	private static final int PATH_RGB = MazeRenderer.cellColor(MazeGrid.PATH).getRGB();
+	private static final int GOAL_RGB = MazeRenderer.cellColor(MazeGrid.GOAL).getRGB();
+
+	//-------data
+	private Maze myMaze;
+	private MazeGrid grid;
+	private int baseLevel;
+	private int numLevels;
+	private int[ ] levelRows;
+	private int[ ] levelCols;
+	private byte[ ][ ] wallDensity;   //indexed by level - baseLevel, then texel row * levelCols + texel col
+	private int[ ][ ] pathCount;
+
+	//-------constructors
+	public MazeMipmap(Maze aMaze)
+	{
+		if (aMaze == null)
+			throw new IllegalArgumentException("trying to create a MazeMipmap with a null Maze");
+
+		myMaze = aMaze;
+		grid = aMaze.getGrid();
+
+		//the top level is the first one where the whole maze fits in a single texel
+		int numRows = grid.getNumRows();
+		int numCols = grid.getNumCols();
+		int topLevel = 0;
+		while ((numRows-1 >> topLevel) > 0 || (numCols-1 >> topLevel) > 0)
+			topLevel++;
+
+		//and the bottom level is the finest one (but at least 1, since level 0 is the grid itself) that is small enough -
+		//unless the grid is too big to look at every cell, in which case no level is stored
+		if ((long)numRows * numCols > MAX_SUMMARIZED_CELLS)
+		{
+			topLevel = SAMPLED_TOP_LEVEL;
+			baseLevel = topLevel + 1;
+		}
+		else
+		{
+			baseLevel = Math.min(1, topLevel);
+			while (baseLevel < topLevel && texels(baseLevel) > MAX_BASE_TEXELS)
+				baseLevel++;
+		}
+		numLevels = topLevel - baseLevel + 1;
+
+		levelRows = new int[topLevel + 1];
+		levelCols = new int[topLevel + 1];
+		wallDensity = new byte[numLevels][];
+		pathCount = new int[numLevels][];
+		for (int level=baseLevel; level<=topLevel; level++)
+		{
+			levelRows[level] = blocks(numRows, level);
+			levelCols[level] = blocks(numCols, level);
+			wallDensity[level - baseLevel] = new byte[levelRows[level] * levelCols[level]];
+			pathCount[level - baseLevel] = new int[levelRows[level] * levelCols[level]];
+		}
+
+		if (numLevels > 0)
+			buildBaseLevel();
+		for (int level=baseLevel+1; level<=topLevel; level++)
+			buildLevel(level);
+
+		aMaze.addMazeListener(this);
+	}
+
+	// **************** methods *******************************************
+
+	//-------- getBaseLevel - returns the finest level that is stored (finer levels are looked up in the grid)
+	public int getBaseLevel()
+	{
+		return baseLevel;
+	}
+
+	//-------- getTopLevel - returns the level where the whole maze is a single texel (or, for a grid that is too big
+	//                      to summarize, the coarsest level it may be looked at)
+	public int getTopLevel()
+	{
+		return baseLevel + numLevels - 1;
+	}
+
+	//-------- getLevelRows - returns how many texel rows the level has
+	public int getLevelRows(int level)
+	{
+		return blocks(grid.getNumRows(), level);
+	}
+
+	//-------- getLevelCols - returns how many texel columns the level has
+	public int getLevelCols(int level)
+	{
+		return blocks(grid.getNumCols(), level);
+	}
+
+	//-------- rgbAt - returns the color of the texel [blockRow][blockCol] on the level: the goal's color if the goal
+	//                 is in its block, the path's color if any of its cells are on the path, and otherwise a gray as
+	//                 dark as its walls are dense.  Below the base level, the block's upper left cell stands for it.
+	public int rgbAt(int level, int blockRow, int blockCol)
+	{
+		if ((myMaze.getGoalRow() >> level) == blockRow && (myMaze.getGoalCol() >> level) == blockCol)
+			return GOAL_RGB;
+
+		if (level < baseLevel)
+		{
+			int row = blockRow << level;
+			int col = blockCol << level;
+			if (grid.getState(row, col) == MazeGrid.PATH)
+				return PATH_RGB;
+			int walls = (grid.hasWall(row, col, Direction.RIGHT) ? 1 : 0) + (grid.hasWall(row, col, Direction.DOWN) ? 1 : 0);
+			return gray(walls * 255 / 2);
+		}
+
+		int index = blockRow * levelCols[level] + blockCol;
+		if (pathCount[level - baseLevel][index] > 0)
+			return PATH_RGB;
+		return gray(wallDensity[level - baseLevel][index] & 0xFF);
+	}
+
+	//-------- moved - keeps the path counts up to date: a move forward adds the new cell to the path
+	public void moved(Maze aMaze, int fromRow, int fromCol, int toRow, int toCol)
+	{
+		addToPath(toRow, toCol, 1);
+	}
+
+	//-------- backtracked - keeps the path counts up to date: a move back takes the old cell off the path
+	public void backtracked(Maze aMaze, int fromRow, int fromCol, int toRow, int toCol)
+	{
+		removeFromPath(fromRow, fromCol);
+	}
+
+	//-------- removeFromPath - takes the cell off the path count of its texel on every level
+	private void removeFromPath(int row, int col)
+	{
+		addToPath(row, col, -1);
+	}
+
+	//-------- addToPath - adds delta to the path count of the cell's texel on every level
+	private void addToPath(int row, int col, int delta)
+	{
+		for (int level=baseLevel; level<baseLevel+numLevels; level++)
+			pathCount[level - baseLevel][(row >> level) * levelCols[level] + (col >> level)] += delta;
+	}
+
+	//-------- buildBaseLevel - counts the walls and the path cells of every block of the base level, a stripe of
+	//                          texel rows at a time on the common ForkJoinPool
+	private void buildBaseLevel()
+	{
+		final int numRows = grid.getNumRows();
+		final int numCols = grid.getNumCols();
+		final int numTexelCols = levelCols[baseLevel];
+		final byte[ ] density = wallDensity[0];
+		final int[ ] paths = pathCount[0];
+
+		java.util.ArrayList<java.util.concurrent.Callable<Void>> stripes = new java.util.ArrayList<java.util.concurrent.Callable<Void>>();
+		for (int texelRow=0; texelRow<levelRows[baseLevel]; texelRow++)
+		{
+			final int theTexelRow = texelRow;
+			stripes.add(new java.util.concurrent.Callable<Void>()
+			{
+				public Void call()
+				{
+					int[ ] walls = new int[numTexelCols];
+					int firstRow = theTexelRow << baseLevel;
+					int lastRow = Math.min(numRows, firstRow + (1 << baseLevel));
+					for (int row=firstRow; row<lastRow; row++)
+						for (int col=0; col<numCols; col++)
+						{
+							int texel = col >> baseLevel;
+							if (grid.hasWall(row, col, Direction.RIGHT))
+								walls[texel]++;
+							if (grid.hasWall(row, col, Direction.DOWN))
+								walls[texel]++;
+							if (grid.getState(row, col) == MazeGrid.PATH)
+								paths[theTexelRow * numTexelCols + texel]++;
+						}
+
+					for (int texel=0; texel<numTexelCols; texel++)
+					{
+						int numCells = (lastRow - firstRow) * (Math.min(numCols, (texel + 1) << baseLevel) - (texel << baseLevel));
+						density[theTexelRow * numTexelCols + texel] = (byte)(255 * walls[texel] / (2 * numCells));
+					}
+					return null;
+				}
+			});
+		}
+
+		for (java.util.concurrent.Future<Void> stripe : java.util.concurrent.ForkJoinPool.commonPool().invokeAll(stripes))
+		{
+			try{ stripe.get(); }
+			catch(InterruptedException ex) { Thread.currentThread().interrupt(); throw new IllegalStateException("interrupted while building the mipmap", ex); }
+			catch(java.util.concurrent.ExecutionException ex) { throw new IllegalStateException("could not build the mipmap", ex.getCause()); }
+		}
+	}
+
+	//-------- buildLevel - builds the level from the 2x2 texels below each of its texels (the density is their
+	//                      average, the path count is their sum)
+	private void buildLevel(int level)
+	{
+		int below = level - 1 - baseLevel;
+		int belowRows = levelRows[level-1];
+		int belowCols = levelCols[level-1];
+		byte[ ] density = wallDensity[level - baseLevel];
+		int[ ] paths = pathCount[level - baseLevel];
+
+		for (int texelRow=0; texelRow<levelRows[level]; texelRow++)
+			for (int texelCol=0; texelCol<levelCols[level]; texelCol++)
+			{
+				int densitySum = 0;
+				int pathSum = 0;
+				int numChildren = 0;
+				for (int childRow=2*texelRow; childRow<Math.min(belowRows, 2*texelRow+2); childRow++)
+					for (int childCol=2*texelCol; childCol<Math.min(belowCols, 2*texelCol+2); childCol++)
+					{
+						densitySum += wallDensity[below][childRow * belowCols + childCol] & 0xFF;
+						pathSum += pathCount[below][childRow * belowCols + childCol];
+						numChildren++;
+					}
+
+				density[texelRow * levelCols[level] + texelCol] = (byte)(densitySum / numChildren);
+				paths[texelRow * levelCols[level] + texelCol] = pathSum;
+			}
+	}
+
+	//-------- texels - returns how many texels the level has
+	private long texels(int level)
+	{
+		return (long)blocks(grid.getNumRows(), level) * blocks(grid.getNumCols(), level);
+	}
+
+	//-------- blocks - returns how many blocks of 2^level cells it takes to cover numCells cells
+	private static int blocks(int numCells, int level)
+	{
+		return (int)(((long)numCells + (1L << level) - 1) >> level);
+	}
+
+	//-------- gray - returns the color for a wall density: white for no walls, black for all of them
+	private static int gray(int density)
+	{
+		int shade = 255 - density;
+		return 0xFF000000 | (shade << 16) | (shade << 8) | shade;
+	}
+}
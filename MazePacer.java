@@ -0,0 +1,51 @@
+// This class slows a Maze down so it can be watched: it sleeps on the Maze's own thread for every step the builder
+// takes (the build delay) and for every move, forward or back (the solve delay).  Maze.buildMaze(delay) and
+// Maze.setSolveAnimationDelay add one for you; a delay of 0 leaves that kind of step alone.
+
+public class MazePacer extends MazeAdapter
+{
+	//------------ data
+	private int buildDelay;
+	private int solveDelay;
+
+	//-----------  constructor(s)
+	// Parameterized constructor which receives the delays (in milliseconds)
+	public MazePacer(int buildDelay, int solveDelay)
+	{
+		if (buildDelay < 0 || solveDelay < 0)
+			throw new IllegalArgumentException("animation delays must be >= 0");
+
+		this.buildDelay = buildDelay;
+		this.solveDelay = solveDelay;
+	}
+
+	//-----------  methods(s)
+
+	//cellVisited - waits out the build delay
+	public void cellVisited(Maze aMaze, int row, int col)
+	{
+		pause(buildDelay);
+	}
+
+	//moved - waits out the solve delay
+	public void moved(Maze aMaze, int fromRow, int fromCol, int toRow, int toCol)
+	{
+		pause(solveDelay);
+	}
+
+	//backtracked - waits out the solve delay
+	public void backtracked(Maze aMaze, int fromRow, int fromCol, int toRow, int toCol)
+	{
+		pause(solveDelay);
+	}
+
+	//pause - sleeps for the delay (if there is one); an interrupt cuts it short, and is passed on
+	private static void pause(int delay)
+	{
+		if (delay == 0)
+			return;
+
+		try{ Thread.sleep(delay); }
+		catch(InterruptedException ex) { Thread.currentThread().interrupt(); }
+	}
+}
@@ -0,0 +1,80 @@
+// This class draws a Maze (its cells and its walls) onto any Graphics, so it can be used by the
+// MazeDisplay as well as by code that draws into an offscreen image
+
+public class MazeRenderer
+{
+	//-----------  methods(s)
+
+	// cellColor - returns the color a cell with the given state is painted with
+	public static java.awt.Color cellColor(int state)
+	{
+		if (state == MazeGrid.GOAL)
+			return java.awt.Color.MAGENTA;   //goal
+		else if (state == MazeGrid.PATH)
+			return java.awt.Color.YELLOW;    //current
+		else
+			return java.awt.Color.WHITE;
+	}
+
+	// drawMaze - draws the whole Maze with its upper left corner at (left, top), cellDim pixels per cell
+	public static void drawMaze(java.awt.Graphics g, Maze aMaze, int cellDim, int left, int top)
+	{
+		// first fill in the cells, then draw the walls on top of them
+		drawCells(g, aMaze.getGrid(), cellDim, left, top);
+		drawWalls(g, aMaze.getGrid(), cellDim, left, top);
+	}
+
+	// drawCells - fills in every cell of the grid with the color of its state
+	public static void drawCells(java.awt.Graphics g, MazeGrid grid, int cellDim, int left, int top)
+	{
+		drawCells(g, grid, cellDim, left, top, 0, 0, grid.getNumRows()-1, grid.getNumCols()-1);
+	}
+
+	// drawCells - fills in the cells from [firstRow][firstCol] to [lastRow][lastCol] (for a view of part of the maze;
+	//             (left, top) is still where the upper left corner of the whole maze would be)
+	public static void drawCells(java.awt.Graphics g, MazeGrid grid, int cellDim, int left, int top,
+			int firstRow, int firstCol, int lastRow, int lastCol)
+	{
+		for (int row=firstRow; row<=lastRow; row++)
+			for (int col=firstCol; col<=lastCol; col++)
+				drawCell(g, grid, row, col, cellDim, left, top);
+	}
+
+	// drawCell - fills in the one cell at [row][col] with the color of its state
+	public static void drawCell(java.awt.Graphics g, MazeGrid grid, int row, int col, int cellDim, int left, int top)
+	{
+		g.setColor(cellColor(grid.getState(row, col)));
+		g.fillRect(left + col * cellDim, top + row * cellDim, cellDim, cellDim);
+	}
+
+	// drawWalls - draws every wall of the grid (and the borders) in black
+	public static void drawWalls(java.awt.Graphics g, MazeGrid grid, int cellDim, int left, int top)
+	{
+		drawWalls(g, grid, cellDim, left, top, 0, 0, grid.getNumRows()-1, grid.getNumCols()-1);
+	}
+
+	// drawWalls - draws the walls of the cells from [firstRow][firstCol] to [lastRow][lastCol] in black (see drawCells)
+	public static void drawWalls(java.awt.Graphics g, MazeGrid grid, int cellDim, int left, int top,
+			int firstRow, int firstCol, int lastRow, int lastCol)
+	{
+		g.setColor(java.awt.Color.BLACK);
+
+		// the top and left borders are never stored in the grid, but they are always there
+		if (firstRow == 0)
+			g.drawLine(left + firstCol * cellDim, top, left + (lastCol+1) * cellDim, top);
+		if (firstCol == 0)
+			g.drawLine(left, top + firstRow * cellDim, left, top + (lastRow+1) * cellDim);
+
+		for (int row=firstRow; row<=lastRow; row++)
+			for (int col=firstCol; col<=lastCol; col++)
+			{
+				int startx = left + col * cellDim;
+				int starty = top + row * cellDim;
+
+				if (grid.hasWall(row, col, Direction.RIGHT))    //the vertical wall to the right of the cell
+					g.drawLine(startx + cellDim, starty, startx + cellDim, starty + cellDim);
+				if (grid.hasWall(row, col, Direction.DOWN))     //the horizontal wall below the cell
+					g.drawLine(startx, starty + cellDim, startx + cellDim, starty + cellDim);
+			}
+	}
+}
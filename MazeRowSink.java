@@ -0,0 +1,8 @@
+// This is where a streaming maze generator sends its rows: each row is handed over as one byte per cell,
+// in the same encoding the MazeGrid uses (bit 0 = wall to the right, bit 1 = wall below, no state bits)
+
+public interface MazeRowSink
+{
+	//acceptRow - receives the cells of the given row (the array is reused for the next row, so copy what you keep)
+	public void acceptRow(int row, byte[] rowCells) throws java.io.IOException;
+}
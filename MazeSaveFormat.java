@@ -0,0 +1,404 @@
+/*
+In this program, we will save and load a MazeSolver's game in a compact, versioned binary format instead of
+serializing the whole object graph.  Everything is packed into bits and written through a FileChannel:
+	int    MAGIC ("MZSV")
+	short  VERSION
+	int    rows, cols
+	int    current row, current col, goal row, goal col
+	long   number of Directions on the stack
+	bytes  walls:    2 bits per cell (right wall, down wall), 4 cells per byte, row major
+	bytes  visited:  1 bit per cell, 8 cells per byte, row major
+	bytes  stack:    2 bits per Direction (its ordinal), 4 per byte, bottom of the stack first
+	long   CRC32 of everything above
+The path the solver has walked is not stored: it is the stack, replayed from the upper left corner.  Games that the
+original game saved with Java serialization are recognized and still load: Maze, MazeSolver, MazeGrid and Stack pin
+their serialVersionUIDs to the original ones, and Maze and MazeSolver convert the old fields in their readObject.
+*/
+
+import java.util.*;
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+
+public class MazeSaveFormat
+{
+	//Data
+	public static final int MAGIC = 0x4D5A5356;   //"MZSV"
+	public static final short VERSION = 1;
+
+	private static final int BUFFER_BYTES = 1 << 16;
+	private static final int JAVA_SERIALIZATION_MAGIC = 0xACED;
+
+	//Methods
+	//save - writes the solver's game to the file, and returns its checksum
+	public static long save(MazeSolver solver, String fileName) throws IOException
+	{
+		FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		try
+		{
+			return write(solver, channel);
+		}
+		finally
+		{
+			channel.close();
+		}
+	}
+
+	//load - reads a game from the file, whichever format it was saved in
+	public static MazeSolver load(String fileName) throws IOException
+	{
+		FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+		try
+		{
+			//games saved with ObjectOutputStream start with the serialization stream's magic number
+			ByteBuffer first = ByteBuffer.allocate(2);
+			channel.read(first, 0);
+			if (first.position() == 2 && (first.getShort(0) & 0xFFFF) == JAVA_SERIALIZATION_MAGIC)
+				return loadSerialized(fileName);
+
+			return read(channel);
+		}
+		finally
+		{
+			channel.close();
+		}
+	}
+
+	//write - writes the solver's game to the channel, and returns its checksum
+	public static long write(MazeSolver solver, WritableByteChannel channel) throws IOException
+	{
+		if (solver.myMaze == null)
+			throw new IllegalStateException("only a solver that walks its own Maze can be saved");
+
+		Maze myMaze = solver.myMaze;
+		MazeGrid grid = myMaze.getGrid();
+		int numRows = grid.getNumRows();
+		int numCols = grid.getNumCols();
+		DirectionStack stack = solver.myStack;
+
+		CheckedWriter out = new CheckedWriter(channel);
+		out.putInt(MAGIC);
+		out.putShort(VERSION);
+		out.putInt(numRows);
+		out.putInt(numCols);
+		out.putInt(myMaze.getCurrentRow());
+		out.putInt(myMaze.getCurrentCol());
+		out.putInt(myMaze.getGoalRow());
+		out.putInt(myMaze.getGoalCol());
+		out.putLong(stack.size());
+
+		//the walls, 4 cells to a byte
+		byte[] rowCells = new byte[numCols];
+		int packed = 0;
+		long cell = 0;
+		for (int row=0; row<numRows; row++)
+		{
+			grid.getRowWalls(row, rowCells);
+			for (int col=0; col<numCols; col++, cell++)
+			{
+				packed |= rowCells[col] << (2*(cell & 3));
+				if ((cell & 3) == 3)
+				{
+					out.putByte(packed);
+					packed = 0;
+				}
+			}
+		}
+		if ((cell & 3) != 0)
+			out.putByte(packed);
+
+		//the visited cells, 8 to a byte
+		packed = 0;
+		cell = 0;
+		for (int row=0; row<numRows; row++)
+			for (int col=0; col<numCols; col++, cell++)
+			{
+				if (solver.isVisited(row, col))
+					packed |= 1 << (cell & 7);
+				if ((cell & 7) == 7)
+				{
+					out.putByte(packed);
+					packed = 0;
+				}
+			}
+		if ((cell & 7) != 0)
+			out.putByte(packed);
+
+		//the stack, 4 Directions to a byte
+		packed = 0;
+		for (int i=0; i<stack.size(); i++)
+		{
+			packed |= stack.get(i).ordinal() << (2*(i & 3));
+			if ((i & 3) == 3)
+			{
+				out.putByte(packed);
+				packed = 0;
+			}
+		}
+		if ((stack.size() & 3) != 0)
+			out.putByte(packed);
+
+		return out.finish();
+	}
+
+	//read - reads a game in this format from the channel
+	public static MazeSolver read(ReadableByteChannel channel) throws IOException
+	{
+		CheckedReader in = new CheckedReader(channel);
+		if (in.getInt() != MAGIC)
+			throw new IOException("not a saved maze game");
+
+		//every version this program has written is read here (there is only one so far)
+		short version = in.getShort();
+		if (version != VERSION)
+			throw new IOException("saved maze game has unknown format version " + version);
+
+		int numRows = in.getInt();
+		int numCols = in.getInt();
+		int currentRow = in.getInt();
+		int currentCol = in.getInt();
+		int goalRow = in.getInt();
+		int goalCol = in.getInt();
+		long stackSize = in.getLong();
+		if (numRows < 2 || numCols < 2 || stackSize < 0 || stackSize > (long)numRows * numCols)
+			throw new IOException("saved maze game has a corrupt header");
+
+		//the walls
+		MazeGrid grid = new MazeGrid(numRows, numCols);
+		byte[] rowCells = new byte[numCols];
+		int packed = 0;
+		long cell = 0;
+		for (int row=0; row<numRows; row++)
+		{
+			for (int col=0; col<numCols; col++, cell++)
+			{
+				if ((cell & 3) == 0)
+					packed = in.getByte();
+				rowCells[col] = (byte)((packed >> (2*(cell & 3))) & 3);
+			}
+			grid.setRowWalls(row, rowCells);
+		}
+
+		//the visited cells, which are already in the order of the solver's bitset: 8 bytes to a long, lowest first
+		long numCells = (long)numRows * numCols;
+		long[] visited = new long[MazeSolver.visitedWords(numRows, numCols)];
+		for (long i=0; i<(numCells + 7) / 8; i++)
+			visited[(int)(i >>> 3)] |= (long)in.getByte() << (8*(i & 7));
+		if (numCells % 64 != 0)
+			visited[visited.length-1] &= (1L << (numCells % 64)) - 1;   //(the bits after the last cell are padding)
+
+		//the stack
+		DirectionStack stack = new DirectionStack();
+		for (long i=0; i<stackSize; i++)
+		{
+			if ((i & 3) == 0)
+				packed = in.getByte();
+			stack.push(SolverStrategies.DIRECTIONS[(packed >> (2*(i & 3))) & 3]);
+		}
+
+		in.finish();
+
+		//rebuild the maze and walk the stack's path from the start, which marks the path and puts us back
+		Maze myMaze;
+		try
+		{
+			myMaze = new Maze(grid);
+			for (int i=0; i<stack.size(); i++)
+				myMaze.move(stack.get(i));
+		}
+		catch (IllegalArgumentException ex)
+		{
+			throw new IOException("saved maze game is not consistent: " + ex.getMessage(), ex);
+		}
+		if (myMaze.getCurrentRow() != currentRow || myMaze.getCurrentCol() != currentCol ||
+				myMaze.getGoalRow() != goalRow || myMaze.getGoalCol() != goalCol)
+			throw new IOException("saved maze game is not consistent: its path does not end at its current cell");
+
+		return new MazeSolver(myMaze, stack, visited);
+	}
+
+	//readChecksum - returns the checksum stored at the end of a game saved in this format, without reading the game
+	public static long readChecksum(String fileName) throws IOException
+	{
+		FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+		try
+		{
+			ByteBuffer checksum = ByteBuffer.allocate(8);
+			while (checksum.hasRemaining())
+				if (channel.read(checksum, channel.size() - 8 + checksum.position()) < 0)
+					throw new EOFException("saved maze game ended early");
+			return checksum.getLong(0);
+		}
+		finally
+		{
+			channel.close();
+		}
+	}
+
+	//loadSerialized - reads a game that was saved with Java serialization
+	private static MazeSolver loadSerialized(String fileName) throws IOException
+	{
+		ObjectInputStream oisVar = new ObjectInputStream(new FileInputStream(fileName));
+		try
+		{
+			return (MazeSolver)oisVar.readObject();
+		}
+		catch (ClassNotFoundException ex)
+		{
+			throw new IOException("saved maze game refers to a missing class", ex);
+		}
+		finally
+		{
+			oisVar.close();
+		}
+	}
+
+	//***********************************************************************
+
+	//CheckedWriter buffers what is written to a channel and keeps a CRC32 of it
+	private static class CheckedWriter
+	{
+		private WritableByteChannel channel;
+		private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+		private java.util.zip.CRC32 crc = new java.util.zip.CRC32();
+
+		public CheckedWriter(WritableByteChannel channel)
+		{
+			this.channel = channel;
+		}
+
+		public void putByte(int value) throws IOException
+		{
+			ensureRoom(1);
+			buffer.put((byte)value);
+		}
+
+		public void putShort(short value) throws IOException
+		{
+			ensureRoom(2);
+			buffer.putShort(value);
+		}
+
+		public void putInt(int value) throws IOException
+		{
+			ensureRoom(4);
+			buffer.putInt(value);
+		}
+
+		public void putLong(long value) throws IOException
+		{
+			ensureRoom(8);
+			buffer.putLong(value);
+		}
+
+		//finish - writes the checksum of everything written so far, flushes, and returns the checksum
+		public long finish() throws IOException
+		{
+			drain();
+			long checksum = crc.getValue();
+			buffer.putLong(checksum);
+			buffer.flip();
+			while (buffer.hasRemaining())
+				channel.write(buffer);
+			buffer.clear();
+			return checksum;
+		}
+
+		private void ensureRoom(int numBytes) throws IOException
+		{
+			if (buffer.remaining() < numBytes)
+				drain();
+		}
+
+		private void drain() throws IOException
+		{
+			buffer.flip();
+			crc.update(buffer.duplicate());
+			while (buffer.hasRemaining())
+				channel.write(buffer);
+			buffer.clear();
+		}
+	}
+
+	//***********************************************************************
+
+	//CheckedReader buffers what is read from a channel and keeps a CRC32 of it
+	private static class CheckedReader
+	{
+		private ReadableByteChannel channel;
+		private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+		private java.util.zip.CRC32 crc = new java.util.zip.CRC32();
+
+		public CheckedReader(ReadableByteChannel channel)
+		{
+			this.channel = channel;
+			buffer.flip();   //start out empty
+		}
+
+		public int getByte() throws IOException
+		{
+			ensureAvailable(1);
+			return buffer.get() & 0xFF;
+		}
+
+		public short getShort() throws IOException
+		{
+			ensureAvailable(2);
+			return buffer.getShort();
+		}
+
+		public int getInt() throws IOException
+		{
+			ensureAvailable(4);
+			return buffer.getInt();
+		}
+
+		public long getLong() throws IOException
+		{
+			ensureAvailable(8);
+			return buffer.getLong();
+		}
+
+		//finish - reads the stored checksum and makes sure it matches what was read
+		public void finish() throws IOException
+		{
+			checksumConsumed();
+			long expected = crc.getValue();
+
+			//the stored checksum itself is not part of what it covers
+			buffer.compact();
+			fill(8);
+			if (buffer.getLong() != expected)
+				throw new IOException("saved maze game is corrupt (checksum mismatch)");
+		}
+
+		private void ensureAvailable(int numBytes) throws IOException
+		{
+			if (buffer.remaining() < numBytes)
+			{
+				checksumConsumed();
+				buffer.compact();
+				fill(numBytes);
+			}
+		}
+
+		//checksumConsumed - adds the bytes that were read from the buffer to the checksum, before they are dropped
+		private void checksumConsumed()
+		{
+			ByteBuffer consumed = buffer.duplicate();
+			consumed.flip();
+			crc.update(consumed);
+		}
+
+		//fill - reads from the channel (the buffer is in write mode) until numBytes are available, then flips it
+		private void fill(int numBytes) throws IOException
+		{
+			while (buffer.position() < numBytes)
+				if (channel.read(buffer) < 0)
+					throw new EOFException("saved maze game ended early");
+			buffer.flip();
+		}
+	}
+}//end of class
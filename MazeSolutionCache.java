@@ -0,0 +1,354 @@
+/*
+In this program, we will keep the solutions of the mazes that have been solved, so solving the same maze again (from
+the same start to the same goal) is a lookup instead of a search.  A solution is keyed by the maze's layout
+fingerprint (see Maze.getLayoutFingerprint - the walls only, so it does not matter where the maze has been walked to)
+and its two end cells, and its path is packed into 2 bits per step.  The cache holds at most maxBytes of solutions:
+when it is full, the ones that were used least recently are evicted first, however many it takes to make room.
+It counts its hits, misses and evictions, and it can be saved to a file and loaded again, so a warm cache survives a
+restart:
+    int   MAGIC ("MZSC")
+    short VERSION
+    int   number of solutions, then for each (least recently used first):
+        long  layout fingerprint
+        int   start row, start col, goal row, goal col
+        int   number of steps, then the steps, 32 to a long
+    long  CRC32 of everything before it
+*/
+
+import java.util.*;
+import java.io.*;
+
+public class MazeSolutionCache
+{
+	//Data
+	public static final int MAGIC = 0x4D5A5343;   //"MZSC"
+	public static final short VERSION = 1;
+
+	private static final int STEPS_PER_WORD = 32;
+	private static final int ENTRY_OVERHEAD_BYTES = 96;   //about what the key, the path object and the map entry cost
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	private long maxBytes;
+	private long numBytes;
+	private LinkedHashMap<Key, Path> solutions = new LinkedHashMap<Key, Path>(16, 0.75f, true);   //in order of use
+	private long numHits;
+	private long numMisses;
+	private long numEvictions;
+
+	//Constructor
+	//which will receive how many bytes of solutions the cache may hold
+	public MazeSolutionCache(long maxBytes)
+	{
+		if (maxBytes < 1)
+			throw new IllegalArgumentException("the cache must be able to hold at least one byte");
+
+		this.maxBytes = maxBytes;
+	}
+
+	//Methods
+	//solve - returns the path from the maze's start (the upper left corner) to its goal, from the cache if it is
+	//        there, and otherwise by solving it (see the other solve)
+	public SolveResult solve(Maze aMaze)
+	{
+		return solve(aMaze, 0, 0, aMaze.getGoalRow(), aMaze.getGoalCol());
+	}
+
+	//solve - returns the path from [startRow][startCol] to [goalRow][goalCol] of a built maze.  A hit costs no moves
+	//        at all; a miss is solved by a MazeSolver walking a MazeCursor (so the maze itself is not moved, and any
+	//        number of threads can share the maze and the cache), and its path is kept for next time.
+	public SolveResult solve(Maze aMaze, int startRow, int startCol, int goalRow, int goalCol)
+	{
+		long startTime = System.nanoTime();
+		Key key = new Key(aMaze.getLayoutFingerprint(), startRow, startCol, goalRow, goalCol);
+
+		ArrayList<Direction> path = get(key);
+		if (path != null)
+			return new SolveResult(path, 0, System.nanoTime() - startTime, 0, 0);
+
+		SolveResult result = new MazeSolver(aMaze.newCursor(startRow, startCol, goalRow, goalCol)).solveFully();
+		put(key, result.getPath());
+		return result;
+	}
+
+	//get - returns the cached path from [startRow][startCol] to [goalRow][goalCol] of the maze with the given layout
+	//      fingerprint, or null if it is not cached
+	public ArrayList<Direction> get(long layoutFingerprint, int startRow, int startCol, int goalRow, int goalCol)
+	{
+		return get(new Key(layoutFingerprint, startRow, startCol, goalRow, goalCol));
+	}
+
+	//put - caches the path from [startRow][startCol] to [goalRow][goalCol] of the maze with the given layout
+	//      fingerprint (a path that is bigger than the whole cache is not kept)
+	public void put(long layoutFingerprint, int startRow, int startCol, int goalRow, int goalCol, List<Direction> path)
+	{
+		put(new Key(layoutFingerprint, startRow, startCol, goalRow, goalCol), path);
+	}
+
+	//getHits - returns how many lookups found their path
+	public synchronized long getHits()
+	{
+		return numHits;
+	}
+
+	//getMisses - returns how many lookups did not
+	public synchronized long getMisses()
+	{
+		return numMisses;
+	}
+
+	//getEvictions - returns how many paths were thrown out to make room for others
+	public synchronized long getEvictions()
+	{
+		return numEvictions;
+	}
+
+	//getHitRatio - returns the fraction of the lookups that found their path
+	public synchronized double getHitRatio()
+	{
+		long numLookups = numHits + numMisses;
+		return (numLookups == 0) ? 0 : (double)numHits / numLookups;
+	}
+
+	//getSize - returns how many paths are cached
+	public synchronized int getSize()
+	{
+		return solutions.size();
+	}
+
+	//getBytes - returns about how many bytes the cached paths take up
+	public synchronized long getBytes()
+	{
+		return numBytes;
+	}
+
+	//getMaxBytes - returns how many bytes the cache may hold
+	public long getMaxBytes()
+	{
+		return maxBytes;
+	}
+
+	//clear - throws out every path (the statistics are kept)
+	public synchronized void clear()
+	{
+		solutions.clear();
+		numBytes = 0;
+	}
+
+	//toString - returns the statistics as a single line
+	public synchronized String toString()
+	{
+		return solutions.size() + " paths (" + numBytes + " of " + maxBytes + " bytes), " + numHits + " hits, " +
+				numMisses + " misses, " + numEvictions + " evictions, hit ratio " + String.format("%.3f", getHitRatio());
+	}
+
+	//save - writes every cached path to the file (replacing it only once the new one is complete)
+	public synchronized void save(String fileName) throws IOException
+	{
+		File file = new File(fileName);
+		File tempFile = new File(fileName + ".tmp");
+
+		java.util.zip.CRC32 crc = new java.util.zip.CRC32();
+		DataOutputStream out = new DataOutputStream(new java.util.zip.CheckedOutputStream(
+				new BufferedOutputStream(new FileOutputStream(tempFile)), crc));
+		try
+		{
+			out.writeInt(MAGIC);
+			out.writeShort(VERSION);
+			out.writeInt(solutions.size());
+
+			//least recently used first, so loading them in order puts them back in the same order
+			for (Map.Entry<Key, Path> entry : solutions.entrySet())
+			{
+				Key key = entry.getKey();
+				out.writeLong(key.layoutFingerprint);
+				out.writeInt(key.startRow);
+				out.writeInt(key.startCol);
+				out.writeInt(key.goalRow);
+				out.writeInt(key.goalCol);
+
+				Path path = entry.getValue();
+				out.writeInt(path.length);
+				for (long word : path.steps)
+					out.writeLong(word);
+			}
+
+			out.flush();
+			long checksum = crc.getValue();
+			out.writeLong(checksum);
+		}
+		finally
+		{
+			out.close();
+		}
+
+		java.nio.file.Files.move(tempFile.toPath(), file.toPath(), java.nio.file.StandardCopyOption.REPLACE_EXISTING,
+				java.nio.file.StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	//load - reads a cache that was saved to the file into a new cache that holds at most maxBytes (if the file holds
+	//       more than that, the paths that were used least recently are evicted as they are read)
+	public static MazeSolutionCache load(String fileName, long maxBytes) throws IOException
+	{
+		MazeSolutionCache cache = new MazeSolutionCache(maxBytes);
+
+		java.util.zip.CRC32 crc = new java.util.zip.CRC32();
+		DataInputStream in = new DataInputStream(new java.util.zip.CheckedInputStream(
+				new BufferedInputStream(new FileInputStream(fileName)), crc));
+		try
+		{
+			if (in.readInt() != MAGIC)
+				throw new IOException(fileName + " is not a maze solution cache");
+			short version = in.readShort();
+			if (version != VERSION)
+				throw new IOException("unsupported maze solution cache version " + version);
+
+			int numSolutions = in.readInt();
+			if (numSolutions < 0)
+				throw new IOException(fileName + " is corrupt (it holds " + numSolutions + " paths)");
+			for (int i=0; i<numSolutions; i++)
+			{
+				Key key = new Key(in.readLong(), in.readInt(), in.readInt(), in.readInt(), in.readInt());
+				int length = in.readInt();
+				if (length < 0)
+					throw new IOException(fileName + " is corrupt (a path has " + length + " steps)");
+				long[] steps = new long[wordsFor(length)];
+				for (int w=0; w<steps.length; w++)
+					steps[w] = in.readLong();
+				cache.put(key, new Path(steps, length));
+			}
+
+			long expected = crc.getValue();
+			if (in.readLong() != expected)
+				throw new IOException(fileName + " is corrupt (its checksum does not match)");
+		}
+		finally
+		{
+			in.close();
+		}
+
+		return cache;
+	}
+
+	//get - looks the key up (and counts the hit or the miss)
+	private synchronized ArrayList<Direction> get(Key key)
+	{
+		Path path = solutions.get(key);
+		if (path == null)
+		{
+			numMisses++;
+			return null;
+		}
+
+		numHits++;
+		return path.toList();
+	}
+
+	//put - packs the path and caches it
+	private void put(Key key, List<Direction> path)
+	{
+		long[] steps = new long[wordsFor(path.size())];
+		for (int i=0; i<path.size(); i++)
+			steps[i / STEPS_PER_WORD] |= (long)path.get(i).ordinal() << (2 * (i % STEPS_PER_WORD));
+		put(key, new Path(steps, path.size()));
+	}
+
+	//put - caches a packed path, then evicts the least recently used paths until the cache fits again
+	private synchronized void put(Key key, Path path)
+	{
+		if (path.weight() > maxBytes)
+			return;
+
+		Path old = solutions.put(key, path);
+		if (old != null)
+			numBytes -= old.weight();
+		numBytes += path.weight();
+
+		Iterator<Path> eldest = solutions.values().iterator();
+		while (numBytes > maxBytes)
+		{
+			numBytes -= eldest.next().weight();
+			eldest.remove();
+			numEvictions++;
+		}
+	}
+
+	//wordsFor - returns how many longs a path of the given length is packed into
+	private static int wordsFor(int length)
+	{
+		return (length + STEPS_PER_WORD - 1) / STEPS_PER_WORD;
+	}
+
+	//***********************************************************************
+
+	//Key is what a path is cached under: the layout of the maze and the two ends of the path
+	private static class Key
+	{
+		private final long layoutFingerprint;
+		private final int startRow;
+		private final int startCol;
+		private final int goalRow;
+		private final int goalCol;
+
+		//constructor - receives the parts of the key
+		private Key(long layoutFingerprint, int startRow, int startCol, int goalRow, int goalCol)
+		{
+			this.layoutFingerprint = layoutFingerprint;
+			this.startRow = startRow;
+			this.startCol = startCol;
+			this.goalRow = goalRow;
+			this.goalCol = goalCol;
+		}
+
+		//equals - returns true if every part is the same
+		public boolean equals(Object obj)
+		{
+			if (!(obj instanceof Key))
+				return false;
+			Key other = (Key)obj;
+			return layoutFingerprint == other.layoutFingerprint && startRow == other.startRow &&
+					startCol == other.startCol && goalRow == other.goalRow && goalCol == other.goalCol;
+		}
+
+		//hashCode - returns a hash code that agrees with equals
+		public int hashCode()
+		{
+			long hash = layoutFingerprint;
+			hash = hash * 31 + startRow;
+			hash = hash * 31 + startCol;
+			hash = hash * 31 + goalRow;
+			hash = hash * 31 + goalCol;
+			return (int)(hash ^ (hash >>> 32));
+		}
+	}
+
+	//***********************************************************************
+
+	//Path is a path packed 2 bits (a Direction's ordinal) to a step, 32 steps to a long
+	private static class Path
+	{
+		private final long[] steps;
+		private final int length;
+
+		//constructor - receives the packed steps and how many there are
+		private Path(long[] steps, int length)
+		{
+			this.steps = steps;
+			this.length = length;
+		}
+
+		//weight - returns about how many bytes the path takes up in the cache
+		private long weight()
+		{
+			return ENTRY_OVERHEAD_BYTES + 8L * steps.length;
+		}
+
+		//toList - unpacks the steps
+		private ArrayList<Direction> toList()
+		{
+			ArrayList<Direction> path = new ArrayList<Direction>(length);
+			for (int i=0; i<length; i++)
+				path.add(DIRECTIONS[(int)(steps[i / STEPS_PER_WORD] >>> (2 * (i % STEPS_PER_WORD))) & 3]);
+			return path;
+		}
+	}
+}//end of class
@@ -9,9 +9,15 @@ import java.lang.Math.*;
 public class MazeSolver implements Serializable  //we have to implement Serializable to be able to save our game
 {
 	//Data
+	//pinned to what Java computed for the original MazeSolver, so the games it saved still get as far as readObject
+	private static final long serialVersionUID = -5156952042503893528L;
+
 	protected Maze myMaze;
-	protected Stack<Direction> myStack;
-	protected boolean [][] visited;
+	protected MazeWalker myWalker;   //what step() moves: myMaze itself, or a MazeCursor on a shared maze
+	protected DirectionStack myStack;   //2 bits per move
+	protected long [] visited;          //1 bit per cell, row major (see isVisited)
+	protected int visitedCols;
+	protected transient MazeJournal myJournal;   //records every move once the game has been saved (see MazeJournal)
 
 	//Constructor
 	//which will be parameterized and will receive (numRows, numCols)
@@ -25,10 +31,61 @@ public class MazeSolver implements Serializable  //we have to implement Serializ
 
 		//set the moving speed
 		myMaze.setSolveAnimationDelay(0);
+		myWalker = myMaze;
+
+		//create the other data structure
+		myStack = new DirectionStack();
+		newVisited(numRows, numCols);
+	}
+
+	//Constructor
+	//which will receive a maze that has already been built (so a seeded or otherwise prepared maze can be solved)
+	public MazeSolver(Maze aMaze)
+	{
+		//make sure we received a maze
+		if (aMaze == null)
+			throw new IllegalArgumentException("trying to create a MazeSolver with a null Maze");
+
+		myMaze = aMaze;
+		myWalker = aMaze;
+
+		//create the other data structure
+		myStack = new DirectionStack();
+		newVisited(aMaze.getNumRows(), aMaze.getNumCols());
+	}
+
+	//Constructor
+	//which will receive a cursor on a shared maze; the cursor is moved instead of the maze, so many solvers (on many
+	//threads) can work on the same maze at once.  These solvers can only solveFully(), since there is nothing to display.
+	public MazeSolver(MazeCursor aCursor)
+	{
+		//make sure we received a cursor
+		if (aCursor == null)
+			throw new IllegalArgumentException("trying to create a MazeSolver with a null MazeCursor");
+
+		myWalker = aCursor;
 
 		//create the other data structure
-		myStack = new Stack<Direction>();
-		visited = new boolean [numRows][numCols];
+		myStack = new DirectionStack();
+		newVisited(aCursor.getNumRows(), aCursor.getNumCols());
+	}
+
+	//Constructor
+	//which will receive a game that was saved part way through: the maze (already moved back to where the solver was),
+	//the solver's stack and the cells it had visited, 1 bit per cell in row major order (see MazeSaveFormat)
+	public MazeSolver(Maze aMaze, DirectionStack aStack, long [] aVisited)
+	{
+		//make sure we received all of the game
+		if (aMaze == null || aStack == null || aVisited == null)
+			throw new IllegalArgumentException("trying to resume a MazeSolver from an incomplete game");
+		if (aVisited.length != visitedWords(aMaze.getNumRows(), aMaze.getNumCols()))
+			throw new IllegalArgumentException("the visited cells do not match the size of the maze");
+
+		myMaze = aMaze;
+		myWalker = aMaze;
+		myStack = aStack;
+		visited = aVisited;
+		visitedCols = aMaze.getNumCols();
 	}
 
 	//Methods
@@ -39,12 +96,20 @@ public class MazeSolver implements Serializable  //we have to implement Serializ
 		//declare the variables
 		String userChoice;
 		String fileName;
+		long startTime;
+		long numMoves = 0;
+		long cellsExpanded = 1;
+		long peakStackSize = myStack.size();
+
+		//a solver that walks a cursor has no Maze of its own to display
+		if (myMaze == null)
+			throw new IllegalStateException("cannot solve interactively - this solver walks a MazeCursor");
 
 		//create a new instance of MazeDisplay
 		MazeDisplay myMazeDisplay = new MazeDisplay(myMaze);
 
 		//mark the current cell as visited
-		visited [myMaze.getCurrentRow()][myMaze.getCurrentCol()]=true;
+		markVisited(myMaze.getCurrentRow(), myMaze.getCurrentCol());
 
 		//create a new instance of a scanner 0000
 		Scanner kb = new Scanner(System.in);
@@ -52,6 +117,9 @@ public class MazeSolver implements Serializable  //we have to implement Serializ
 		//prompt the user to enter Q to quit, S to save, or ENTER to move
 		System.out.println("Please enter Q to Quit, S to Save to a file, or ENTER to move: ");
 
+		//start the clock (the time includes the time the user took, since that is how long the solve took)
+		startTime = System.nanoTime();
+
 		//use a do-while loop to convert the userChoice into cases
 		do
 		{
@@ -59,7 +127,7 @@ public class MazeSolver implements Serializable  //we have to implement Serializ
 			userChoice = kb.nextLine();
 
 			//the magic starts here, we have to mark our current location as visited
-			visited [myMaze.getCurrentRow()][myMaze.getCurrentCol()]=true;
+			markVisited(myMaze.getCurrentRow(), myMaze.getCurrentCol());
 
 			//if userChoice is "S," serialize it to a file
 			if (userChoice.equalsIgnoreCase("s"))
@@ -69,16 +137,21 @@ public class MazeSolver implements Serializable  //we have to implement Serializ
 				//capture the file name
 				fileName = kb.nextLine();
 
-				//PART 1: Serialize it to a file
+				//PART 1: Save it to a file
 				//java require us to catch the exceptions
 				try
 				{
-					//create a new instance of ObjectOutputStream using the same file name provided by the user
-					ObjectOutputStream oosVar = new ObjectOutputStream(new FileOutputStream(fileName));
-					//tell oosVar to write the collected information into a binary file
-					oosVar.writeObject(this);
-					//close oosVar as a final step to save the binary file
-					oosVar.close();
+					//saving to the same file again only appends the moves made since the last save to its journal
+					if (myJournal != null && myJournal.getFileName().equals(fileName))
+						myJournal.checkpoint();
+					else
+					{
+						//otherwise write the walls, the visited cells and the stack in the compact save format, and
+						//start journaling from there
+						if (myJournal != null)
+							myJournal.close();
+						MazeJournal.start(this, fileName);
+					}
 				}
 				catch (Throwable ex)   //Throwable catches everything
 				{
@@ -89,62 +162,208 @@ public class MazeSolver implements Serializable  //we have to implement Serializ
 			//if userChoice is "ENTER," tell myMaze to move itself to the appropriate cell
 			if (userChoice.equals(""))
 			{
-				//below is the actual code that is used to solve the myMaze
-				//case1: if we are open in the Direction.UP
-				if (myMaze.isOpen(Direction.UP) && !visited [myMaze.getCurrentRow()-1][myMaze.getCurrentCol()])
-				{
-						myStack.push(Direction.UP);
-						myMaze.move(Direction.UP);
+				int stackSizeBefore = myStack.size();
+				step();
+				numMoves++;
 
-				}
-				//case2: if we are open in the Direction.DOWN
-				else if (myMaze.isOpen(Direction.DOWN) && !visited [myMaze.getCurrentRow()+1][myMaze.getCurrentCol()])
+				//a push means we moved forward into a new cell
+				if (myStack.size() > stackSizeBefore)
 				{
-						myStack.push(Direction.DOWN);
-						myMaze.move(Direction.DOWN);
-
+					cellsExpanded++;
+					peakStackSize = Math.max(peakStackSize, myStack.size());
 				}
-				//case3: if we are open in the Direction.LEFT
-				else if (myMaze.isOpen(Direction.LEFT) && !visited [myMaze.getCurrentRow()][myMaze.getCurrentCol()-1])
-				{
-						myStack.push(Direction.LEFT);
-						myMaze.move(Direction.LEFT);
+			}
+		}while ((!myMaze.goalReached()) && (!userChoice.equalsIgnoreCase("Q")) ); //keep running until the user enter "Q","q", or we have reached our goal
 
-				}
-				//case4: if we are open in the Direction.RIGHT
-				else if (myMaze.isOpen(Direction.RIGHT) && !visited [myMaze.getCurrentRow()][myMaze.getCurrentCol()+1])
-				{
-						myStack.push(Direction.RIGHT);
-						myMaze.move(Direction.RIGHT);
+		//count the solve if we got to the goal (not if the user quit), the same way solveFully() does
+		if (myMaze.goalReached())
+			MazeMetrics.get().solveFinished(new SolveResult(myStack.toArrayList(), numMoves, System.nanoTime() - startTime,
+					cellsExpanded, peakStackSize));
+	}
 
-				}
-				//case5: if we are here, that means that we have reached a dead end. What we have to do next is extremely important
-				//we will pop the stack and we will tell myMaze to move on an opposite Direction temp
-				else
-				{
-					//store the Direction in temp
-					Direction temp = myStack.pop();
+	//solveFully() Method
+	//runs the same logic as solve() until the goal is reached, but without a MazeDisplay or the Scanner prompt
+	public SolveResult solveFully()
+	{
+		//declare the variables
+		long startTime;
+		long numMoves = 0;
+		long cellsExpanded = 1;
+		long peakStackSize = myStack.size();
 
-					if (temp ==  Direction.UP)
-					{
-						myMaze.move(Direction.DOWN);
-					}
-					else if (temp == Direction.DOWN)
-					{
-						myMaze.move(Direction.UP);
-					}
-					else if (temp == Direction.RIGHT)
-					{
-						myMaze.move(Direction.LEFT);
-					}
-					else if (temp == Direction.LEFT)
-					{
-						myMaze.move(Direction.RIGHT);
-					}
+		//start the clock
+		startTime = System.nanoTime();
 
-				}
+		//keep stepping until we have reached our goal
+		while (!myWalker.goalReached())
+		{
+			//mark our current location as visited, exactly like solve() does
+			markVisited(myWalker.getCurrentRow(), myWalker.getCurrentCol());
+
+			int stackSizeBefore = myStack.size();
+			step();
+			numMoves++;
+
+			//a push means we moved forward into a new cell
+			if (myStack.size() > stackSizeBefore)
+			{
+				cellsExpanded++;
+				peakStackSize = Math.max(peakStackSize, myStack.size());
 			}
-		}while ((!myMaze.goalReached()) && (!userChoice.equalsIgnoreCase("Q")) ); //keep running until the user enter "Q","q", or we have reached our goal
+		}
+
+		//the stack holds the path from the start to the goal (backtracked moves were popped off)
+		SolveResult result = new SolveResult(myStack.toArrayList(), numMoves, System.nanoTime() - startTime, cellsExpanded, peakStackSize);
+		MazeMetrics.get().solveFinished(result);
+		return result;
+	}
+
+	//step() Method
+	//makes a single move: forward into an open, unvisited neighbor, or back the way we came if we are at a dead end
+	protected void step()
+	{
+		//below is the actual code that is used to solve the maze
+		//case1: if we are open in the Direction.UP
+		if (myWalker.isOpen(Direction.UP) && !isVisited(myWalker.getCurrentRow()-1, myWalker.getCurrentCol()))
+		{
+				myStack.push(Direction.UP);
+				myWalker.move(Direction.UP);
+				if (myJournal != null)
+					myJournal.recordMove(Direction.UP);
+				MazeMetrics.get().movedForward(myStack.size());
+
+		}
+		//case2: if we are open in the Direction.DOWN
+		else if (myWalker.isOpen(Direction.DOWN) && !isVisited(myWalker.getCurrentRow()+1, myWalker.getCurrentCol()))
+		{
+				myStack.push(Direction.DOWN);
+				myWalker.move(Direction.DOWN);
+				if (myJournal != null)
+					myJournal.recordMove(Direction.DOWN);
+				MazeMetrics.get().movedForward(myStack.size());
+
+		}
+		//case3: if we are open in the Direction.LEFT
+		else if (myWalker.isOpen(Direction.LEFT) && !isVisited(myWalker.getCurrentRow(), myWalker.getCurrentCol()-1))
+		{
+				myStack.push(Direction.LEFT);
+				myWalker.move(Direction.LEFT);
+				if (myJournal != null)
+					myJournal.recordMove(Direction.LEFT);
+				MazeMetrics.get().movedForward(myStack.size());
+
+		}
+		//case4: if we are open in the Direction.RIGHT
+		else if (myWalker.isOpen(Direction.RIGHT) && !isVisited(myWalker.getCurrentRow(), myWalker.getCurrentCol()+1))
+		{
+				myStack.push(Direction.RIGHT);
+				myWalker.move(Direction.RIGHT);
+				if (myJournal != null)
+					myJournal.recordMove(Direction.RIGHT);
+				MazeMetrics.get().movedForward(myStack.size());
+
+		}
+		//case5: if we are here, that means that we have reached a dead end. What we have to do next is extremely important
+		//we will pop the stack and we will tell myWalker to move on an opposite Direction temp
+		else
+		{
+			//store the Direction in temp
+			Direction temp = myStack.pop();
+
+			if (temp ==  Direction.UP)
+			{
+				myWalker.move(Direction.DOWN);
+			}
+			else if (temp == Direction.DOWN)
+			{
+				myWalker.move(Direction.UP);
+			}
+			else if (temp == Direction.RIGHT)
+			{
+				myWalker.move(Direction.LEFT);
+			}
+			else if (temp == Direction.LEFT)
+			{
+				myWalker.move(Direction.RIGHT);
+			}
+
+			//only once the move is made (recording can write a snapshot, which has to be at the cell the stack ends at)
+			if (myJournal != null)
+				myJournal.recordBacktrack();
+			MazeMetrics.get().backtracked();
+		}
+	}
+
+	//isVisited() Method
+	//returns true if the solver has been in the cell at [row][col]
+	protected boolean isVisited(int row, int col)
+	{
+		long index = (long)row * visitedCols + col;
+		return (visited [(int)(index >>> 6)] & (1L << index)) != 0;
+	}
+
+	//markVisited() Method
+	//remembers that the solver has been in the cell at [row][col]
+	protected void markVisited(int row, int col)
+	{
+		long index = (long)row * visitedCols + col;
+		visited [(int)(index >>> 6)] |= 1L << index;
+	}
+
+	//newVisited() Method
+	//creates the visited cells for a maze of the given size, with none of them visited yet
+	private void newVisited(int numRows, int numCols)
+	{
+		visited = new long [visitedWords(numRows, numCols)];
+		visitedCols = numCols;
+	}
+
+	//visitedWords() Method
+	//returns how many longs it takes to hold 1 bit for every cell of a maze of the given size
+	protected static int visitedWords(int numRows, int numCols)
+	{
+		long numWords = ((long)numRows * numCols + 63) >>> 6;
+		if (numWords > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("maze has too many cells to solve: " + numRows + " x " + numCols);
+		return (int)numWords;
+	}
+
+	//readObject() Method
+	//games saved before solvers could walk a MazeCursor have no myWalker, so they walk their Maze; games saved by the
+	//original MazeSolver also kept their moves in a Stack and their visited cells in a boolean [][]
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
+	{
+		ObjectInputStream.GetField fields = in.readFields();
+		myMaze = (Maze)fields.get("myMaze", null);
+		myWalker = (MazeWalker)fields.get("myWalker", null);
+		if (myWalker == null)
+			myWalker = myMaze;
+
+		Object savedStack = fields.get("myStack", null);
+		if (savedStack instanceof Stack)
+		{
+			myStack = new DirectionStack();
+			for (Object direction : ((Stack<?>)savedStack).toArrayList())
+				myStack.push((Direction)direction);
+		}
+		else
+			myStack = (DirectionStack)savedStack;
+
+		Object savedVisited = fields.get("visited", null);
+		if (savedVisited instanceof boolean [][])
+		{
+			boolean [][] oldVisited = (boolean [][])savedVisited;
+			newVisited(oldVisited.length, oldVisited[0].length);
+			for (int row=0; row<oldVisited.length; row++)
+				for (int col=0; col<oldVisited[row].length; col++)
+					if (oldVisited [row][col])
+						markVisited(row, col);
+		}
+		else
+		{
+			visited = (long [])savedVisited;
+			visitedCols = fields.get("visitedCols", 0);
+		}
 	}
 
 }//end of class
@@ -0,0 +1,166 @@
+/* This program indexes a perfect maze so that questions about the path between any two cells
+    can be answered without walking the maze again.  A perfect maze is a spanning tree of its
+    cells, so after rooting it at the upper left cell there is exactly one path between two
+    cells: up from the first one to their lowest common ancestor (LCA), then down to the second.
+    One breadth first pass records every cell's parent, depth and the Direction it was entered
+    by.  Each cell also gets a "jump" pointer to an ancestor (skew-binary jump pointers, a compact
+    form of binary lifting), which lets the LCA be found in O(log n) steps while using only one
+    extra int per cell instead of log n of them.
+ */
+
+public class MazeTreeIndex
+{
+	//-------data
+	private int numRows;
+	private int numCols;
+	private int[ ] parent;
+	private int[ ] jump;
+	private int[ ] depth;
+	private byte[ ] parentDir;   //the Direction (ordinal) that leads from the parent into the cell
+
+	//-------constructors
+	public MazeTreeIndex(MazeGrid grid)
+	{
+		numRows = grid.getNumRows();
+		numCols = grid.getNumCols();
+		int numCells = numRows * numCols;
+
+		parent = new int[numCells];
+		jump = new int[numCells];
+		depth = new int[numCells];
+		parentDir = new byte[numCells];
+		java.util.Arrays.fill(parent, -1);
+
+		//breadth first from the root, so every parent is finished before its children
+		int[] queue = new int[numCells];
+		int head = 0;
+		int tail = 0;
+		long numEdges = 0;
+
+		queue[tail++] = 0;
+		parent[0] = 0;
+		jump[0] = 0;
+		while (head < tail)
+		{
+			int index = queue[head++];
+			int row = index / numCols;
+			int col = index % numCols;
+
+			for (Direction direction : SolverStrategies.DIRECTIONS)
+			{
+				if (grid.hasWall(row, col, direction))
+					continue;
+				numEdges++;
+
+				int child = index + MazeGrid.rowChange(direction)*numCols + MazeGrid.colChange(direction);
+				if (parent[child] >= 0)
+					continue;
+
+				parent[child] = index;
+				parentDir[child] = (byte)direction.ordinal();
+				depth[child] = depth[index] + 1;
+
+				//jump twice as far as the parent does when the parent's two jumps are the same length,
+				//otherwise just jump to the parent
+				int parentJump = jump[index];
+				if (depth[index] - depth[parentJump] == depth[parentJump] - depth[jump[parentJump]])
+					jump[child] = jump[parentJump];
+				else
+					jump[child] = index;
+
+				queue[tail++] = child;
+			}
+		}
+
+		//every opening was counted from both sides; a tree over all the cells has exactly numCells-1 of them
+		if (tail != numCells || numEdges/2 != numCells-1)
+			throw new IllegalArgumentException("the maze is not a perfect maze (it has loops or unreachable cells)");
+	}
+
+	// **************** methods *******************************************
+
+	//-------- distance - returns the number of moves between [rowA][colA] and [rowB][colB]
+	public int distance(int rowA, int colA, int rowB, int colB)
+	{
+		int a = indexOf(rowA, colA);
+		int b = indexOf(rowB, colB);
+		return depth[a] + depth[b] - 2*depth[lca(a, b)];
+	}
+
+	//-------- path - returns the Directions that lead from [rowA][colA] to [rowB][colB]
+	public java.util.ArrayList<Direction> path(int rowA, int colA, int rowB, int colB)
+	{
+		int a = indexOf(rowA, colA);
+		int b = indexOf(rowB, colB);
+		int ancestor = lca(a, b);
+		java.util.ArrayList<Direction> result = new java.util.ArrayList<Direction>(depth[a] + depth[b] - 2*depth[ancestor]);
+
+		//climb from a up to the common ancestor (each step undoes the move that entered the cell)
+		for (int index=a; index!=ancestor; index=parent[index])
+			result.add(SolverStrategies.opposite(SolverStrategies.DIRECTIONS[parentDir[index]]));
+
+		//then go down to b, which is b's climb to the ancestor in reverse
+		int firstDown = result.size();
+		for (int index=b; index!=ancestor; index=parent[index])
+			result.add(SolverStrategies.DIRECTIONS[parentDir[index]]);
+		java.util.Collections.reverse(result.subList(firstDown, result.size()));
+
+		return result;
+	}
+
+	//-------- getDepth - returns the distance from the upper left cell to [aRow][aCol]
+	public int getDepth(int aRow, int aCol)
+	{
+		return depth[indexOf(aRow, aCol)];
+	}
+
+	//-------- lca - returns the lowest common ancestor of the cells with indexes a and b
+	private int lca(int a, int b)
+	{
+		//first bring the deeper one up to the depth of the other
+		if (depth[a] < depth[b])
+		{
+			int temp = a;
+			a = b;
+			b = temp;
+		}
+		a = ancestorAtDepth(a, depth[b]);
+
+		//cells at the same depth have jumps of the same length, so they can climb side by side
+		while (a != b)
+		{
+			if (jump[a] != jump[b])
+			{
+				a = jump[a];
+				b = jump[b];
+			}
+			else
+			{
+				a = parent[a];
+				b = parent[b];
+			}
+		}
+		return a;
+	}
+
+	//-------- ancestorAtDepth - returns the ancestor of the cell with index a that is at the given depth
+	private int ancestorAtDepth(int a, int targetDepth)
+	{
+		while (depth[a] > targetDepth)
+		{
+			if (depth[jump[a]] >= targetDepth)
+				a = jump[a];
+			else
+				a = parent[a];
+		}
+		return a;
+	}
+
+	//-------- indexOf - returns the index of the cell at [aRow][aCol], making sure it is in the maze
+	private int indexOf(int aRow, int aCol)
+	{
+		if (aRow < 0 || aRow >= numRows || aCol < 0 || aCol >= numCols)
+			throw new IllegalArgumentException("cell <" + aRow + ", " + aCol + "> is outside the maze");
+		return aRow*numCols + aCol;
+	}
+}
@@ -0,0 +1,137 @@
+/* This program checks, one row at a time, that the rows of a maze coming from outside (see
+    MazeImporter) make a proper maze for a Maze to solve, and hands each row on to another
+    MazeRowSink once it has been checked:
+        - the walls on the right and bottom borders are all there
+        - there are no loops, and every cell is connected to every other cell (so the goal can
+          be reached from the start, wherever they are), which makes it a perfect maze
+    Like EllerMazeGenerator, it keeps only O(number of columns) state however many rows there
+    are: every cell of the current row belongs to a set (the cells it is connected to through
+    the rows above), and
+        - an opening between two cells of a row that are already in the same set is a loop
+        - a set that has no opening down to the next row is cut off from the rest of the maze
+          (unless it is the last row, where every cell has to be in the same set)
+    Call finish after the last row, to make sure that the maze was complete.
+ */
+
+public class MazeValidator implements MazeRowSink
+{
+	//-------data
+	private int numRows;
+	private int numCols;
+	private MazeRowSink next;
+	private int nextRow;
+
+	//the set each cell of the last row was in (named by the column of the first cell of the row in that set), and
+	//whether the cell was open below; while a row is joined, the union-find ids of its cells are the sets that came
+	//down from the row above (ids < numCols) and the cells that start a set of their own (numCols + col)
+	private int[ ] setOf;
+	private boolean[ ] openBelow;
+	private int[ ] cellSet;
+	private int[ ] parent;
+	private int[ ] firstCol;
+	private boolean[ ] continues;
+
+	//-------constructors
+	public MazeValidator(int numRows, int numCols, MazeRowSink next)
+	{
+		if (numRows < 1 || numCols < 1)
+			throw new IllegalArgumentException("number of rows and columns must be > 0");
+		if (next == null)
+			throw new IllegalArgumentException("trying to create a MazeValidator with a null MazeRowSink");
+
+		this.numRows = numRows;
+		this.numCols = numCols;
+		this.next = next;
+		setOf = new int[numCols];
+		openBelow = new boolean[numCols];
+		cellSet = new int[numCols];
+		parent = new int[2 * numCols];
+		firstCol = new int[2 * numCols];
+		continues = new boolean[2 * numCols];
+	}
+
+	// **************** methods *******************************************
+
+	//-------- acceptRow - checks the row against the rows before it, then hands it on
+	public void acceptRow(int row, byte[] rowCells) throws java.io.IOException
+	{
+		if (row != nextRow)
+			throw new IllegalStateException("expected row " + nextRow + " but received row " + row);
+
+		//the right border, and on the last row the bottom border, are never open
+		if ((rowCells[numCols-1] & MazeGrid.RIGHT_WALL) == 0)
+			throw new java.io.IOException("row " + row + " is open on the right border");
+		if (row == numRows-1)
+			for (int col=0; col<numCols; col++)
+				if ((rowCells[col] & MazeGrid.DOWN_WALL) == 0)
+					throw new java.io.IOException("column " + col + " is open on the bottom border");
+
+		//every cell carries on the set of the cell above it if it is open to it, and starts a new set if not
+		for (int id=0; id<2*numCols; id++)
+			parent[id] = id;
+		for (int col=0; col<numCols; col++)
+			cellSet[col] = (row > 0 && openBelow[col]) ? setOf[col] : numCols + col;
+
+		//then the openings along the row join the sets - unless they are joined already
+		for (int col=0; col<numCols-1; col++)
+			if ((rowCells[col] & MazeGrid.RIGHT_WALL) == 0)
+			{
+				int left = find(cellSet[col]);
+				int right = find(cellSet[col+1]);
+				if (left == right)
+					throw new java.io.IOException("the maze has a loop (closed by the opening to the right of <" + row + ", " + col + ">)");
+				parent[right] = left;
+			}
+
+		//see which sets go on down to the next row, and name every set after the first cell of the row in it
+		java.util.Arrays.fill(firstCol, -1);
+		java.util.Arrays.fill(continues, false);
+		int numSets = 0;
+		for (int col=0; col<numCols; col++)
+		{
+			int root = find(cellSet[col]);
+			cellSet[col] = root;
+			if (firstCol[root] < 0)
+			{
+				firstCol[root] = col;
+				numSets++;
+			}
+			openBelow[col] = (rowCells[col] & MazeGrid.DOWN_WALL) == 0;
+			if (openBelow[col])
+				continues[root] = true;
+			setOf[col] = firstCol[root];
+		}
+
+		//a set that does not go on down is never joined to the rest of the maze - unless this is the last row, where
+		//everything has to have been joined already
+		if (row < numRows-1)
+		{
+			for (int col=0; col<numCols; col++)
+				if (!continues[cellSet[col]])
+					throw new java.io.IOException("the cells around <" + row + ", " + col + "> cannot be reached from the rest of the maze");
+		}
+		else if (numSets > 1)
+			throw new java.io.IOException("the last row is split into " + numSets + " parts that cannot reach each other");
+
+		nextRow++;
+		next.acceptRow(row, rowCells);
+	}
+
+	//-------- finish - makes sure that every row has been received
+	public void finish() throws java.io.IOException
+	{
+		if (nextRow != numRows)
+			throw new java.io.IOException("the maze ended after " + nextRow + " of its " + numRows + " rows");
+	}
+
+	//-------- find - returns the root of the set id is in, halving the paths on the way
+	private int find(int id)
+	{
+		while (parent[id] != id)
+		{
+			parent[id] = parent[parent[id]];
+			id = parent[id];
+		}
+		return id;
+	}
+}//end of class
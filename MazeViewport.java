@@ -0,0 +1,251 @@
+/* This program keeps track of which part of a Maze is being looked at, and how closely, and
+    draws just that part.  It has no window of its own - MazeDisplay gives it the size of its
+    panel and the mouse and keys that move it around - so it can be drawn into any image.
+        - zoomed in (zoom >= 0), every cell is CELL_DIMS[zoom] pixels wide and only the cells
+          that are on the screen are drawn, walls and all, with MazeRenderer
+        - zoomed out (zoom < 0), every pixel is a block of 2^level x 2^level cells, with
+          level = -zoom - 1, and its color comes from a MazeMipmap: a pixel never costs more than
+          a lookup, however many cells are under it
+    So the time it takes to draw a frame depends on the size of the window, not of the maze.
+ */
+
+public class MazeViewport
+{
+	//-------constants
+	public static final int[ ] CELL_DIMS = {2, 3, 4, 6, 8, 12, 16, 24, 32, 48, 64};
+	public static final java.awt.Color BACKGROUND = java.awt.Color.LIGHT_GRAY;
+
+	private static final java.awt.Color TRANSPARENT = new java.awt.Color(0, 0, 0, 0);
+
+	//-------data
+	private Maze myMaze;
+	private MazeMipmap mipmap;
+	private int width;
+	private int height;
+	private int zoom;
+	private long originX;   //where the upper left corner of the view is, in pixels from the upper left corner of the maze
+	private long originY;
+	private int[ ] pixels;
+
+	//-------constructors
+	public MazeViewport(Maze aMaze, MazeMipmap aMipmap, int width, int height)
+	{
+		if (aMaze == null || aMipmap == null)
+			throw new IllegalArgumentException("trying to create a MazeViewport with a null Maze or MazeMipmap");
+
+		myMaze = aMaze;
+		mipmap = aMipmap;
+		setSize(width, height);
+		fit();
+	}
+
+	// **************** methods *******************************************
+
+	//-------- getWidth - returns how wide the view is, in pixels
+	public int getWidth()
+	{
+		return width;
+	}
+
+	//-------- getHeight - returns how high the view is, in pixels
+	public int getHeight()
+	{
+		return height;
+	}
+
+	//-------- getZoom - returns how closely the maze is being looked at (see the top of the file)
+	public int getZoom()
+	{
+		return zoom;
+	}
+
+	//-------- isDetailed - returns true if every cell is drawn, walls and all; false if the view is of the mipmap
+	public boolean isDetailed()
+	{
+		return zoom >= 0;
+	}
+
+	//-------- getMazeWidth - returns how wide the whole maze is at the current zoom, in pixels
+	public long getMazeWidth()
+	{
+		return mazePixels(myMaze.getNumCols(), zoom);
+	}
+
+	//-------- getMazeHeight - returns how high the whole maze is at the current zoom, in pixels
+	public long getMazeHeight()
+	{
+		return mazePixels(myMaze.getNumRows(), zoom);
+	}
+
+	//-------- setSize - changes the size of the view, keeping its upper left corner where it is
+	public void setSize(int width, int height)
+	{
+		if (width < 1 || height < 1)
+			throw new IllegalArgumentException("the view must be at least 1 x 1 pixels");
+
+		this.width = width;
+		this.height = height;
+		pixels = null;
+		clampOrigin();
+	}
+
+	//-------- fit - zooms in as closely as the whole maze still fits in the view, and centers it.  If it does not fit
+	//              even zoomed all the way out (see MazeMipmap), the view is centered on the current cell instead.
+	public void fit()
+	{
+		zoom = CELL_DIMS.length - 1;
+		while (zoom > minZoom() && (mazePixels(myMaze.getNumCols(), zoom) > width || mazePixels(myMaze.getNumRows(), zoom) > height))
+			zoom--;
+
+		if (getMazeWidth() > width || getMazeHeight() > height)
+		{
+			originX = (long)Math.floor(myMaze.getCurrentCol() * cellScale(zoom)) - width / 2;
+			originY = (long)Math.floor(myMaze.getCurrentRow() * cellScale(zoom)) - height / 2;
+			clampOrigin();
+		}
+		else
+		{
+			originX = (getMazeWidth() - width) / 2;
+			originY = (getMazeHeight() - height) / 2;
+		}
+	}
+
+	//-------- zoomAt - zooms in (steps > 0) or out (steps < 0), keeping the point of the maze that is under the
+	//                  pixel (x, y) of the view there; returns false if it could not zoom any further
+	public boolean zoomAt(int x, int y, int steps)
+	{
+		int newZoom = Math.max(minZoom(), Math.min(CELL_DIMS.length - 1, zoom + steps));
+		if (newZoom == zoom)
+			return false;
+
+		double cellX = (originX + x) / cellScale(zoom);
+		double cellY = (originY + y) / cellScale(zoom);
+		zoom = newZoom;
+		originX = Math.round(cellX * cellScale(zoom)) - x;
+		originY = Math.round(cellY * cellScale(zoom)) - y;
+		clampOrigin();
+		return true;
+	}
+
+	//-------- pan - moves the maze (dx, dy) pixels across the view; returns false if it was already as far as it goes
+	public boolean pan(int dx, int dy)
+	{
+		long oldX = originX;
+		long oldY = originY;
+		originX -= dx;
+		originY -= dy;
+		clampOrigin();
+		return originX != oldX || originY != oldY;
+	}
+
+	//-------- render - draws the view: the cells into cellLayer, and the walls (if they are drawn at this zoom) into
+	//                  wallLayer, which is otherwise left transparent.  Both must be at least as big as the view.
+	public void render(java.awt.image.BufferedImage cellLayer, java.awt.image.BufferedImage wallLayer)
+	{
+		java.awt.Graphics2D wallGraphics = wallLayer.createGraphics();
+		wallGraphics.setComposite(java.awt.AlphaComposite.Src);
+		wallGraphics.setColor(TRANSPARENT);
+		wallGraphics.fillRect(0, 0, width, height);
+
+		if (isDetailed())
+		{
+			java.awt.Graphics cellGraphics = cellLayer.getGraphics();
+			cellGraphics.setColor(BACKGROUND);
+			cellGraphics.fillRect(0, 0, width, height);
+
+			int cellDim = CELL_DIMS[zoom];
+			//(starting one pixel early, for the walls on the right and bottom of the cells just outside the view)
+			int firstRow = (int)Math.max(0, Math.floorDiv(originY - 1, cellDim));
+			int firstCol = (int)Math.max(0, Math.floorDiv(originX - 1, cellDim));
+			int lastRow = (int)Math.min(myMaze.getNumRows() - 1, Math.floorDiv(originY + height - 1, cellDim));
+			int lastCol = (int)Math.min(myMaze.getNumCols() - 1, Math.floorDiv(originX + width - 1, cellDim));
+			if (firstRow <= lastRow && firstCol <= lastCol)
+			{
+				MazeRenderer.drawCells(cellGraphics, myMaze.getGrid(), cellDim, (int)-originX, (int)-originY, firstRow, firstCol, lastRow, lastCol);
+				MazeRenderer.drawWalls(wallGraphics, myMaze.getGrid(), cellDim, (int)-originX, (int)-originY, firstRow, firstCol, lastRow, lastCol);
+			}
+			cellGraphics.dispose();
+		}
+		else
+		{
+			//one lookup in the mipmap for each pixel of the view, straight into the image
+			if (pixels == null)
+				pixels = new int[width * height];
+
+			int level = -zoom - 1;
+			int numBlockRows = mipmap.getLevelRows(level);
+			int numBlockCols = mipmap.getLevelCols(level);
+			int background = BACKGROUND.getRGB();
+			for (int y=0; y<height; y++)
+			{
+				long blockRow = originY + y;
+				for (int x=0; x<width; x++)
+				{
+					long blockCol = originX + x;
+					if (blockRow < 0 || blockRow >= numBlockRows || blockCol < 0 || blockCol >= numBlockCols)
+						pixels[y * width + x] = background;
+					else
+						pixels[y * width + x] = mipmap.rgbAt(level, (int)blockRow, (int)blockCol);
+				}
+			}
+			cellLayer.setRGB(0, 0, width, height, pixels, 0, width);
+		}
+
+		wallGraphics.dispose();
+	}
+
+	//-------- renderCell - draws the cell at [row][col] again (after it changed) into the cell layer g is drawing on,
+	//                      and returns the part of the view that changed, or null if the cell is not in the view.
+	//                      Zoomed out, that is the pixel of the cell's block.
+	public java.awt.Rectangle renderCell(java.awt.Graphics g, int row, int col)
+	{
+		java.awt.Rectangle changed;
+		if (isDetailed())
+		{
+			int cellDim = CELL_DIMS[zoom];
+			changed = new java.awt.Rectangle((int)((long)col * cellDim - originX), (int)((long)row * cellDim - originY), cellDim + 1, cellDim + 1);
+			if (!changed.intersects(0, 0, width, height))
+				return null;
+			MazeRenderer.drawCell(g, myMaze.getGrid(), row, col, cellDim, (int)-originX, (int)-originY);
+		}
+		else
+		{
+			int level = -zoom - 1;
+			changed = new java.awt.Rectangle((int)((col >> level) - originX), (int)((row >> level) - originY), 1, 1);
+			if (!changed.intersects(0, 0, width, height))
+				return null;
+			g.setColor(new java.awt.Color(mipmap.rgbAt(level, row >> level, col >> level)));
+			g.fillRect(changed.x, changed.y, 1, 1);
+		}
+		return changed;
+	}
+
+	//-------- minZoom - returns the farthest the view can zoom out: until the whole maze is a single pixel
+	private int minZoom()
+	{
+		return -mipmap.getTopLevel() - 1;
+	}
+
+	//-------- clampOrigin - keeps at least one pixel of the maze in the view, so it cannot be panned out of sight
+	private void clampOrigin()
+	{
+		originX = Math.max(1 - width, Math.min(getMazeWidth() - 1, originX));
+		originY = Math.max(1 - height, Math.min(getMazeHeight() - 1, originY));
+	}
+
+	//-------- cellScale - returns how many pixels wide a cell is at the zoom (less than one when zoomed out)
+	private static double cellScale(int zoom)
+	{
+		return (zoom >= 0) ? CELL_DIMS[zoom] : 1.0 / (1L << (-zoom - 1));
+	}
+
+	//-------- mazePixels - returns how many pixels numCells cells take up at the zoom (zoomed in, that includes the
+	//                      last border)
+	private static long mazePixels(int numCells, int zoom)
+	{
+		if (zoom >= 0)
+			return (long)numCells * CELL_DIMS[zoom] + 1;
+		int level = -zoom - 1;
+		return ((long)numCells + (1L << level) - 1) >> level;
+	}
+}
@@ -0,0 +1,26 @@
+// This is anything that can walk through a maze one cell at a time: the Maze itself (with its one built-in current
+// cell) or a MazeCursor (one of many independent positions on a shared, already built maze)
+
+public interface MazeWalker
+{
+	//getNumRows - returns the number of (real) rows in the maze being walked
+	public int getNumRows();
+
+	//getNumCols - returns the number of (real) columns in the maze being walked
+	public int getNumCols();
+
+	//getCurrentRow - returns the (real) row of the current cell
+	public int getCurrentRow();
+
+	//getCurrentCol - returns the (real) col of the current cell
+	public int getCurrentCol();
+
+	//isOpen - returns true if there is no wall in the direction that is passed in
+	public boolean isOpen(Direction direction);
+
+	//move - moves one cell in the direction that is passed in; returns true if successful
+	public boolean move(Direction direction);
+
+	//goalReached - returns true if the current cell is the goal
+	public boolean goalReached();
+}
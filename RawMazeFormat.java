@@ -0,0 +1,223 @@
+/* This program reads and writes mazes in a raw, row-by-row format: a small header followed by
+    one byte per cell in the same encoding the MazeGrid uses (bit 0 = wall to the right, bit 1 =
+    wall below).  Because the rows are written in order, a maze can be streamed out one row at a
+    time (see EllerMazeGenerator) without ever being held in memory, and a file of any size can
+    be read back a row at a time by mapping it (see readRows and MazeImporter).
+        int   MAGIC ("MZRW")
+        int   VERSION
+        int   number of rows
+        int   number of columns
+        byte  rows*columns cells, row major
+ */
+
+public class RawMazeFormat
+{
+	//-------constants
+	public static final int MAGIC = 0x4D5A5257;   //"MZRW"
+	public static final int VERSION = 1;
+	public static final int HEADER_BYTES = 16;
+
+	private static final int BUFFER_BYTES = 1 << 16;
+	private static final long SEGMENT_BYTES = 1L << 30;   //a single mapping cannot reach past 2 GB
+
+	// **************** methods *******************************************
+
+	//-------- newWriter - writes the header to the channel and returns a sink that writes each row it receives
+	public static RowWriter newWriter(java.nio.channels.WritableByteChannel channel, int numRows, int numCols)
+			throws java.io.IOException
+	{
+		return new RowWriter(channel, numRows, numCols);
+	}
+
+	//-------- write - writes the walls of a whole Maze to the channel
+	public static void write(Maze aMaze, java.nio.channels.WritableByteChannel channel) throws java.io.IOException
+	{
+		MazeGrid grid = aMaze.getGrid();
+		RowWriter writer = newWriter(channel, grid.getNumRows(), grid.getNumCols());
+		byte[] rowCells = new byte[grid.getNumCols()];
+		for (int row=0; row<grid.getNumRows(); row++)
+		{
+			grid.getRowWalls(row, rowCells);
+			writer.acceptRow(row, rowCells);
+		}
+		writer.flush();
+	}
+
+	//-------- read - reads a maze from the channel into a grid on the heap; the current cell is the upper left corner
+	//                and the goal is the lower right corner.  The file is not trusted: its size has to fit on the heap
+	//                (and match the file, if the channel is a file), and its rows go through a MazeValidator, so a
+	//                maze with loops or cells that cannot be reached is refused with an IOException.
+	public static Maze read(java.nio.channels.ReadableByteChannel channel) throws java.io.IOException
+	{
+		java.nio.ByteBuffer buffer = java.nio.ByteBuffer.allocate(BUFFER_BYTES);
+		buffer.limit(HEADER_BYTES);
+		readFully(channel, buffer);
+		buffer.flip();
+
+		if (buffer.getInt() != MAGIC)
+			throw new java.io.IOException("not a raw maze file");
+		int version = buffer.getInt();
+		if (version != VERSION)
+			throw new java.io.IOException("unsupported raw maze version " + version);
+		int numRows = buffer.getInt();
+		int numCols = buffer.getInt();
+		if (numRows < 2 || numCols < 2)
+			throw new java.io.IOException("raw maze file has a size of " + numRows + " x " + numCols + "; a maze needs at " +
+					"least 2 rows and 2 columns");
+		//(a stream cannot be measured before it is read, so a size that could never fit is refused before the grid is
+		//made for it)
+		Runtime runtime = Runtime.getRuntime();
+		long heapBytes = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+		if ((long)numRows * numCols > Integer.MAX_VALUE || (long)numRows * numCols > heapBytes)
+			throw new java.io.IOException("raw maze file has " + numRows + " x " + numCols + " cells, which is too many for " +
+					"the heap; import it into a mapped file with MazeImporter instead");
+		if (channel instanceof java.nio.channels.FileChannel &&
+				((java.nio.channels.FileChannel)channel).size() != HEADER_BYTES + (long)numRows*numCols)
+			throw new java.io.IOException("raw maze file should be " + (HEADER_BYTES + (long)numRows*numCols) + " bytes " +
+					"long for " + numRows + " x " + numCols + " cells, but it is " + ((java.nio.channels.FileChannel)channel).size());
+
+		final MazeGrid grid = new MazeGrid(numRows, numCols);
+		MazeValidator validator = new MazeValidator(numRows, numCols, new MazeRowSink()
+		{
+			public void acceptRow(int row, byte[] rowCells)
+			{
+				grid.setRowWalls(row, rowCells);
+			}
+		});
+		byte[] rowCells = new byte[numCols];
+		buffer.clear();
+		buffer.flip();
+		for (int row=0; row<numRows; row++)
+		{
+			for (int col=0; col<numCols; )
+			{
+				//refill the buffer whenever it runs out
+				if (!buffer.hasRemaining())
+				{
+					buffer.clear();
+					buffer.limit((int)Math.min(BUFFER_BYTES, (long)(numRows-row)*numCols - col));
+					readFully(channel, buffer);
+					buffer.flip();
+				}
+				int count = Math.min(buffer.remaining(), numCols - col);
+				buffer.get(rowCells, col, count);
+				col += count;
+			}
+
+			//(the validator checks the borders too)
+			validator.acceptRow(row, rowCells);
+		}
+		validator.finish();
+
+		return new Maze(grid);
+	}
+
+	//-------- readSize - reads the header of a raw maze file and returns { number of rows, number of columns },
+	//                    after checking that the file is as long as they say
+	public static int[ ] readSize(java.nio.channels.FileChannel channel) throws java.io.IOException
+	{
+		java.nio.ByteBuffer buffer = java.nio.ByteBuffer.allocate(HEADER_BYTES);
+		while (buffer.hasRemaining())
+			if (channel.read(buffer, buffer.position()) < 0)
+				throw new java.io.EOFException("raw maze file ended early");
+		buffer.flip();
+
+		if (buffer.getInt() != MAGIC)
+			throw new java.io.IOException("not a raw maze file");
+		int version = buffer.getInt();
+		if (version != VERSION)
+			throw new java.io.IOException("unsupported raw maze version " + version);
+		int numRows = buffer.getInt();
+		int numCols = buffer.getInt();
+		if (numRows < 1 || numCols < 1)
+			throw new java.io.IOException("raw maze file has a size of " + numRows + " x " + numCols);
+		if (channel.size() != HEADER_BYTES + (long)numRows*numCols)
+			throw new java.io.IOException("raw maze file should be " + (HEADER_BYTES + (long)numRows*numCols) +
+					" bytes long for " + numRows + " x " + numCols + " cells, but it is " + channel.size());
+
+		return new int[ ] { numRows, numCols };
+	}
+
+	//-------- readRows - maps the cells of a raw maze file (whose header readSize has checked) a segment of whole
+	//                    rows at a time, and hands every row to the sink in order; nothing is read into a buffer of
+	//                    our own, so a file of any size goes straight from the page cache to the sink
+	public static void readRows(java.nio.channels.FileChannel channel, int numRows, int numCols, MazeRowSink sink)
+			throws java.io.IOException
+	{
+		int rowsPerSegment = (int)Math.max(1, Math.min(numRows, SEGMENT_BYTES / numCols));
+		byte[] rowCells = new byte[numCols];
+		for (int firstRow=0; firstRow<numRows; firstRow+=rowsPerSegment)
+		{
+			int segmentRows = Math.min(rowsPerSegment, numRows - firstRow);
+			java.nio.MappedByteBuffer segment = channel.map(java.nio.channels.FileChannel.MapMode.READ_ONLY,
+					HEADER_BYTES + (long)firstRow*numCols, (long)segmentRows*numCols);
+			for (int row=0; row<segmentRows; row++)
+			{
+				segment.get(row*numCols, rowCells);
+				sink.acceptRow(firstRow + row, rowCells);
+			}
+		}
+	}
+
+	//-------- readFully - reads from the channel until the buffer is full
+	private static void readFully(java.nio.channels.ReadableByteChannel channel, java.nio.ByteBuffer buffer)
+			throws java.io.IOException
+	{
+		while (buffer.hasRemaining())
+			if (channel.read(buffer) < 0)
+				throw new java.io.EOFException("raw maze file ended early");
+	}
+
+	//***********************************************************************
+
+	//RowWriter is a MazeRowSink that writes the rows it receives to a channel, through a buffer
+	public static class RowWriter implements MazeRowSink
+	{
+		private java.nio.channels.WritableByteChannel channel;
+		private java.nio.ByteBuffer buffer;
+		private int numCols;
+		private int nextRow;
+
+		//constructor - writes the header right away
+		private RowWriter(java.nio.channels.WritableByteChannel channel, int numRows, int numCols) throws java.io.IOException
+		{
+			this.channel = channel;
+			this.numCols = numCols;
+			buffer = java.nio.ByteBuffer.allocate(BUFFER_BYTES);
+			buffer.putInt(MAGIC).putInt(VERSION).putInt(numRows).putInt(numCols);
+		}
+
+		//acceptRow - adds the row to the buffer, writing the buffer out whenever it fills up
+		public void acceptRow(int row, byte[] rowCells) throws java.io.IOException
+		{
+			//the format has no room for row numbers, so the rows must arrive in order
+			if (row != nextRow)
+				throw new IllegalStateException("expected row " + nextRow + " but received row " + row);
+			nextRow++;
+
+			for (int col=0; col<numCols; )
+			{
+				if (!buffer.hasRemaining())
+					drain();
+				int count = Math.min(buffer.remaining(), numCols - col);
+				buffer.put(rowCells, col, count);
+				col += count;
+			}
+		}
+
+		//flush - writes out whatever is still in the buffer
+		public void flush() throws java.io.IOException
+		{
+			drain();
+		}
+
+		//drain - writes the buffer to the channel and empties it
+		private void drain() throws java.io.IOException
+		{
+			buffer.flip();
+			while (buffer.hasRemaining())
+				channel.write(buffer);
+			buffer.clear();
+		}
+	}
+}
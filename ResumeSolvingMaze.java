@@ -23,16 +23,12 @@ public class ResumeSolvingMaze implements Serializable   //we have to implement
 		//PART 2: Read the file "ResumeSolvingMaze" to resume the game
 		try
 		{
-			ObjectInputStream oisVar = new ObjectInputStream (new FileInputStream (fileName2));
+			//read the saved game back and replay the moves in its journal (games saved with the older, serialized
+			//format still load)
+			MazeSolver differentMaze = MazeJournal.resume(fileName2);
 
-			//typecast differentMaze as MazeSolver
-			MazeSolver differentMaze = (MazeSolver)oisVar.readObject();
-
-			//tell the typecasted instance to .solve()
+			//tell the loaded instance to .solve()
 			differentMaze.solve();
-
-			//make sure to close, so the data could be saved
-			oisVar.close();
 		}
 		//catches everything through Throwable
 		catch(Throwable exx)
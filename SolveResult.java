@@ -0,0 +1,75 @@
+/*
+In this program, we will create a SolveResult that holds what happened when a maze was solved.
+*/
+
+import java.util.*;
+import java.io.*;
+
+public class SolveResult implements Serializable
+{
+	//Data
+	//pinned, so adding a method does not make a SolveResult that was serialized before it unreadable
+	private static final long serialVersionUID = 4678746141398305601L;
+
+	private ArrayList<Direction> path;
+	private long numMoves;
+	private long elapsedNanos;
+	private long cellsExpanded;
+	private long peakFrontierSize;
+
+	//Constructor
+	//which will be parameterized and will receive (path, numMoves, elapsedNanos) plus how many cells the solver
+	//expanded and the largest its frontier ever got
+	public SolveResult(ArrayList<Direction> path, long numMoves, long elapsedNanos, long cellsExpanded, long peakFrontierSize)
+	{
+		this.path = path;
+		this.numMoves = numMoves;
+		this.elapsedNanos = elapsedNanos;
+		this.cellsExpanded = cellsExpanded;
+		this.peakFrontierSize = peakFrontierSize;
+	}
+
+	//Methods
+	//getPath - returns the Directions that lead from the start to the goal (dead ends are not included)
+	public ArrayList<Direction> getPath()
+	{
+		return path;
+	}
+
+	//getPathLength - returns the number of steps from the start to the goal
+	public int getPathLength()
+	{
+		return path.size();
+	}
+
+	//getNumMoves - returns every move that was made, including the ones that backtracked out of dead ends
+	public long getNumMoves()
+	{
+		return numMoves;
+	}
+
+	//getElapsedNanos - returns how long the solve took (in nanoseconds)
+	public long getElapsedNanos()
+	{
+		return elapsedNanos;
+	}
+
+	//getCellsExpanded - returns how many cells the solver looked at the neighbors of
+	public long getCellsExpanded()
+	{
+		return cellsExpanded;
+	}
+
+	//getPeakFrontierSize - returns the most cells the solver ever had waiting to be expanded (its stack, queue or heap)
+	public long getPeakFrontierSize()
+	{
+		return peakFrontierSize;
+	}
+
+	//toString - returns the result as a single line
+	public String toString()
+	{
+		return "path length " + getPathLength() + ", moves " + numMoves + ", expanded " + cellsExpanded +
+				", peak frontier " + peakFrontierSize + ", " + (elapsedNanos / 1000) + " us";
+	}
+}//end of class
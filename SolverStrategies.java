@@ -0,0 +1,93 @@
+/*
+In this program, we will keep the list of SolverStrategies that can be chosen by name, plus the helpers they share.
+*/
+
+import java.util.*;
+
+public class SolverStrategies
+{
+	//Data
+	//Direction.values() makes a new array every time it is called, so the strategies use this one instead
+	public static final Direction[] DIRECTIONS = Direction.values();
+
+	//the cameFrom mark of the cell a search starts from (it was not entered from anywhere, but it has been reached)
+	public static final byte START_MARK = 5;
+
+	//Methods
+	//all - returns one of every strategy
+	public static ArrayList<SolverStrategy> all()
+	{
+		ArrayList<SolverStrategy> strategies = new ArrayList<SolverStrategy>();
+		strategies.add(new DepthFirstStrategy());
+		strategies.add(new BreadthFirstStrategy());
+		strategies.add(new AStarStrategy());
+		strategies.add(new BidirectionalStrategy());
+		strategies.add(new WallFollowerStrategy());
+		strategies.add(new DeadEndFillingStrategy());
+		return strategies;
+	}
+
+	//forName - returns the strategy with the given name (dfs, bfs, astar, bidi, wall or fill)
+	public static SolverStrategy forName(String name)
+	{
+		for (SolverStrategy strategy : all())
+			if (strategy.getName().equalsIgnoreCase(name))
+				return strategy;
+
+		throw new IllegalArgumentException("unknown solver strategy \"" + name + "\"; expected one of " + names());
+	}
+
+	//names - returns the names of all the strategies
+	public static ArrayList<String> names()
+	{
+		ArrayList<String> names = new ArrayList<String>();
+		for (SolverStrategy strategy : all())
+			names.add(strategy.getName());
+		return names;
+	}
+
+	//solve - solves a Maze from its current cell to its goal with the given strategy
+	public static SolveResult solve(SolverStrategy strategy, Maze aMaze)
+	{
+		return strategy.solve(aMaze.getGrid(), aMaze.getCurrentRow(), aMaze.getCurrentCol(), aMaze.getGoalRow(),
+				aMaze.getGoalCol());
+	}
+
+	//opposite - returns the Direction that undoes a move in the given Direction
+	public static Direction opposite(Direction direction)
+	{
+		if (direction == Direction.UP)
+			return Direction.DOWN;
+		else if (direction == Direction.DOWN)
+			return Direction.UP;
+		else if (direction == Direction.LEFT)
+			return Direction.RIGHT;
+		else
+			return Direction.LEFT;
+	}
+
+	//pathFromStack - returns the Directions stored (as ordinals) in the first stackSize entries of stack
+	public static ArrayList<Direction> pathFromStack(byte[] stack, int stackSize)
+	{
+		ArrayList<Direction> path = new ArrayList<Direction>(stackSize);
+		for (int i=0; i<stackSize; i++)
+			path.add(DIRECTIONS[stack[i]]);
+		return path;
+	}
+
+	//tracePath - follows cameFrom (the Direction ordinal + 1 that each cell was entered by, 0 if it was never reached)
+	//            back from toIndex to fromIndex, and returns the Directions from fromIndex to toIndex
+	public static ArrayList<Direction> tracePath(byte[] cameFrom, int numCols, int fromIndex, int toIndex)
+	{
+		ArrayList<Direction> path = new ArrayList<Direction>();
+		int index = toIndex;
+		while (index != fromIndex)
+		{
+			Direction direction = DIRECTIONS[cameFrom[index] - 1];
+			path.add(direction);
+			index -= MazeGrid.rowChange(direction)*numCols + MazeGrid.colChange(direction);
+		}
+		Collections.reverse(path);
+		return path;
+	}
+}//end of class
@@ -0,0 +1,13 @@
+/*
+In this program, we will describe a strategy for solving a maze.  A strategy only reads the walls of the grid -
+it never moves the Maze or marks its cells - so the same grid can be handed to any of them and they can be compared.
+*/
+
+public interface SolverStrategy
+{
+	//getName - returns the short name the strategy is selected by (for example "bfs")
+	public String getName();
+
+	//solve - finds a path from [startRow][startCol] to [goalRow][goalCol] and reports how much work it took
+	public SolveResult solve(MazeGrid grid, int startRow, int startCol, int goalRow, int goalCol);
+}
@@ -9,6 +9,7 @@ import java.lang.Math.*;
 public class Stack<E> implements Serializable   //we have to implement Serializable to be able to save our game
 {
 	//Data
+	private static final long serialVersionUID = -2429701319441160552L;   //the original Stack's, so old saved games still load
 	private java.util.ArrayList<E> contents;
 
 	//Constructors
@@ -59,4 +60,10 @@ public class Stack<E> implements Serializable   //we have to implement Serializa
 		contents.add(elt);
 	}
 
+	//toArrayList method - returns a copy of the contents, from the bottom of the stack to the top
+	public java.util.ArrayList<E> toArrayList()
+	{
+		return new java.util.ArrayList<E>(contents);
+	}
+
 } //end of class
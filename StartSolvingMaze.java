@@ -1,5 +1,6 @@
-11//In this program, we will create and solve a maze using myMaze method .solve()
+//In this program, we will create and solve a maze using myMaze method .solve()
 //Also, myMaze size is declared by the user
+//It can also be run as "StartSolvingMaze --batch rows cols count" to build and solve many mazes without a display
 //
 
 import java.util.*;
@@ -14,6 +15,13 @@ public class StartSolvingMaze implements Serializable   //we have to implement S
 		int numRows;
 		int numCols;
 
+		//if we were asked to run a batch, do that instead of the interactive game
+		if (args.length > 0 && args[0].equals("--batch"))
+		{
+			runBatch(args);
+			return;
+		}
+
 		//create a new instance of a scanner
 		Scanner kb = new Scanner(System.in);
 
@@ -24,6 +32,9 @@ public class StartSolvingMaze implements Serializable   //we have to implement S
 		numRows = kb.nextInt();
 		numCols = kb.nextInt();
 
+		//show the build on the console
+		MazeMetrics.get().addSink(new MazeConsoleSink());
+
 		//create a new instance of MazeSolver
 		MazeSolver myMazeSolver = new MazeSolver(numRows,numCols);
 
@@ -32,4 +43,72 @@ public class StartSolvingMaze implements Serializable   //we have to implement S
 
 
 	}//end of main
+
+	//runBatch - builds and solves "count" mazes without a display and prints a summary.  With no strategy the
+	//           mazes are solved by MazeSolver.solveFully(); otherwise by the named SolverStrategy (or by every
+	//           strategy, one after the other on the same mazes, if the name is "all")
+	private static void runBatch(String [] args)
+	{
+		//make sure we received --batch rows cols count [strategy]
+		if (args.length != 4 && args.length != 5)
+			throw new IllegalArgumentException("usage: StartSolvingMaze --batch rows cols count [" +
+					String.join("|", SolverStrategies.names()) + "|all]");
+
+		int numRows = Integer.parseInt(args[1]);
+		int numCols = Integer.parseInt(args[2]);
+		int count = Integer.parseInt(args[3]);
+
+		if (args.length == 4)
+		{
+			long totalMoves = 0;
+			long totalSolveNanos = 0;
+			long startTime = System.nanoTime();
+
+			for (int i=0; i<count; i++)
+			{
+				MazeSolver myMazeSolver = new MazeSolver(numRows,numCols);
+				SolveResult result = myMazeSolver.solveFully();
+
+				totalMoves += result.getNumMoves();
+				totalSolveNanos += result.getElapsedNanos();
+			}
+
+			double totalSeconds = (System.nanoTime() - startTime) / 1e9;
+			System.out.println("solved " + count + " mazes of " + numRows + "x" + numCols + " in " + totalSeconds + " s (" +
+					(count / totalSeconds) + " mazes/s, " + (totalMoves / Math.max(1, count)) + " moves and " +
+					(totalSolveNanos / Math.max(1, count) / 1000) + " us solving per maze)");
+			System.out.println(MazeMetrics.get());
+			return;
+		}
+
+		ArrayList<SolverStrategy> strategies = new ArrayList<SolverStrategy>();
+		if (args[4].equalsIgnoreCase("all"))
+			strategies = SolverStrategies.all();
+		else
+			strategies.add(SolverStrategies.forName(args[4]));
+
+		long [] totalNanos = new long [strategies.size()];
+		long [] totalExpanded = new long [strategies.size()];
+		long [] peakFrontier = new long [strategies.size()];
+
+		for (int i=0; i<count; i++)
+		{
+			Maze myMaze = new Maze(numRows, numCols);
+			myMaze.buildMaze();
+
+			for (int s=0; s<strategies.size(); s++)
+			{
+				SolveResult result = SolverStrategies.solve(strategies.get(s), myMaze);
+
+				totalNanos[s] += result.getElapsedNanos();
+				totalExpanded[s] += result.getCellsExpanded();
+				peakFrontier[s] = Math.max(peakFrontier[s], result.getPeakFrontierSize());
+			}
+		}
+
+		for (int s=0; s<strategies.size(); s++)
+			System.out.println(strategies.get(s).getName() + ": solved " + count + " mazes of " + numRows + "x" + numCols +
+					", " + (totalExpanded[s] / Math.max(1, count)) + " cells expanded and " +
+					(totalNanos[s] / Math.max(1, count) / 1000) + " us per maze, peak frontier " + peakFrontier[s]);
+	}
 }//end of class
\ No newline at end of file
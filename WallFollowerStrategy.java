@@ -0,0 +1,94 @@
+/*
+In this program, we will solve a maze by keeping our right hand on the wall: at every cell we turn right if we can,
+otherwise go straight, otherwise turn left, otherwise turn around.  It needs no memory of where it has been, and in
+a perfect maze it always finds the goal.  The moves that walked into and back out of dead ends are cancelled out of
+the path as we go.
+*/
+
+import java.util.*;
+
+public class WallFollowerStrategy implements SolverStrategy
+{
+	//Methods
+	//getName - returns "wall"
+	public String getName()
+	{
+		return "wall";
+	}
+
+	//solve - follows the right-hand wall from the start until the goal is reached
+	public SolveResult solve(MazeGrid grid, int startRow, int startCol, int goalRow, int goalCol)
+	{
+		long startTime = System.nanoTime();
+
+		//following a wall passes each side of each cell at most once before it would start repeating itself
+		long maxMoves = 4L * grid.getNumRows() * grid.getNumCols() + 4;
+
+		//the path so far, as Direction ordinals (a move that undoes the last one is popped instead of pushed)
+		byte[] stack = new byte[1024];
+		int stackSize = 0;
+
+		int row = startRow;
+		int col = startCol;
+		Direction heading = Direction.RIGHT;
+		int numMoves = 0;
+
+		while (row != goalRow || col != goalCol)
+		{
+			if (numMoves >= maxMoves)
+				throw new IllegalStateException("the goal cannot be reached from <" + startRow + ", " + startCol +
+						"> by following the wall");
+
+			//try right, straight, left and back, relative to the way we are heading
+			Direction next = turnRight(heading);
+			for (int turns=0; turns<4 && grid.hasWall(row, col, next); turns++)
+				next = turnLeft(next);
+			if (grid.hasWall(row, col, next))
+				throw new IllegalStateException("cell <" + row + ", " + col + "> is walled in on every side");
+
+			if (stackSize > 0 && stack[stackSize-1] == SolverStrategies.opposite(next).ordinal())
+				stackSize--;
+			else
+			{
+				if (stackSize == stack.length)
+					stack = Arrays.copyOf(stack, 2*stack.length);
+				stack[stackSize++] = (byte)next.ordinal();
+			}
+
+			row += MazeGrid.rowChange(next);
+			col += MazeGrid.colChange(next);
+			heading = next;
+			numMoves++;
+		}
+
+		//a wall follower has no frontier - every move it makes looks at the neighbors of just one cell
+		return new SolveResult(SolverStrategies.pathFromStack(stack, stackSize), numMoves, System.nanoTime() - startTime,
+				numMoves + 1, 0);
+	}
+
+	//turnRight - returns the Direction to the right of the one passed in
+	private static Direction turnRight(Direction direction)
+	{
+		if (direction == Direction.UP)
+			return Direction.RIGHT;
+		else if (direction == Direction.RIGHT)
+			return Direction.DOWN;
+		else if (direction == Direction.DOWN)
+			return Direction.LEFT;
+		else
+			return Direction.UP;
+	}
+
+	//turnLeft - returns the Direction to the left of the one passed in
+	private static Direction turnLeft(Direction direction)
+	{
+		if (direction == Direction.UP)
+			return Direction.LEFT;
+		else if (direction == Direction.LEFT)
+			return Direction.DOWN;
+		else if (direction == Direction.DOWN)
+			return Direction.RIGHT;
+		else
+			return Direction.UP;
+	}
+}//end of class